@@ -21,6 +21,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import org.apache.ibatis.executor.keygen.PooledSelectKeyGenerator;
 import org.apache.ibatis.mapping.StatementType;
 
 /**
@@ -41,4 +42,16 @@ public @interface SelectKey {
   Class<?> resultType();
 
   StatementType statementType() default StatementType.PREPARED;
+
+  /**
+   * Number of keys fetched at once, see {@link PooledSelectKeyGenerator}.
+   *
+   * @since 3.4.5
+   */
+  int allocationSize() default 1;
+
+  /**
+   * @since 3.4.5
+   */
+  PooledSelectKeyGenerator.Allocation allocation() default PooledSelectKeyGenerator.Allocation.INCREMENT;
 }
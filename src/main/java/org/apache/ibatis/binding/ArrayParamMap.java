@@ -0,0 +1,196 @@
+/**
+ * Copyright 2009-2017 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ibatis.binding;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 以数组保存的只读Mapper方法参数
+ *
+ * Read-only parameter object of a mapper method with several parameters, the alternative to {@link MapperMethod.ParamMap}
+ * used when <code>compactParamMapEnabled</code> is set. The values are kept in an array and the names, both the
+ * parameter names and the generic <code>param1, param2, ...</code> names, are resolved to an index through a table
+ * built once per method (see {@link Names}), so a call only allocates the map and its value array.
+ * <p>
+ * As with {@link MapperMethod.ParamMap}, getting a name that is not a parameter throws a {@link BindingException}.
+ * The map cannot be modified.
+ *
+ * @since 3.4.5
+ */
+public final class ArrayParamMap extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 3213473960839562441L;
+
+    private final Names names;
+    private final Object[] values;
+
+    private ArrayParamMap(Names names, Object[] values) {
+        this.names = names;
+        this.values = values;
+    }
+
+    @Override
+    public int size() {
+        return names.keys.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return names.keys.length == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return names.indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = names.indexOf(key);
+        if (index < 0) {
+            throw new BindingException("Parameter '" + key + "' not found. Available parameters are " + keySet());
+        }
+        return values[names.valueIndexes[index]];
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        throw new UnsupportedOperationException("The parameters of a mapper method cannot be modified, could not set '" + key + "'.");
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<Entry<String, Object>>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < names.keys.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (next >= names.keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next++;
+                        return new SimpleImmutableEntry<String, Object>(names.keys[index], values[names.valueIndexes[index]]);
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return names.keys.length;
+            }
+        };
+    }
+
+    /**
+     * The parameter names of a mapper method and the index of the value of each of them, shared by all the calls.
+     */
+    public static final class Names implements Serializable {
+
+        private static final long serialVersionUID = -6063429389187294301L;
+
+        // 所有参数名，依次为各参数的名称及其通用名称
+        private final String[] keys;
+        private final int[] valueIndexes;
+        private final int valueCount;
+        // 开放寻址的哈希表，保存keys中的下标加一，0表示空位
+        private final int[] table;
+
+        /**
+         * @param names the name of each value
+         * @param genericNames the generic name of each value, null for the values that have none
+         */
+        public Names(String[] names, String[] genericNames) {
+            // 与ParamMap一样依次放入，同名时后放入的值生效
+            Map<String, Integer> indexes = new LinkedHashMap<String, Integer>();
+            for (int i = 0; i < names.length; i++) {
+                indexes.put(names[i], i);
+                if (genericNames[i] != null) {
+                    indexes.put(genericNames[i], i);
+                }
+            }
+            this.keys = new String[indexes.size()];
+            this.valueIndexes = new int[indexes.size()];
+            this.valueCount = names.length;
+            this.table = new int[tableSize(indexes.size())];
+            int key = 0;
+            for (Map.Entry<String, Integer> entry : indexes.entrySet()) {
+                keys[key] = entry.getKey();
+                valueIndexes[key] = entry.getValue();
+                int slot = entry.getKey().hashCode() & (table.length - 1);
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & (table.length - 1);
+                }
+                table[slot] = ++key;
+            }
+        }
+
+        /**
+         * Creates the parameter map of a call, the array holds the value of each name in order and is not copied.
+         */
+        public ArrayParamMap newParamMap(Object[] values) {
+            if (values.length != valueCount) {
+                throw new IllegalArgumentException("Expected " + valueCount + " parameter values but got " + values.length);
+            }
+            return new ArrayParamMap(this, values);
+        }
+
+        private int indexOf(Object name) {
+            if (!(name instanceof String)) {
+                return -1;
+            }
+            int slot = name.hashCode() & (table.length - 1);
+            int entry;
+            while ((entry = table[slot]) != 0) {
+                String key = keys[entry - 1];
+                if (key == name || key.equals(name)) {
+                    return entry - 1;
+                }
+                slot = (slot + 1) & (table.length - 1);
+            }
+            return -1;
+        }
+
+        private static int tableSize(int keyCount) {
+            int size = 4;
+            while (size < keyCount * 2) {
+                size <<= 1;
+            }
+            return size;
+        }
+
+    }
+
+}
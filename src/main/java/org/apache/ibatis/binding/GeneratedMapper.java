@@ -0,0 +1,44 @@
+/**
+ * Copyright 2009-2017 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ibatis.binding;
+
+import org.apache.ibatis.session.SqlSession;
+
+/**
+ * javassist生成的Mapper实现类的父类
+ *
+ * Base class of the mapper implementations generated by {@link MapperProxyFactory} when javassist is the proxy
+ * factory. Each abstract method of the mapper interface calls {@link #execute(int, Object[])} with its index, so a
+ * mapper call does not go through an InvocationHandler and a method lookup.
+ */
+public abstract class GeneratedMapper {
+
+    private final SqlSession sqlSession;
+
+    private final MapperProxyFactory<?> mapperProxyFactory;
+
+    protected GeneratedMapper(SqlSession sqlSession, MapperProxyFactory<?> mapperProxyFactory) {
+        this.sqlSession = sqlSession;
+        this.mapperProxyFactory = mapperProxyFactory;
+    }
+
+    /**
+     * 执行Mapper接口中第methodIndex个方法对应的MapperMethod
+     */
+    protected final Object execute(int methodIndex, Object[] args) {
+        return mapperProxyFactory.getMapperMethod(methodIndex, sqlSession.getConfiguration()).execute(sqlSession, args);
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright 2009-2017 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ibatis.binding;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import org.apache.ibatis.lang.UsesJava7;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.session.SqlSession;
+
+/**
+ * 使用javassist生成Mapper接口的实现类
+ *
+ * The class extends {@link GeneratedMapper} and implements the abstract methods returned by
+ * {@link #mapperMethods(Class)}, each one calling {@link GeneratedMapper#execute(int, Object[])} with its index.
+ * Default methods are inherited from the interface. The class is defined in the package and the class loader of the
+ * interface, once per interface. When it cannot be generated, {@link #getConstructor(Class)} returns null and the
+ * JDK proxy is used.
+ */
+@UsesJava7
+final class MapperClassGenerator {
+
+    private static final Log log = LogFactory.getLog(MapperClassGenerator.class);
+
+    static final String CLASS_NAME_SUFFIX = "$$MyBatisMapper";
+
+    // 生成的实现类的构造方法，不能生成时为Boolean.FALSE
+    private static final ClassValue<Object> CONSTRUCTORS = new ClassValue<Object>() {
+        @Override
+        protected Object computeValue(Class<?> type) {
+            Constructor<?> constructor = generate(type);
+            return constructor != null ? constructor : Boolean.FALSE;
+        }
+    };
+
+    private static final Comparator<Method> METHOD_ORDER = new Comparator<Method>() {
+        @Override
+        public int compare(Method m1, Method m2) {
+            return signature(m1).compareTo(signature(m2));
+        }
+    };
+
+    private MapperClassGenerator() {
+        // Prevent Instantiation of Static Class
+    }
+
+    /**
+     * Returns the constructor of the generated class, taking a {@link SqlSession} and a {@link MapperProxyFactory},
+     * or null when the class cannot be generated.
+     */
+    static Constructor<?> getConstructor(Class<?> mapperInterface) {
+        Object constructor = CONSTRUCTORS.get(mapperInterface);
+        return constructor instanceof Constructor ? (Constructor<?>) constructor : null;
+    }
+
+    /**
+     * Returns the methods implemented by the generated class, in the order of their indexes, or null when two
+     * methods of the interface have the same name and parameter types.
+     */
+    static Method[] mapperMethods(Class<?> mapperInterface) {
+        List<Method> methods = new ArrayList<Method>();
+        Set<String> signatures = new HashSet<String>();
+        for (Method method : mapperInterface.getMethods()) {
+            // default方法、static方法以及Object中的方法不需要实现
+            if (!Modifier.isAbstract(method.getModifiers()) || isObjectMethod(method)) {
+                continue;
+            }
+            // 多个父接口声明了相同的方法，JDK代理按接口顺序选择，这里不处理
+            if (!signatures.add(signature(method))) {
+                return null;
+            }
+            methods.add(method);
+        }
+        Collections.sort(methods, METHOD_ORDER);
+        return methods.toArray(new Method[methods.size()]);
+    }
+
+    private static synchronized Constructor<?> generate(Class<?> mapperInterface) {
+        try {
+            ClassLoader classLoader = mapperInterface.getClassLoader();
+            if (classLoader == null || !mapperInterface.isInterface()) {
+                return null;
+            }
+            // 接口的ClassLoader必须能看到同一个GeneratedMapper
+            if (Class.forName(GeneratedMapper.class.getName(), false, classLoader) != GeneratedMapper.class) {
+                return null;
+            }
+            Method[] methods = mapperMethods(mapperInterface);
+            if (methods == null) {
+                return null;
+            }
+            String className = mapperInterface.getName() + CLASS_NAME_SUFFIX;
+            Class<?> generatedClass;
+            try {
+                // 同一个ClassLoader中已经生成过
+                generatedClass = Class.forName(className, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                generatedClass = defineClass(mapperInterface, makeClass(className, mapperInterface, methods));
+            }
+            return generatedClass.getConstructor(SqlSession.class, MapperProxyFactory.class);
+        } catch (Throwable t) {
+            if (log.isDebugEnabled()) {
+                log.debug("Could not generate an implementation of " + mapperInterface.getName()
+                        + ", a JDK proxy is used.  Cause: " + t);
+            }
+            return null;
+        }
+    }
+
+    private static CtClass makeClass(String className, Class<?> mapperInterface, Method[] methods) throws Exception {
+        ClassPool pool = new ClassPool(false);
+        pool.appendSystemPath();
+        pool.appendClassPath(new LoaderClassPath(mapperInterface.getClassLoader()));
+        CtClass ctClass = pool.makeClass(className, pool.get(GeneratedMapper.class.getName()));
+        ctClass.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
+        ctClass.addInterface(pool.get(mapperInterface.getName()));
+        ctClass.addConstructor(CtNewConstructor.make(
+                new CtClass[] {pool.get(SqlSession.class.getName()), pool.get(MapperProxyFactory.class.getName())},
+                new CtClass[0], "{ super($1, $2); }", ctClass));
+        for (int i = 0; i < methods.length; i++) {
+            Method method = methods[i];
+            String body = method.getReturnType() == void.class
+                    ? "{ execute(" + i + ", $args); }"
+                    : "{ return ($r) execute(" + i + ", $args); }";
+            ctClass.addMethod(CtNewMethod.make(Modifier.PUBLIC, pool.get(method.getReturnType().getName()),
+                    method.getName(), toCtClasses(pool, method.getParameterTypes()),
+                    toCtClasses(pool, method.getExceptionTypes()), body, ctClass));
+        }
+        return ctClass;
+    }
+
+    private static CtClass[] toCtClasses(ClassPool pool, Class<?>[] types) throws Exception {
+        CtClass[] ctClasses = new CtClass[types.length];
+        for (int i = 0; i < types.length; i++) {
+            ctClasses[i] = pool.get(types[i].getName());
+        }
+        return ctClasses;
+    }
+
+    /**
+     * Defines the class next to the interface: with {@code MethodHandles.privateLookupIn} on Java 9 and later, where
+     * javassist cannot call ClassLoader.defineClass, and with javassist before.
+     */
+    private static Class<?> defineClass(Class<?> mapperInterface, CtClass ctClass) throws Exception {
+        Method privateLookupIn;
+        try {
+            privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+        } catch (NoSuchMethodException e) {
+            privateLookupIn = null;
+        }
+        if (privateLookupIn != null) {
+            Object lookup = privateLookupIn.invoke(null, mapperInterface, MethodHandles.lookup());
+            return (Class<?>) MethodHandles.Lookup.class.getMethod("defineClass", byte[].class)
+                    .invoke(lookup, ctClass.toBytecode());
+        }
+        return ctClass.toClass(mapperInterface.getClassLoader(), mapperInterface.getProtectionDomain());
+    }
+
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static String signature(Method method) {
+        return method.getName() + Arrays.toString(method.getParameterTypes());
+    }
+}
@@ -16,12 +16,14 @@
 package org.apache.ibatis.binding;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ibatis.lang.UsesJava7;
 import org.apache.ibatis.reflection.ExceptionUtil;
@@ -47,10 +49,19 @@ public class MapperProxy<T> implements InvocationHandler, Serializable {
      /** MapperMethod对象会完成参数转换以及SQL语句的执行功能。需要注意的是，MapperMethod中并不记录任何状态相关的信息，所以可以在多个代理对象之间共享 */
     private final Map<Method, MapperMethod> methodCache;
 
+    /** 每个方法的调用方式（Object方法、default方法或MapperMethod），第一次调用时确定，之后直接分发 */
+    private final Map<Method, MethodInvoker> invokerCache;
+
     public MapperProxy(SqlSession sqlSession, Class<T> mapperInterface, Map<Method, MapperMethod> methodCache) {
+        this(sqlSession, mapperInterface, methodCache, new ConcurrentHashMap<Method, MethodInvoker>());
+    }
+
+    MapperProxy(SqlSession sqlSession, Class<T> mapperInterface, Map<Method, MapperMethod> methodCache,
+                Map<Method, MethodInvoker> invokerCache) {
         this.sqlSession = sqlSession;
         this.mapperInterface = mapperInterface;
         this.methodCache = methodCache;
+        this.invokerCache = invokerCache;
     }
 
     /**
@@ -66,27 +77,34 @@ public class MapperProxy<T> implements InvocationHandler, Serializable {
     //      User user = userMapper.getUserById(2L); args = {2L}
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        // eg1: method = public abstract vo.User mapper.UserMapper.getUserById(java.lang.Long)
+        /** 从缓存中取出该方法的调用方式，没有则创建并放入缓存 */
+        MethodInvoker invoker = invokerCache.get(method);
+        if (invoker == null) {
+            invoker = newMethodInvoker(method);
+            invokerCache.put(method, invoker);
+        }
+        // eg1: sqlSession = DefaultSqlSession@1953  args = {2L}
+        return invoker.invoke(this, proxy, args);
+    }
+
+    private MethodInvoker newMethodInvoker(Method method) throws Throwable {
         try {
             /** 如果被代理的方法是Object类的方法，如toString()、clone()，则不进行代理 */
             // eg1: method.getDeclaringClass()==interface mapper.UserMapper  由于被代理的方法是UserMapper的getUserById方法，而不是Object的方法，所以返回false
             if (Object.class.equals(method.getDeclaringClass())) {
-                return method.invoke(this, args);
+                return new ObjectMethodInvoker(method);
             }
 
             /** 如果是接口中的default方法，则调用default方法  eg:接口中有实现的方法*/
             else if (isDefaultMethod(method)) { // eg1: 不是default方法，返回false
-                return invokeDefaultMethod(proxy, method, args);
+                return new DefaultMethodInvoker(getDefaultMethodHandle(method));
             }
         } catch (Throwable t) {
             throw ExceptionUtil.unwrapThrowable(t);
         }
-        // eg1: method = public abstract vo.User mapper.UserMapper.getUserById(java.lang.Long)
         /** 初始化一个MapperMethod并放入缓存中 或者 从缓存中取出之前的MapperMethod */
-        final MapperMethod mapperMethod = cachedMapperMethod(method);
-
-        // eg1: sqlSession = DefaultSqlSession@1953  args = {2L}
-        /** 调用MapperMethod.execute()方法执行SQL语句 */
-        return mapperMethod.execute(sqlSession, args);
+        return new MapperMethodInvoker(cachedMapperMethod(method));
     }
 
     // eg1: public abstract vo.User mapper.UserMapper.getUserById(java.lang.Long)
@@ -107,7 +125,7 @@ public class MapperProxy<T> implements InvocationHandler, Serializable {
 
     @UsesJava7
     @SuppressWarnings("all")
-    private Object invokeDefaultMethod(Object proxy, Method method, Object[] args) throws Throwable {
+    private MethodHandle getDefaultMethodHandle(Method method) throws Throwable {
         final Constructor<MethodHandles.Lookup> constructor = MethodHandles.Lookup.class
                 .getDeclaredConstructor(Class.class, int.class);
         if (!constructor.isAccessible()) {
@@ -118,7 +136,7 @@ public class MapperProxy<T> implements InvocationHandler, Serializable {
                 .newInstance(declaringClass,
                         MethodHandles.Lookup.PRIVATE | MethodHandles.Lookup.PROTECTED
                                 | MethodHandles.Lookup.PACKAGE | MethodHandles.Lookup.PUBLIC)
-                .unreflectSpecial(method, declaringClass).bindTo(proxy).invokeWithArguments(args);
+                .unreflectSpecial(method, declaringClass);
     }
 
     /**
@@ -154,4 +172,63 @@ public class MapperProxy<T> implements InvocationHandler, Serializable {
         return ((method.getModifiers() & (Modifier.ABSTRACT | Modifier.PUBLIC | Modifier.STATIC)) == Modifier.PUBLIC)
                 && method.getDeclaringClass().isInterface();
     }
+
+    /**
+     * 一个Mapper方法的调用方式，按方法缓存，在同一个Mapper接口的所有代理对象之间共享
+     */
+    interface MethodInvoker {
+        Object invoke(MapperProxy<?> mapperProxy, Object proxy, Object[] args) throws Throwable;
+    }
+
+    private static final class ObjectMethodInvoker implements MethodInvoker {
+
+        private final Method method;
+
+        private ObjectMethodInvoker(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public Object invoke(MapperProxy<?> mapperProxy, Object proxy, Object[] args) throws Throwable {
+            try {
+                return method.invoke(mapperProxy, args);
+            } catch (Throwable t) {
+                throw ExceptionUtil.unwrapThrowable(t);
+            }
+        }
+    }
+
+    @UsesJava7
+    private static final class DefaultMethodInvoker implements MethodInvoker {
+
+        private final MethodHandle methodHandle;
+
+        private DefaultMethodInvoker(MethodHandle methodHandle) {
+            this.methodHandle = methodHandle;
+        }
+
+        @Override
+        public Object invoke(MapperProxy<?> mapperProxy, Object proxy, Object[] args) throws Throwable {
+            try {
+                return methodHandle.bindTo(proxy).invokeWithArguments(args);
+            } catch (Throwable t) {
+                throw ExceptionUtil.unwrapThrowable(t);
+            }
+        }
+    }
+
+    private static final class MapperMethodInvoker implements MethodInvoker {
+
+        private final MapperMethod mapperMethod;
+
+        private MapperMethodInvoker(MapperMethod mapperMethod) {
+            this.mapperMethod = mapperMethod;
+        }
+
+        @Override
+        public Object invoke(MapperProxy<?> mapperProxy, Object proxy, Object[] args) throws Throwable {
+            /** 调用MapperMethod.execute()方法执行SQL语句 */
+            return mapperMethod.execute(mapperProxy.sqlSession, args);
+        }
+    }
 }
@@ -15,6 +15,7 @@
  */
 package org.apache.ibatis.binding;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.HashMap;
@@ -22,6 +23,8 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ibatis.exceptions.IbatisException;
+import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSession;
 
 import ognl.IntHashMap;
@@ -29,6 +32,10 @@ import ognl.IntHashMap;
 /**
  * 获得MapperProxy的代理工厂类
  *
+ * When javassist is the proxy factory of the configuration (the default), the mappers are instances of a class
+ * generated for the interface, see {@link GeneratedMapper}. Otherwise, or when the class cannot be generated, they are
+ * JDK proxies calling a {@link MapperProxy}.
+ *
  * @author Lasse Voss
  * @modify muse
  */
@@ -40,6 +47,17 @@ public class MapperProxyFactory<T> {
     // 存储Method与MapperMethod的对应关系
     private final Map<Method, MapperMethod> methodCache = new ConcurrentHashMap<Method, MapperMethod>();
 
+    // 存储Method与其调用方式的对应关系，所有MapperProxy共享
+    private final Map<Method, MapperProxy.MethodInvoker> invokerCache = new ConcurrentHashMap<Method, MapperProxy.MethodInvoker>();
+
+    // javassist生成的实现类实现的方法，按下标对应的MapperMethod
+    private Method[] mapperMethods;
+    private MapperMethod[] mapperMethodTable;
+
+    // 生成的实现类的构造方法，没有生成时为null
+    private volatile Constructor<?> generatedConstructor;
+    private volatile boolean generationChecked;
+
     public MapperProxyFactory(Class<T> mapperInterface) {
         this.mapperInterface = mapperInterface;
     }
@@ -98,13 +116,59 @@ public class MapperProxyFactory<T> {
     }
 
     public T newInstance(SqlSession sqlSession) {
+        Constructor<?> constructor = getGeneratedConstructor(sqlSession.getConfiguration());
+        if (constructor != null) {
+            try {
+                return mapperInterface.cast(constructor.newInstance(sqlSession, this));
+            } catch (Exception e) {
+                throw new BindingException("Error creating an instance of the mapper " + mapperInterface.getName()
+                        + ".  Cause: " + e, e);
+            }
+        }
 
         /**
          * 创建MapperProxy对象，每次调用都会创建新的MapperProxy对象，MapperProxy implements InvocationHandler
          * 说明(可搜索)：public class MapperProxy<T> implements InvocationHandler, Serializable
          */
-        final MapperProxy<T> mapperProxy = new MapperProxy<T>(sqlSession, mapperInterface, methodCache);
+        final MapperProxy<T> mapperProxy = new MapperProxy<T>(sqlSession, mapperInterface, methodCache, invokerCache);
         return newInstance(mapperProxy);
     }
 
+    private Constructor<?> getGeneratedConstructor(Configuration configuration) {
+        if (!(configuration.getProxyFactory() instanceof JavassistProxyFactory)) {
+            return null;
+        }
+        if (!generationChecked) {
+            synchronized (this) {
+                if (!generationChecked) {
+                    Constructor<?> constructor = MapperClassGenerator.getConstructor(mapperInterface);
+                    if (constructor != null) {
+                        mapperMethods = MapperClassGenerator.mapperMethods(mapperInterface);
+                        mapperMethodTable = new MapperMethod[mapperMethods.length];
+                        generatedConstructor = constructor;
+                    }
+                    generationChecked = true;
+                }
+            }
+        }
+        return generatedConstructor;
+    }
+
+    /**
+     * 获得生成的实现类中第index个方法的MapperMethod，并放入methodCache中
+     */
+    MapperMethod getMapperMethod(int index, Configuration configuration) {
+        MapperMethod mapperMethod = mapperMethodTable[index];
+        if (mapperMethod == null) {
+            Method method = mapperMethods[index];
+            mapperMethod = methodCache.get(method);
+            if (mapperMethod == null) {
+                mapperMethod = new MapperMethod(mapperInterface, method, configuration);
+                methodCache.put(method, mapperMethod);
+            }
+            mapperMethodTable[index] = mapperMethod;
+        }
+        return mapperMethod;
+    }
+
 }
@@ -30,6 +30,8 @@ import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.keygen.PooledSelectKeyGenerator;
+import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
 import org.apache.ibatis.mapping.CacheBuilder;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -483,6 +485,27 @@ public class MapperBuilderAssistant extends BaseBuilder {
         return configuration.getLanguageRegistry().getDriver(langClass);
     }
 
+    /**
+     * Creates the key generator of a select key statement, pooling the keys when more than one key is allocated at once.
+     *
+     * @since 3.4.5
+     */
+    public KeyGenerator newSelectKeyGenerator(MappedStatement keyStatement, boolean executeBefore, int allocationSize,
+                                              PooledSelectKeyGenerator.Allocation allocation) {
+        if (allocationSize == 1) {
+            return new SelectKeyGenerator(keyStatement, executeBefore);
+        }
+        // 按块预分配主键只对先执行的selectKey有意义
+        if (!executeBefore) {
+            throw new BuilderException("The selectKey " + keyStatement.getId() + " sets an allocationSize but is not executed before the statement.");
+        }
+        try {
+            return new PooledSelectKeyGenerator(keyStatement, allocationSize, allocation);
+        } catch (IllegalArgumentException e) {
+            throw new BuilderException("Error building the selectKey " + keyStatement.getId() + ". Cause: " + e, e);
+        }
+    }
+
     /**
      * Backward compatibility signature
      */
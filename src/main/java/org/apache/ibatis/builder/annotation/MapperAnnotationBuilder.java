@@ -649,7 +649,8 @@ public class MapperAnnotationBuilder {
     id = assistant.applyCurrentNamespace(id, false);
 
     MappedStatement keyStatement = configuration.getMappedStatement(id, false);
-    SelectKeyGenerator answer = new SelectKeyGenerator(keyStatement, executeBefore);
+    KeyGenerator answer = assistant.newSelectKeyGenerator(keyStatement, executeBefore,
+        selectKeyAnnotation.allocationSize(), selectKeyAnnotation.allocation());
     configuration.addKeyGenerator(id, answer);
     return answer;
   }
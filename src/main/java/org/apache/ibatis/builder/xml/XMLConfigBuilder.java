@@ -17,6 +17,7 @@ package org.apache.ibatis.builder.xml;
 
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.Locale;
 import java.util.Properties;
 
 import javax.sql.DataSource;
@@ -24,8 +25,13 @@ import javax.sql.DataSource;
 import org.apache.ibatis.builder.BaseBuilder;
 import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.datasource.DataSourceFactory;
+import org.apache.ibatis.executor.BatchFlushListener;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.pagination.LimitOffsetPaginationDialect;
+import org.apache.ibatis.executor.pagination.MySqlPaginationDialect;
+import org.apache.ibatis.executor.pagination.OffsetFetchPaginationDialect;
+import org.apache.ibatis.executor.pagination.PaginationDialect;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
@@ -39,8 +45,10 @@ import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
+import org.apache.ibatis.session.ArrayParameterDialect;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.AutoMappingUnknownColumnBehavior;
+import org.apache.ibatis.session.BulkLoadDialect;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.LocalCacheScope;
@@ -459,6 +467,86 @@ public class XMLConfigBuilder extends BaseBuilder {
          */
         configuration.setProxyFactory((ProxyFactory) createInstance(props.getProperty("proxyFactory")));
 
+        /**
+         * 将RowBounds转换为数据库分页语句。
+         * HSQLDB | DERBY | H2 | POSTGRESQL | MYSQL | 实现PaginationDialect的类名，不设置则在客户端跳过记录（默认值）
+         */
+        configuration.setPaginationDialect(paginationDialectOf(props.getProperty("paginationDialect")));
+
+        /**
+         * 每个动态SQL缓存的解析结果数量，生成的SQL相同时不再重新解析#{}参数。0表示不缓存，默认16
+         */
+        configuration.setDynamicSqlCacheSize(integerValueOf(props.getProperty("dynamicSqlCacheSize"), 16));
+
+        /**
+         * 标记了arrayParameter="true"的foreach以一个数组参数绑定集合，SQL语句不随集合大小变化。
+         * HSQLDB | POSTGRESQL，不设置则逐个元素绑定（默认值）
+         */
+        String arrayParameterDialect = props.getProperty("arrayParameterDialect");
+        configuration.setArrayParameterDialect(
+                arrayParameterDialect == null ? null : ArrayParameterDialect.valueOf(arrayParameterDialect));
+
+        /**
+         * BATCH执行器中，insert语句交替执行时（如主表、子表、主表、子表...）是否追加到各自已打开的批处理中，而不是每次新建语句。
+         * 批处理按语句第一次出现的顺序执行，update、delete语句不会被重新排序。默认false
+         */
+        configuration.setBatchGroupingEnabled(booleanValueOf(props.getProperty("batchGroupingEnabled"), false));
+
+        /**
+         * BATCH执行器自动flush的阈值，达到任意一个时执行所有批处理：单个语句的行数、所有语句的行数、参数的估算字节数。0表示不限制（默认值）
+         */
+        configuration.setBatchMaxStatementRows(integerValueOf(props.getProperty("batchMaxStatementRows"), 0));
+        configuration.setBatchMaxRows(integerValueOf(props.getProperty("batchMaxRows"), 0));
+        configuration.setBatchMaxBytes(longValueOf(props.getProperty("batchMaxBytes"), 0L));
+
+        /**
+         * BATCH执行器的自动flush在后台线程中按顺序执行，调用线程继续添加下一批数据，最多同时有这么多个flush在执行。
+         * 调用线程要使用连接时先等待后台flush执行完，后台flush的异常在下一次update、flush或commit时抛出。0表示在调用线程中执行（默认值）
+         */
+        configuration.setBatchMaxAsyncFlushes(integerValueOf(props.getProperty("batchMaxAsyncFlushes"), 0));
+
+        /**
+         * 允许后台flush的JDBC驱动，驱动名称中包含的字符串，以逗号分隔。默认为空，即不使用后台flush
+         */
+        if (props.getProperty("batchAsyncFlushDrivers") != null) {
+            configuration.setBatchAsyncFlushDrivers(stringSetValueOf(props.getProperty("batchAsyncFlushDrivers"), ""));
+        }
+
+        /**
+         * 批处理执行后的回调，实现BatchFlushListener的类名。自动flush的结果交给回调后释放参数对象
+         */
+        configuration.setBatchFlushListener((BatchFlushListener) createInstance(props.getProperty("batchFlushListener")));
+
+        /**
+         * BATCH执行器是否取回生成的主键（useGeneratedKeys、order="AFTER"的selectKey）并回填到参数中，关闭后批处理只写不读。默认true
+         */
+        configuration.setBatchKeyRetrievalEnabled(booleanValueOf(props.getProperty("batchKeyRetrievalEnabled"), true));
+
+        /**
+         * BATCH执行器把同一个简单insert语句（INSERT ... VALUES (...)）的连续执行改写成多行insert（VALUES (...), (...)）时，每条语句最多的行数。
+         * 不依赖驱动的改写参数，0表示不改写（默认值）
+         */
+        configuration.setBatchInsertRewriteRows(integerValueOf(props.getProperty("batchInsertRewriteRows"), 0));
+
+        /**
+         * SqlSession#bulkInsert使用的数据库批量导入协议：POSTGRESQL（COPY），只用于INSERT INTO table (columns) VALUES (?, ...)形式的语句。
+         * 不设置（默认值）或语句不是这种形式时，以每批bulkLoadBatchSize行（默认1000）的批处理插入
+         */
+        String bulkLoadDialect = props.getProperty("bulkLoadDialect");
+        configuration.setBulkLoadDialect(bulkLoadDialect == null ? null : BulkLoadDialect.valueOf(bulkLoadDialect));
+        configuration.setBulkLoadBatchSize(integerValueOf(props.getProperty("bulkLoadBatchSize"), 1000));
+
+        /**
+         * Mapper方法有多个入参时，是否打包为以数组保存的只读ArrayParamMap（参数名到下标的映射只计算一次），而不是每次调用新建一个HashMap。
+         * 会向参数Map中添加值的插件需要关闭此项。默认false
+         */
+        configuration.setCompactParamMapEnabled(booleanValueOf(props.getProperty("compactParamMapEnabled"), false));
+
+        /**
+         * 是否把所有插件合并成一层代理，按@Intercepts中的签名分发到拦截器，不再调用每个拦截器的plugin方法。默认false
+         */
+        configuration.setInterceptorChainCompiled(booleanValueOf(props.getProperty("interceptorChainCompiled"), false));
+
         /**
          * 延迟加载的全局开关。当开启时，所有关联对象都会延迟加载。 特定关联关系中可通过设置fetchType属性来覆盖该项的开关状态。
          */
@@ -597,6 +685,24 @@ public class XMLConfigBuilder extends BaseBuilder {
      * </environment>
      * </environments>
      */
+    /**
+     * 内置的分页方言名称（不区分大小写），或实现PaginationDialect的类名或别名
+     */
+    private PaginationDialect paginationDialectOf(String name) {
+        if (name == null) {
+            return null;
+        }
+        String builtInName = name.toUpperCase(Locale.ENGLISH);
+        if ("HSQLDB".equals(builtInName) || "DERBY".equals(builtInName)) {
+            return new OffsetFetchPaginationDialect();
+        } else if ("H2".equals(builtInName) || "POSTGRESQL".equals(builtInName)) {
+            return new LimitOffsetPaginationDialect();
+        } else if ("MYSQL".equals(builtInName)) {
+            return new MySqlPaginationDialect();
+        }
+        return (PaginationDialect) createInstance(name);
+    }
+
     private void environmentsElement(XNode context) throws Exception {
         if (context != null) {
             if (environment == null) {
@@ -23,6 +23,7 @@ import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.keygen.PooledSelectKeyGenerator;
 import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultSetType;
@@ -138,6 +139,9 @@ public class XMLStatementBuilder extends BaseBuilder {
     String keyProperty = nodeToHandle.getStringAttribute("keyProperty");
     String keyColumn = nodeToHandle.getStringAttribute("keyColumn");
     boolean executeBefore = "BEFORE".equals(nodeToHandle.getStringAttribute("order", "AFTER"));
+    int allocationSize = nodeToHandle.getIntAttribute("allocationSize", 1);
+    PooledSelectKeyGenerator.Allocation allocation = PooledSelectKeyGenerator.Allocation.valueOf(
+        nodeToHandle.getStringAttribute("allocation", PooledSelectKeyGenerator.Allocation.INCREMENT.name()));
 
     //defaults
     boolean useCache = false;
@@ -161,7 +165,7 @@ public class XMLStatementBuilder extends BaseBuilder {
     id = builderAssistant.applyCurrentNamespace(id, false);
 
     MappedStatement keyStatement = configuration.getMappedStatement(id, false);
-    configuration.addKeyGenerator(id, new SelectKeyGenerator(keyStatement, executeBefore));
+    configuration.addKeyGenerator(id, builderAssistant.newSelectKeyGenerator(keyStatement, executeBefore, allocationSize, allocation));
   }
 
   private void removeSelectKeyNodes(List<XNode> selectKeyNodes) {
@@ -0,0 +1,37 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+import java.util.List;
+
+/**
+ * A {@link Cursor} that can map several items in a single pass over the ResultSet. The cursors created by
+ * MyBatis implement it; callers should check for it with {@code instanceof} since a {@link Cursor} may also
+ * be a third-party implementation.
+ *
+ * @param <T> the cursor element type
+ */
+public interface BatchCursor<T> extends Cursor<T> {
+
+    /**
+     * Maps up to maxItems items in a single pass over the ResultSet and adds them to the given list,
+     * which is not cleared so it can be reused between calls. Can be mixed with the iterator.
+     * @param items the list the items are added to
+     * @param maxItems the maximum number of items to fetch, must be positive
+     * @return the number of items added, 0 once the cursor is consumed
+     */
+    int fetchBatch(List<? super T> items, int maxItems);
+}
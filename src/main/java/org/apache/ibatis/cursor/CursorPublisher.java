@@ -0,0 +1,239 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * Streams the items of a {@link Cursor} to a {@link CursorSubscriber} with back-pressure: a row is only read
+ * from the ResultSet and mapped when the subscriber has requested it, so a slow consumer never makes rows
+ * pile up in memory. The driver still reads rows in blocks of the statement fetchSize.
+ * <p>
+ * The cursor is closed as soon as the subscriber cancels, fails or completes, or when {@code onNext} throws (the
+ * failure is then signalled through {@code onError}). Any additional resource given is closed right after the
+ * cursor, eg: the session opened for the stream by {@link #openDedicated(SqlSessionFactory, String, Object, RowBounds)}.
+ * <p>
+ * A cursor can only be iterated once, so a publisher accepts a single subscriber.
+ *
+ * @param <T> the cursor element type
+ */
+public class CursorPublisher<T> {
+
+    private final Cursor<T> cursor;
+    private final Closeable[] resources;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    public CursorPublisher(Cursor<T> cursor, Closeable... resources) {
+        this.cursor = cursor;
+        this.resources = resources;
+    }
+
+    /**
+     * Opens a session dedicated to the stream and selects the cursor with it. The session is closed, releasing its
+     * connection, when the subscriber cancels, fails or completes.
+     */
+    public static <T> CursorPublisher<T> openDedicated(SqlSessionFactory sqlSessionFactory, String statement,
+                                                       Object parameter, RowBounds rowBounds) {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            return new CursorPublisher<T>(sqlSession.<T>selectCursor(statement, parameter, rowBounds), sqlSession);
+        } catch (RuntimeException e) {
+            sqlSession.close();
+            throw e;
+        }
+    }
+
+    public void subscribe(CursorSubscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(EmptySubscription.INSTANCE);
+            subscriber.onError(new IllegalStateException("A CursorPublisher can only be subscribed once"));
+            return;
+        }
+        CursorIteratorSubscription<T> subscription = new CursorIteratorSubscription<T>(cursor, resources, subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private static class CursorIteratorSubscription<T> implements CursorSubscription {
+
+        private final Cursor<T> cursor;
+        private final Closeable[] resources;
+        private final CursorSubscriber<? super T> subscriber;
+
+        // number of items requested but not delivered yet
+        private final AtomicLong requested = new AtomicLong();
+        // serializes the delivery loop, the thread that increments it from 0 delivers
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private Iterator<T> iterator;
+        private boolean done;
+
+        CursorIteratorSubscription(Cursor<T> cursor, Closeable[] resources, CursorSubscriber<? super T> subscriber) {
+            this.cursor = cursor;
+            this.resources = resources;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested items must be positive but was " + n);
+                cancelled = true;
+                drain();
+                return;
+            }
+            for (;;) {
+                long current = requested.get();
+                if (current == Long.MAX_VALUE) {
+                    break;
+                }
+                long next = current + n;
+                if (next < 0) {
+                    next = Long.MAX_VALUE;
+                }
+                if (requested.compareAndSet(current, next)) {
+                    break;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                if (done) {
+                    return;
+                }
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand && !cancelled) {
+                    T item;
+                    try {
+                        if (iterator == null) {
+                            iterator = cursor.iterator();
+                        }
+                        if (!iterator.hasNext()) {
+                            complete(null);
+                            return;
+                        }
+                        item = iterator.next();
+                    } catch (RuntimeException e) {
+                        complete(e);
+                        return;
+                    }
+                    try {
+                        subscriber.onNext(item);
+                    } catch (Throwable t) {
+                        // Reactive Streams 2.13: a failing subscriber is considered cancelled
+                        cancelled = true;
+                        complete(t);
+                        return;
+                    }
+                    emitted++;
+                    if (cursor.isConsumed() && !cancelled) {
+                        complete(null);
+                        return;
+                    }
+                }
+                if (cancelled) {
+                    done = true;
+                    release();
+                    if (invalidRequest != null) {
+                        subscriber.onError(invalidRequest);
+                    }
+                    return;
+                }
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void complete(Throwable failure) {
+            done = true;
+            Throwable closeFailure = release();
+            if (failure != null) {
+                subscriber.onError(failure);
+            } else if (closeFailure != null) {
+                subscriber.onError(closeFailure);
+            } else {
+                subscriber.onComplete();
+            }
+        }
+
+        /**
+         * Closes the cursor then the resources, returns the first failure.
+         */
+        private Throwable release() {
+            Throwable failure = close(cursor, null);
+            for (Closeable resource : resources) {
+                failure = close(resource, failure);
+            }
+            return failure;
+        }
+
+        private static Throwable close(Closeable closeable, Throwable previousFailure) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                return previousFailure == null ? e : previousFailure;
+            } catch (RuntimeException e) {
+                return previousFailure == null ? e : previousFailure;
+            }
+            return previousFailure;
+        }
+    }
+
+    private enum EmptySubscription implements CursorSubscription {
+        INSTANCE;
+
+        @Override
+        public void request(long n) {
+            // nothing to deliver
+        }
+
+        @Override
+        public void cancel() {
+            // nothing to release
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+/**
+ * Receives the items of a {@link CursorPublisher} as it requests them through its {@link CursorSubscription}.
+ * The contract follows the Reactive Streams {@code Subscriber}: no item is mapped before it is requested,
+ * {@link #onComplete()} or {@link #onError(Throwable)} is called at most once and nothing follows it.
+ *
+ * @param <T> the cursor element type
+ */
+public interface CursorSubscriber<T> {
+
+    /**
+     * Called once before any other method. Nothing is fetched until {@link CursorSubscription#request(long)}.
+     */
+    void onSubscribe(CursorSubscription subscription);
+
+    void onNext(T item);
+
+    void onError(Throwable throwable);
+
+    void onComplete();
+}
@@ -0,0 +1,35 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+/**
+ * Demand signalled by a {@link CursorSubscriber}. Both methods may be called from any thread, including from
+ * within {@link CursorSubscriber#onNext(Object)}.
+ */
+public interface CursorSubscription {
+
+    /**
+     * Adds demand for n more items. Items are mapped and delivered on the calling thread
+     * (or on the thread that is already delivering).
+     * @param n number of items, must be positive. {@link Long#MAX_VALUE} means unbounded.
+     */
+    void request(long n);
+
+    /**
+     * Stops delivering items and closes the underlying cursor.
+     */
+    void cancel();
+}
@@ -15,7 +15,7 @@
  */
 package org.apache.ibatis.cursor.defaults;
 
-import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.BatchCursor;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetWrapper;
 import org.apache.ibatis.mapping.ResultMap;
@@ -27,6 +27,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -35,7 +36,7 @@ import java.util.NoSuchElementException;
  *
  * @author Guillaume Darmont / guillaume@dropinocean.com
  */
-public class DefaultCursor<T> implements Cursor<T> {
+public class DefaultCursor<T> implements BatchCursor<T> {
 
     // ResultSetHandler stuff
     private final DefaultResultSetHandler resultSetHandler;
@@ -43,6 +44,7 @@ public class DefaultCursor<T> implements Cursor<T> {
     private final ResultSetWrapper rsw;
     private final RowBounds rowBounds;
     private final ObjectWrapperResultHandler<T> objectWrapperResultHandler = new ObjectWrapperResultHandler<T>();
+    private final BatchResultHandler<T> batchResultHandler = new BatchResultHandler<T>();
 
     private final CursorIterator cursorIterator = new CursorIterator();
     private boolean iteratorRetrieved;
@@ -101,6 +103,28 @@ public class DefaultCursor<T> implements Cursor<T> {
         return cursorIterator;
     }
 
+    @Override
+    public int fetchBatch(List<? super T> items, int maxItems) {
+        if (maxItems <= 0) {
+            throw new IllegalArgumentException("maxItems must be positive but was " + maxItems);
+        }
+        int count = 0;
+        // an item may already have been fetched by the iterator's hasNext()
+        if (cursorIterator.object != null) {
+            items.add(cursorIterator.object);
+            cursorIterator.object = null;
+            count++;
+        }
+        while (!isClosed() && getReadItemsCount() < rowBounds.getOffset()) {
+            fetchNextObjectFromDatabase();
+        }
+        if (count < maxItems) {
+            count += fetchNextObjectsFromDatabase(items, maxItems - count);
+        }
+        cursorIterator.iteratorIndex += count;
+        return count;
+    }
+
     @Override
     public void close() {
         if (isClosed()) {
@@ -157,6 +181,35 @@ public class DefaultCursor<T> implements Cursor<T> {
         return next;
     }
 
+    protected int fetchNextObjectsFromDatabase(List<? super T> items, int maxItems) {
+        if (isClosed()) {
+            return 0;
+        }
+        long remaining = (long) rowBounds.getOffset() + rowBounds.getLimit() - getReadItemsCount();
+        int batchSize = (int) Math.min(maxItems, remaining);
+
+        batchResultHandler.items = items;
+        batchResultHandler.maxItems = batchSize;
+        batchResultHandler.count = 0;
+        try {
+            status = CursorStatus.OPEN;
+            resultSetHandler.handleRowValues(rsw, resultMap, batchResultHandler, RowBounds.DEFAULT, null);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            batchResultHandler.items = null;
+        }
+
+        int fetched = batchResultHandler.count;
+        indexWithRowBound += fetched;
+        // Fewer objects than asked means the ResultSet is exhausted
+        if (fetched < batchSize || fetched == remaining) {
+            close();
+            status = CursorStatus.CONSUMED;
+        }
+        return fetched;
+    }
+
     private boolean isClosed() {
         return status == CursorStatus.CLOSED || status == CursorStatus.CONSUMED;
     }
@@ -176,6 +229,21 @@ public class DefaultCursor<T> implements Cursor<T> {
         }
     }
 
+    private static class BatchResultHandler<T> implements ResultHandler<T> {
+
+        private List<? super T> items;
+        private int maxItems;
+        private int count;
+
+        @Override
+        public void handleResult(ResultContext<? extends T> context) {
+            items.add(context.getResultObject());
+            if (++count == maxItems) {
+                context.stop();
+            }
+        }
+    }
+
     private class CursorIterator implements Iterator<T> {
 
         /**
@@ -0,0 +1,340 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.ibatis.cursor.BatchCursor;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+
+/**
+ * Opt-in Cursor that reads and maps the rows of another cursor on a producer thread, up to bufferSize items
+ * ahead of the consumer, so the database round-trips overlap the processing of the items already fetched.
+ * Items are read in chunks when the wrapped cursor is a {@link BatchCursor}, one at a time through its iterator
+ * otherwise.
+ * <p>
+ * The wrapped cursor is only accessed from the producer thread once fetching has started, so its SqlSession
+ * must not be used for anything else (including lazy loading) until this cursor is closed or consumed.
+ * Close this cursor before its SqlSession: {@link #close()} stops the producer and waits for it to close the
+ * wrapped cursor. A failure on the producer thread is rethrown to the consumer, after the items mapped before it.
+ * This implementation is not thread safe, except for {@link #close()}.
+ *
+ * @param <T> the cursor element type
+ */
+public class PrefetchingCursor<T> implements BatchCursor<T> {
+
+    private static final Object END = new Object();
+    // stands for a null row, the buffer cannot hold null
+    private static final Object NULL = new Object();
+    private static final int MAX_CHUNK_SIZE = 64;
+
+    private final Cursor<T> delegate;
+    private final BlockingQueue<Object> buffer;
+    private final Executor executor;
+    private final int chunkSize;
+    private final CountDownLatch producerDone = new CountDownLatch(1);
+    // claimed by the producer when it starts running, or by close() if it has not run yet
+    private final AtomicBoolean producerClaimed = new AtomicBoolean();
+    private final CursorIterator cursorIterator = new CursorIterator();
+    private boolean iteratorRetrieved;
+
+    private volatile boolean closed;
+    private volatile boolean started;
+    private boolean consumed;
+    private int baseIndex;
+    private int consumedCount;
+
+    public PrefetchingCursor(Cursor<T> delegate, int bufferSize) {
+        this(delegate, bufferSize, null);
+    }
+
+    /**
+     * @param executor runs the producer, a new daemon thread is used when null
+     */
+    public PrefetchingCursor(Cursor<T> delegate, int bufferSize, Executor executor) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive but was " + bufferSize);
+        }
+        this.delegate = delegate;
+        this.buffer = new ArrayBlockingQueue<Object>(bufferSize);
+        this.executor = executor;
+        this.chunkSize = Math.min(bufferSize, MAX_CHUNK_SIZE);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return started && !closed && !consumed;
+    }
+
+    @Override
+    public boolean isConsumed() {
+        return consumed;
+    }
+
+    @Override
+    public int getCurrentIndex() {
+        return started ? baseIndex + consumedCount : delegate.getCurrentIndex();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if (iteratorRetrieved) {
+            throw new IllegalStateException("Cannot open more than one iterator on a Cursor");
+        }
+        iteratorRetrieved = true;
+        return cursorIterator;
+    }
+
+    @Override
+    public int fetchBatch(List<? super T> items, int maxItems) {
+        if (maxItems <= 0) {
+            throw new IllegalArgumentException("maxItems must be positive but was " + maxItems);
+        }
+        int count = 0;
+        if (cursorIterator.fetched) {
+            items.add(cursorIterator.object);
+            cursorIterator.clear();
+            count++;
+        }
+        while (count < maxItems) {
+            Object next = fetchNext();
+            if (next == END) {
+                break;
+            }
+            items.add(unwrap(next));
+            count++;
+        }
+        cursorIterator.iteratorIndex += count;
+        consumedCount += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!started || producerClaimed.compareAndSet(false, true)) {
+            // the producer has not run yet, it will not touch the wrapped cursor anymore
+            closeDelegate();
+            // wakes up a consumer waiting for the first items
+            buffer.offer(END);
+            return;
+        }
+        // frees room in the buffer so a blocked producer wakes up and sees the cursor is closed
+        buffer.clear();
+        try {
+            producerDone.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        buffer.clear();
+        // the producer does not signal the end once closed, wakes up a consumer waiting on another thread
+        buffer.offer(END);
+    }
+
+    /**
+     * @return the next buffered item, possibly {@link #NULL}, or {@link #END} once the cursor is over
+     */
+    private Object fetchNext() {
+        if (closed || consumed) {
+            return END;
+        }
+        if (!started) {
+            start();
+        }
+        Object next;
+        try {
+            next = buffer.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("Interrupted while waiting for cursor items.  Cause: " + e, e);
+        }
+        if (next == END) {
+            consumed = true;
+            return END;
+        }
+        if (next instanceof Failure) {
+            consumed = true;
+            Throwable cause = ((Failure) next).cause;
+            throw new PersistenceException("Error fetching cursor items in the background.  Cause: " + cause, cause);
+        }
+        return next;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T unwrap(Object item) {
+        return item == NULL ? null : (T) item;
+    }
+
+    private void start() {
+        started = true;
+        baseIndex = delegate.getCurrentIndex();
+        Producer producer = new Producer();
+        if (executor != null) {
+            try {
+                executor.execute(producer);
+            } catch (RejectedExecutionException e) {
+                consumed = true;
+                if (producerClaimed.compareAndSet(false, true)) {
+                    closeDelegate();
+                }
+                producerDone.countDown();
+                throw new PersistenceException("Could not start fetching cursor items in the background.  Cause: " + e, e);
+            }
+        } else {
+            Thread thread = new Thread(producer, "mybatis-cursor-prefetch");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void closeDelegate() {
+        try {
+            delegate.close();
+        } catch (Exception e) {
+            // ignore
+        }
+    }
+
+    private static class Failure {
+        private final Throwable cause;
+
+        Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+
+    private class Producer implements Runnable {
+
+        @Override
+        public void run() {
+            if (!producerClaimed.compareAndSet(false, true)) {
+                // closed before this task got a thread, close() has already closed the wrapped cursor
+                producerDone.countDown();
+                return;
+            }
+            Object signal;
+            try {
+                signal = produce();
+            } catch (Throwable t) {
+                signal = new Failure(t);
+            }
+            // the statement is closed before the consumer is told the cursor is over
+            closeDelegate();
+            try {
+                if (signal != null && !closed) {
+                    try {
+                        buffer.put(signal);
+                    } catch (InterruptedException e) {
+                        buffer.clear();
+                        buffer.offer(new Failure(e));
+                    }
+                }
+            } finally {
+                producerDone.countDown();
+            }
+        }
+
+        /**
+         * @return the signal ending the cursor, or null when the cursor has been closed
+         */
+        private Object produce() throws InterruptedException {
+            if (!(delegate instanceof BatchCursor)) {
+                Iterator<T> iterator = delegate.iterator();
+                while (!closed) {
+                    if (!iterator.hasNext()) {
+                        return END;
+                    }
+                    T item = iterator.next();
+                    buffer.put(item == null ? NULL : item);
+                }
+                return null;
+            }
+            BatchCursor<T> batchCursor = (BatchCursor<T>) delegate;
+            List<T> chunk = new ArrayList<T>(chunkSize);
+            while (!closed) {
+                chunk.clear();
+                if (batchCursor.fetchBatch(chunk, chunkSize) == 0) {
+                    return END;
+                }
+                for (T item : chunk) {
+                    buffer.put(item == null ? NULL : item);
+                    if (closed) {
+                        return null;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private class CursorIterator implements Iterator<T> {
+
+        T object;
+
+        // whether object holds an item fetched by hasNext(), which may be null
+        boolean fetched;
+
+        int iteratorIndex = -1;
+
+        @Override
+        public boolean hasNext() {
+            if (!fetched) {
+                Object next = fetchNext();
+                if (next == END) {
+                    return false;
+                }
+                object = unwrap(next);
+                fetched = true;
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T next = object;
+            clear();
+            iteratorIndex++;
+            consumedCount++;
+            return next;
+        }
+
+        void clear() {
+            object = null;
+            fetched = false;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Cannot remove element from Cursor");
+        }
+    }
+}
@@ -20,12 +20,14 @@ import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOL
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.pagination.PaginationDialect;
 import org.apache.ibatis.executor.statement.StatementUtil;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -34,6 +36,7 @@ import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
@@ -291,6 +294,11 @@ public abstract class BaseExecutor implements Executor {
         }
     }
 
+    @Override
+    public void flushCacheIfRequired(MappedStatement ms) {
+        // 二级缓存由CachingExecutor管理
+    }
+
     @Override
     public void clearLocalCache() {
         if (!closed) {
@@ -360,6 +368,12 @@ public abstract class BaseExecutor implements Executor {
         // eg1: key = -445449180:-48278933:mapper.UserMapper.getUserById:0:2147483647:select id, name, age from tb_user where id = ?:2:dev
         localCache.putObject(key, EXECUTION_PLACEHOLDER);
         try {
+            /** 配置了分页方言时，由数据库跳过记录，缓存key仍然使用原来的RowBounds */
+            BoundSql paginatedBoundSql = getPaginatedBoundSql(ms, rowBounds, boundSql);
+            if (paginatedBoundSql != null) {
+                boundSql = paginatedBoundSql;
+                rowBounds = RowBounds.DEFAULT;
+            }
             // eg1: SimpleExecutor.doQuery parameter = {"id": 2L, "param1", 2L}  rowBounds = new RowBounds() resultHandler = null
             list = doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
         } finally {
@@ -375,6 +389,38 @@ public abstract class BaseExecutor implements Executor {
         return list;
     }
 
+    /**
+     * Returns the statement with the row bounds applied by the configured {@link PaginationDialect}, or null when the
+     * rows have to be skipped on the client. Nested result maps are left alone because their row bounds count
+     * objects and not rows.
+     */
+    private BoundSql getPaginatedBoundSql(MappedStatement ms, RowBounds rowBounds, BoundSql boundSql) {
+        PaginationDialect paginationDialect = configuration.getPaginationDialect();
+        if (paginationDialect == null
+                || (rowBounds.getOffset() <= RowBounds.NO_ROW_OFFSET && rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT)
+                || ms.getSqlCommandType() != SqlCommandType.SELECT
+                || ms.getStatementType() == StatementType.CALLABLE
+                || ms.hasNestedResultMaps()
+                || ms.getResultSets() != null) {
+            return null;
+        }
+        List<Integer> values = new ArrayList<>();
+        String sql = paginationDialect.getPaginationSql(boundSql.getSql(), rowBounds.getOffset(),
+                rowBounds.getLimit(), values);
+        if (sql == null) {
+            return null;
+        }
+        List<ParameterMapping> parameterMappings = new ArrayList<>(boundSql.getParameterMappings());
+        BoundSql paginatedBoundSql = new BoundSql(configuration, sql, parameterMappings, boundSql.getParameterObject());
+        paginatedBoundSql.getAdditionalParameters().putAll(boundSql.getAdditionalParameters());
+        for (int i = 0; i < values.size(); i++) {
+            String property = "__rowBounds_" + i;
+            parameterMappings.add(new ParameterMapping.Builder(configuration, property, Integer.class).build());
+            paginatedBoundSql.setAdditionalParameter(property, values.get(i));
+        }
+        return paginatedBoundSql;
+    }
+
     protected Connection getConnection(Log statementLog) throws SQLException {
         Connection connection = transaction.getConnection();
         if (statementLog.isDebugEnabled()) {
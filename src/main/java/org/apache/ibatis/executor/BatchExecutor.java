@@ -17,25 +17,73 @@ package org.apache.ibatis.executor;
 
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.executor.statement.StatementUtil;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.PropertyPath;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
 
 /**
+ * Batches consecutive executions of the same statement.
+ * <p>
+ * When {@link Configuration#isBatchGroupingEnabled()} is set, an insert is also added to the batch of an earlier
+ * execution of the same insert as long as only other inserts were batched since, so interleaved inserts into
+ * several tables (parent, child, parent, child...) are sent as one JDBC batch per statement. The batches are
+ * executed in the order their statements were first used: rows referenced by a statement must be inserted by an
+ * earlier opened one (eg: the parent before the child). Updates and deletes are never reordered.
+ * <p>
+ * All the batches are flushed as soon as one of the thresholds of the configuration is reached (rows of a
+ * statement, rows of all the statements, estimated size of the bound values), the results being reported to the
+ * {@link BatchFlushListener} if there is one, or else returned by the next flush. When
+ * {@link Configuration#getBatchMaxAsyncFlushes()} is set and the driver is one of
+ * {@link Configuration#getBatchAsyncFlushDrivers()}, these automatic flushes are executed in order by a background
+ * thread of the executor, up to that many flushes being in flight. The connection is handed over: before using it
+ * (to prepare or batch a statement, select a key, query, flush, commit...) the caller waits for the flushes in
+ * flight, so the caller only keeps working meanwhile on rows sent as multi-row inserts and on its own code between
+ * two updates. The connection of the session must not be used directly in the meantime. The results of a background
+ * flush are reported to the listener on the calling thread, when the flush is collected by a later update (or flush,
+ * or commit). The failure of a background flush is thrown the same way, the flushes that followed it being discarded.
+ * <p>
+ * When {@link Configuration#getBatchInsertRewriteRows()} is set, the batched executions of a simple
+ * <code>INSERT ... VALUES (...)</code> are sent as multi-row inserts of up to that many rows, whatever the driver
+ * does with JDBC batches. The values of each row are read when it is batched. Inserts whose generated keys are read
+ * back are not rewritten. The {@link BatchResult} still holds the single row insert and one update count per row.
+ * <p>
+ * When {@link Configuration#isBatchKeyRetrievalEnabled()} is off, the batched statements neither ask for nor read
+ * back the generated keys.
+ *
  * @author Jeff Butler 
  */
 public class BatchExecutor extends BaseExecutor {
@@ -44,8 +92,26 @@ public class BatchExecutor extends BaseExecutor {
 
   private final List<Statement> statementList = new ArrayList<Statement>();
   private final List<BatchResult> batchResultList = new ArrayList<BatchResult>();
+  // 改写成多行insert的批处理，对应的statementList中的语句为null
+  private final List<MultiRowInsert> multiRowInsertList = new ArrayList<MultiRowInsert>();
   private String currentSql;
   private MappedStatement currentStatement;
+  // 可以继续追加的insert语句在statementList中的位置
+  private final Map<String, Integer> insertStatementIndexes = new HashMap<String, Integer>();
+  // 最后一个非insert语句的位置，之前的语句不能再追加
+  private int lastNonInsertIndex = -1;
+  // 已批处理的行数和参数的估算大小，用于自动flush
+  private int batchedRows;
+  private long batchedBytes;
+  // 没有BatchFlushListener时，自动flush的结果留到下一次flush时返回
+  private final List<BatchResult> autoFlushedResults = new ArrayList<BatchResult>();
+  // 后台执行中的自动flush，按提交的顺序排列
+  private final Deque<Future<List<BatchResult>>> asyncFlushes = new ArrayDeque<Future<List<BatchResult>>>();
+  private ExecutorService flushThread;
+  // 有后台flush失败时，之后的flush不再执行
+  private volatile boolean asyncFlushFailed;
+  // 驱动是否允许后台flush，第一次自动flush时确定
+  private Boolean asyncFlushAllowed;
 
   public BatchExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
@@ -53,32 +119,310 @@ public class BatchExecutor extends BaseExecutor {
 
   @Override
   public int doUpdate(MappedStatement ms, Object parameterObject) throws SQLException {
+    // 后台flush的失败在下一次update时抛出；selectKey在创建StatementHandler时就会使用连接
+    if (asyncFlushFailed || !usesNoConnectionBeforeExecution(ms.getKeyGenerator())) {
+      awaitAsyncFlushes();
+    }
     final Configuration configuration = ms.getConfiguration();
     final StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, null);
     final BoundSql boundSql = handler.getBoundSql();
+    // 关闭了主键回填时，批处理的语句不请求生成的主键
+    boundSql.setGeneratedKeysRequested(configuration.isBatchKeyRetrievalEnabled());
     final String sql = boundSql.getSql();
     final Statement stmt;
+    final BatchResult batchResult;
+    final MultiRowInsert multiRowInsert;
+    int index = -1;
     if (sql.equals(currentSql) && ms.equals(currentStatement)) {
-      int last = statementList.size() - 1;
-      stmt = statementList.get(last);
-      applyTransactionTimeout(stmt);
-     handler.parameterize(stmt);//fix Issues 322
-      BatchResult batchResult = batchResultList.get(last);
+      index = statementList.size() - 1;
+    } else if (configuration.isBatchGroupingEnabled() && ms.getSqlCommandType() == SqlCommandType.INSERT) {
+      index = findInsertStatement(ms, sql);
+    }
+    if (index >= 0) {
+      stmt = statementList.get(index);
+      multiRowInsert = multiRowInsertList.get(index);
+      if (stmt != null) {
+        awaitAsyncFlushes();
+        applyTransactionTimeout(stmt);
+       handler.parameterize(stmt);//fix Issues 322
+      }
+      batchResult = batchResultList.get(index);
       batchResult.addParameterObject(parameterObject);
     } else {
-      Connection connection = getConnection(ms.getStatementLog());
-      stmt = handler.prepare(connection, transaction.getTimeout());
-      handler.parameterize(stmt);    //fix Issues 322
+      multiRowInsert = newMultiRowInsert(ms, handler, boundSql);
+      if (multiRowInsert != null) {
+        // 执行批处理时才创建多行insert语句
+        stmt = null;
+      } else {
+        awaitAsyncFlushes();
+        Connection connection = getConnection(ms.getStatementLog());
+        stmt = handler.prepare(connection, transaction.getTimeout());
+        handler.parameterize(stmt);    //fix Issues 322
+      }
       currentSql = sql;
       currentStatement = ms;
+      if (ms.getSqlCommandType() == SqlCommandType.INSERT) {
+        insertStatementIndexes.put(sql, statementList.size());
+      } else {
+        lastNonInsertIndex = statementList.size();
+      }
       statementList.add(stmt);
-      batchResultList.add(new BatchResult(ms, sql, parameterObject));
+      multiRowInsertList.add(multiRowInsert);
+      batchResult = new BatchResult(ms, sql, parameterObject);
+      batchResultList.add(batchResult);
     }
   // handler.parameterize(stmt);
-    handler.batch(stmt);
+    if (multiRowInsert != null) {
+      multiRowInsert.addRow((DefaultParameterHandler) handler.getParameterHandler());
+    } else {
+      handler.batch(stmt);
+    }
+    if (isFlushThresholdReached(ms, boundSql, parameterObject, batchResult)) {
+      autoFlush();
+    }
     return BATCH_UPDATE_RETURN_VALUE;
   }
 
+  private static boolean usesNoConnectionBeforeExecution(KeyGenerator keyGenerator) {
+    return NoKeyGenerator.class.equals(keyGenerator.getClass()) || Jdbc3KeyGenerator.class.equals(keyGenerator.getClass());
+  }
+
+  /*
+   * Returns the rows of the insert when it can be sent as multi-row inserts: a prepared single row insert setting
+   * its parameters with the default parameter handler, whose generated keys are not read back (drivers do not
+   * agree on the keys returned by a multi-row insert).
+   */
+  private MultiRowInsert newMultiRowInsert(MappedStatement ms, StatementHandler handler, BoundSql boundSql) {
+    if (configuration.getBatchInsertRewriteRows() < 2
+        || ms.getSqlCommandType() != SqlCommandType.INSERT
+        || ms.getStatementType() != StatementType.PREPARED
+        || !(handler.getParameterHandler() instanceof DefaultParameterHandler)) {
+      return null;
+    }
+    Class<?> keyGeneratorType = ms.getKeyGenerator().getClass();
+    if (!NoKeyGenerator.class.equals(keyGeneratorType)
+        && !(Jdbc3KeyGenerator.class.equals(keyGeneratorType) && !configuration.isBatchKeyRetrievalEnabled())) {
+      return null;
+    }
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    for (ParameterMapping parameterMapping : parameterMappings) {
+      if (parameterMapping.getMode() != ParameterMode.IN) {
+        return null;
+      }
+    }
+    return MultiRowInsert.parse(boundSql.getSql(), parameterMappings.size());
+  }
+
+  private boolean isFlushThresholdReached(MappedStatement ms, BoundSql boundSql, Object parameterObject, BatchResult batchResult) {
+    batchedRows++;
+    int maxStatementRows = configuration.getBatchMaxStatementRows();
+    int maxRows = configuration.getBatchMaxRows();
+    long maxBytes = configuration.getBatchMaxBytes();
+    if (maxBytes > 0) {
+      batchedBytes += estimateBytes(ms, boundSql, parameterObject);
+    }
+    return (maxStatementRows > 0 && batchResult.getParameterObjects().size() >= maxStatementRows)
+        || (maxRows > 0 && batchedRows >= maxRows)
+        || (maxBytes > 0 && batchedBytes >= maxBytes);
+  }
+
+  /*
+   * Rough size of a batched row: strings and binaries count for their length, any other value for 8 bytes. The
+   * values are read the same way the parameter handler reads them.
+   */
+  private long estimateBytes(MappedStatement ms, BoundSql boundSql, Object parameterObject) {
+    if (ms.getStatementType() == StatementType.STATEMENT) {
+      return 2L * boundSql.getSql().length();
+    }
+    long bytes = 0;
+    MetaObject metaObject = null;
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      if (parameterMapping.getMode() == ParameterMode.OUT) {
+        continue;
+      }
+      PropertyPath propertyPath = parameterMapping.getPropertyPath();
+      Object value;
+      if (boundSql.hasAdditionalParameter(propertyPath)) {
+        value = boundSql.getAdditionalParameter(propertyPath);
+      } else if (parameterObject == null) {
+        value = null;
+      } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+        value = parameterObject;
+      } else {
+        if (metaObject == null) {
+          metaObject = configuration.newMetaObject(parameterObject);
+        }
+        value = metaObject.getValue(propertyPath);
+      }
+      if (value instanceof CharSequence) {
+        bytes += 2L * ((CharSequence) value).length();
+      } else if (value instanceof byte[]) {
+        bytes += ((byte[]) value).length;
+      } else {
+        bytes += 8;
+      }
+    }
+    return bytes;
+  }
+
+  private void autoFlush() throws SQLException {
+    if (configuration.getBatchMaxAsyncFlushes() > 0 && isAsyncFlushAllowed()) {
+      autoFlushAsync();
+    } else {
+      autoFlushedResults.addAll(reportAutoFlush(executeBatches()));
+    }
+  }
+
+  /*
+   * Returns the results to keep until the next flush: none when the listener took them.
+   */
+  private List<BatchResult> reportAutoFlush(List<BatchResult> results) {
+    BatchFlushListener listener = configuration.getBatchFlushListener();
+    if (listener == null) {
+      return results;
+    }
+    listener.onFlush(results, true);
+    // the keys are set, the listener is done with the rows
+    for (BatchResult batchResult : results) {
+      batchResult.getParameterObjects().clear();
+    }
+    return Collections.emptyList();
+  }
+
+  /*
+   * Whether the name of the driver contains one of the batchAsyncFlushDrivers. Checked on the first automatic flush,
+   * when no flush is in flight yet.
+   */
+  private boolean isAsyncFlushAllowed() throws SQLException {
+    if (asyncFlushAllowed == null) {
+      String driverName = transaction.getConnection().getMetaData().getDriverName();
+      boolean allowed = false;
+      for (String driver : configuration.getBatchAsyncFlushDrivers()) {
+        driver = driver.trim();
+        if (driver.length() > 0 && driverName != null && driverName.contains(driver)) {
+          allowed = true;
+          break;
+        }
+      }
+      asyncFlushAllowed = allowed;
+    }
+    return asyncFlushAllowed;
+  }
+
+  private void autoFlushAsync() throws SQLException {
+    final List<Statement> statements = new ArrayList<Statement>(statementList);
+    final List<BatchResult> batchResults = new ArrayList<BatchResult>(batchResultList);
+    final List<MultiRowInsert> multiRowInserts = new ArrayList<MultiRowInsert>(multiRowInsertList);
+    // 交给flush线程的语句由它关闭，这里只清空
+    clearBatches();
+    if (flushThread == null) {
+      flushThread = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "mybatis-batch-flush");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    asyncFlushes.add(flushThread.submit(new Callable<List<BatchResult>>() {
+      @Override
+      public List<BatchResult> call() throws Exception {
+        if (asyncFlushFailed) {
+          closeStatements(statements);
+          return Collections.emptyList();
+        }
+        try {
+          return executeBatches(statements, batchResults, multiRowInserts);
+        } catch (Exception e) {
+          asyncFlushFailed = true;
+          throw e;
+        }
+      }
+    }));
+    // collects the flushes already done, waits for the oldest ones while too many are in flight
+    while (!asyncFlushes.isEmpty()
+        && (asyncFlushes.size() > configuration.getBatchMaxAsyncFlushes() || asyncFlushes.peek().isDone())) {
+      awaitAsyncFlush();
+    }
+  }
+
+  /*
+   * Waits for all the flushes in flight before the caller uses the connection, throwing the failure of one of them.
+   */
+  private void awaitAsyncFlushes() throws SQLException {
+    while (!asyncFlushes.isEmpty()) {
+      awaitAsyncFlush();
+    }
+  }
+
+  private void awaitAsyncFlush() throws SQLException {
+    List<BatchResult> results;
+    try {
+      results = asyncFlushes.peek().get();
+      asyncFlushes.poll();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExecutorException("Interrupted while waiting for a batch flush.  Cause: " + e, e);
+    } catch (ExecutionException e) {
+      discardAsyncFlushes();
+      Throwable cause = e.getCause();
+      if (cause instanceof BatchExecutorException) {
+        throw withAutoFlushedResults((BatchExecutorException) cause);
+      } else if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new ExecutorException("Error flushing statements.  Cause: " + cause, cause);
+    }
+    // 监听器在调用者的线程中执行
+    autoFlushedResults.addAll(reportAutoFlush(results));
+  }
+
+  /*
+   * Waits for the flushes in flight, whatever happens to them, so the connection is no longer used by the flush
+   * thread.
+   */
+  private void discardAsyncFlushes() {
+    boolean interrupted = false;
+    Future<List<BatchResult>> flush;
+    while ((flush = asyncFlushes.poll()) != null) {
+      while (true) {
+        try {
+          flush.get();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          break;
+        }
+      }
+    }
+    asyncFlushFailed = false;
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private BatchExecutorException withAutoFlushedResults(BatchExecutorException e) {
+    e.getSuccessfulBatchResults().addAll(0, autoFlushedResults);
+    autoFlushedResults.clear();
+    return e;
+  }
+
+  /*
+   * Returns the position of the statement batching the same insert, -1 when there is none or when an update or a
+   * delete was batched after it (the insert would be executed before them).
+   */
+  private int findInsertStatement(MappedStatement ms, String sql) {
+    Integer index = insertStatementIndexes.get(sql);
+    if (index == null || index <= lastNonInsertIndex || !ms.equals(batchResultList.get(index).getMappedStatement())) {
+      return -1;
+    }
+    return index;
+  }
+
   @Override
   public <E> List<E> doQuery(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
       throws SQLException {
@@ -109,26 +453,61 @@ public class BatchExecutor extends BaseExecutor {
 
   @Override
   public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
+    if (isRollback) {
+      discardAsyncFlushes();
+      autoFlushedResults.clear();
+      closeStatements(statementList);
+      clearBatches();
+      return Collections.emptyList();
+    }
+    awaitAsyncFlushes();
+    List<BatchResult> results = executeBatches();
+    BatchFlushListener listener = configuration.getBatchFlushListener();
+    if (listener != null && !results.isEmpty()) {
+      listener.onFlush(results, false);
+    }
+    if (!autoFlushedResults.isEmpty()) {
+      results.addAll(0, autoFlushedResults);
+      autoFlushedResults.clear();
+    }
+    return results;
+  }
+
+  private List<BatchResult> executeBatches() throws SQLException {
+    try {
+      return executeBatches(statementList, batchResultList, multiRowInsertList);
+    } catch (BatchExecutorException e) {
+      throw withAutoFlushedResults(e);
+    } finally {
+      clearBatches();
+    }
+  }
+
+  private List<BatchResult> executeBatches(List<Statement> statements, List<BatchResult> batchResults, List<MultiRowInsert> multiRowInserts)
+      throws SQLException {
     try {
       List<BatchResult> results = new ArrayList<BatchResult>();
-      if (isRollback) {
-        return Collections.emptyList();
-      }
-      for (int i = 0, n = statementList.size(); i < n; i++) {
-        Statement stmt = statementList.get(i);
-        applyTransactionTimeout(stmt);
-        BatchResult batchResult = batchResultList.get(i);
+      for (int i = 0, n = statements.size(); i < n; i++) {
+        Statement stmt = statements.get(i);
+        BatchResult batchResult = batchResults.get(i);
         try {
-          batchResult.setUpdateCounts(stmt.executeBatch());
           MappedStatement ms = batchResult.getMappedStatement();
           List<Object> parameterObjects = batchResult.getParameterObjects();
-          KeyGenerator keyGenerator = ms.getKeyGenerator();
-          if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
-            Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
-            jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
-          } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
-            for (Object parameter : parameterObjects) {
-              keyGenerator.processAfter(this, ms, stmt, parameter);
+          MultiRowInsert multiRowInsert = multiRowInserts.get(i);
+          if (multiRowInsert != null) {
+            batchResult.setUpdateCounts(executeMultiRowInsert(ms, multiRowInsert));
+          } else {
+            applyTransactionTimeout(stmt);
+            batchResult.setUpdateCounts(stmt.executeBatch());
+            // 关闭了主键回填时不读取生成的主键
+            KeyGenerator keyGenerator = configuration.isBatchKeyRetrievalEnabled() ? ms.getKeyGenerator() : NoKeyGenerator.INSTANCE;
+            if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+              Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
+              jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
+            } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
+              for (Object parameter : parameterObjects) {
+                keyGenerator.processAfter(this, ms, stmt, parameter);
+              }
             }
           }
         } catch (BatchUpdateException e) {
@@ -149,13 +528,97 @@ public class BatchExecutor extends BaseExecutor {
       }
       return results;
     } finally {
-      for (Statement stmt : statementList) {
-        closeStatement(stmt);
+      closeStatements(statements);
+    }
+  }
+
+  /*
+   * Sends the rows as inserts of batchInsertRewriteRows rows, batched, and one insert of the remaining rows.
+   */
+  private int[] executeMultiRowInsert(MappedStatement ms, MultiRowInsert multiRowInsert) throws SQLException {
+    int rowCount = multiRowInsert.size();
+    int statementRows = Math.min(configuration.getBatchInsertRewriteRows(), rowCount);
+    int fullRowCount = rowCount - rowCount % statementRows;
+    int[] updateCounts = new int[rowCount];
+    executeMultiRowInsert(ms, multiRowInsert, 0, fullRowCount, statementRows, updateCounts);
+    if (fullRowCount < rowCount) {
+      int remainingRows = rowCount - fullRowCount;
+      executeMultiRowInsert(ms, multiRowInsert, fullRowCount, remainingRows, remainingRows, updateCounts);
+    }
+    return updateCounts;
+  }
+
+  private void executeMultiRowInsert(MappedStatement ms, MultiRowInsert multiRowInsert, int firstRow, int rowCount, int statementRows,
+      int[] updateCounts) throws SQLException {
+    int row = firstRow;
+    PreparedStatement ps = null;
+    try {
+      ps = prepareMultiRowInsert(ms, multiRowInsert.getSql(statementRows));
+      for (; row < firstRow + rowCount; row += statementRows) {
+        multiRowInsert.setParameters(ps, row, statementRows);
+        ps.addBatch();
+      }
+      int[] counts = ps.executeBatch();
+      for (int i = 0; i < counts.length; i++) {
+        setUpdateCounts(updateCounts, firstRow + i * statementRows, statementRows, counts[i]);
+      }
+    } catch (BatchUpdateException e) {
+      throw e;
+    } catch (SQLException e) {
+      throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(), Arrays.copyOf(updateCounts, firstRow), e);
+    } finally {
+      closeStatement(ps);
+    }
+  }
+
+  private PreparedStatement prepareMultiRowInsert(MappedStatement ms, String sql) throws SQLException {
+    Connection connection = getConnection(ms.getStatementLog());
+    PreparedStatement ps = connection.prepareStatement(sql);
+    try {
+      Integer queryTimeout = ms.getTimeout() != null ? ms.getTimeout() : configuration.getDefaultStatementTimeout();
+      if (queryTimeout != null) {
+        ps.setQueryTimeout(queryTimeout);
       }
-      currentSql = null;
-      statementList.clear();
-      batchResultList.clear();
+      StatementUtil.applyTransactionTimeout(ps, queryTimeout, transaction.getTimeout());
+      return ps;
+    } catch (SQLException e) {
+      closeStatement(ps);
+      throw e;
     }
   }
 
+  // 每行的更新数：多行insert插入了所有行时为1，否则未知
+  private static void setUpdateCounts(int[] updateCounts, int firstRow, int rowCount, int count) {
+    Arrays.fill(updateCounts, firstRow, firstRow + rowCount, count == rowCount ? 1 : Statement.SUCCESS_NO_INFO);
+  }
+
+  @Override
+  public void close(boolean forceRollback) {
+    try {
+      super.close(forceRollback);
+    } finally {
+      if (flushThread != null) {
+        flushThread.shutdown();
+        flushThread = null;
+      }
+    }
+  }
+
+  private void closeStatements(List<Statement> statements) {
+    for (Statement stmt : statements) {
+      closeStatement(stmt);
+    }
+  }
+
+  private void clearBatches() {
+    currentSql = null;
+    statementList.clear();
+    batchResultList.clear();
+    multiRowInsertList.clear();
+    insertStatementIndexes.clear();
+    lastNonInsertIndex = -1;
+    batchedRows = 0;
+    batchedBytes = 0;
+  }
+
 }
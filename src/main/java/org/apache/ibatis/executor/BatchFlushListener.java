@@ -0,0 +1,44 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.util.List;
+
+/**
+ * 批处理执行后的回调
+ *
+ * Receives the results of the batches executed by the {@link BatchExecutor}: the ones flushed explicitly (flush,
+ * commit, before a query) and the ones flushed because a batch threshold was reached.
+ * <p>
+ * The generated keys are already set on the parameter objects when the listener is called. The parameter objects
+ * of the results flushed automatically are released once the listener returns, so a long import does not keep
+ * every row in memory until the end.
+ * <p>
+ * The listener is always called on the thread using the session. The results of the flushes executed in the
+ * background are reported in order when the session collects them, at a later update, flush or commit.
+ *
+ * @see org.apache.ibatis.session.Configuration#setBatchFlushListener(BatchFlushListener)
+ * @since 3.4.5
+ */
+public interface BatchFlushListener {
+
+  /**
+   * @param batchResults the results of the executed batches, in execution order
+   * @param automatic true when the batches were flushed because a threshold was reached
+   */
+  void onFlush(List<BatchResult> batchResults, boolean automatic);
+
+}
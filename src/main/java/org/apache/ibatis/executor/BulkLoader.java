@@ -0,0 +1,416 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.session.BulkLoadDialect;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * Inserts a stream of rows with an insert statement, for {@link org.apache.ibatis.session.SqlSession#bulkInsert}.
+ * <p>
+ * When a {@link BulkLoadDialect} is configured and the statement is a plain
+ * <code>INSERT INTO table (columns) VALUES (?, ...)</code> that does not read generated keys, the rows are streamed
+ * to the bulk load protocol of the database as CSV, the values being the ones the type handlers of the parameters
+ * set: numbers, booleans, strings, dates and times, binaries (hex encoded), streams, readers, blobs and clobs being
+ * read fully. A value of any other type fails the load. Otherwise the rows are sent as JDBC batches of {@link Configuration#getBulkLoadBatchSize()} rows by a batch
+ * executor sharing the transaction of the session.
+ *
+ * @since 3.4.5
+ */
+public class BulkLoader {
+
+  private static final Pattern PLAIN_INSERT = Pattern.compile(
+      "\\s*INSERT\\s+INTO\\s+([\\w.\"]+)\\s*\\(([^()]*)\\)\\s*VALUES\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)\\s*",
+      Pattern.CASE_INSENSITIVE);
+
+  private final Configuration configuration;
+  private final Executor executor;
+
+  /**
+   * @param executor the executor of the session
+   */
+  public BulkLoader(Configuration configuration, Executor executor) {
+    this.configuration = configuration;
+    this.executor = executor;
+  }
+
+  /**
+   * Inserts the rows, returns the number of inserted rows.
+   */
+  public long load(MappedStatement ms, Iterable<?> parameters) throws Exception {
+    if (ms.getSqlCommandType() != SqlCommandType.INSERT) {
+      throw new ExecutorException("Bulk load needs an insert statement but " + ms.getId() + " is a " + ms.getSqlCommandType() + ".");
+    }
+    Iterator<?> rows = parameters.iterator();
+    if (!rows.hasNext()) {
+      return 0;
+    }
+    // the rows batched before come first
+    executor.flushStatements();
+    Object first = rows.next();
+    BoundSql boundSql = ms.getBoundSql(first);
+    BulkLoadDialect dialect = configuration.getBulkLoadDialect();
+    String[] target = dialect != null && isStreamable(ms) ? parseTarget(boundSql) : null;
+    long rowCount;
+    if (target != null) {
+      Connection connection = executor.getTransaction().getConnection();
+      rowCount = dialect.load(connection, dialect.getLoadSql(target[0], target[1]), newCsvRows(ms, boundSql.getSql(), first, rows));
+    } else {
+      rowCount = insertBatches(ms, first, rows);
+    }
+    // the second level cache is cleared when the session commits, as for an update
+    executor.flushCacheIfRequired(ms);
+    executor.clearLocalCache();
+    return rowCount;
+  }
+
+  private long insertBatches(MappedStatement ms, Object first, Iterator<?> rows) throws SQLException {
+    // 与会话共用事务的BATCH执行器，不提交、回滚或关闭事务
+    Executor batchExecutor = configuration.newExecutor(new SessionTransaction(executor.getTransaction()), ExecutorType.BATCH);
+    int batchSize = configuration.getBulkLoadBatchSize();
+    try {
+      long rowCount = 0;
+      int batchedRows = 0;
+      Object row = first;
+      while (true) {
+        batchExecutor.update(ms, row);
+        if (++batchedRows >= batchSize) {
+          rowCount += countRows(batchExecutor.flushStatements());
+          batchedRows = 0;
+        }
+        if (!rows.hasNext()) {
+          break;
+        }
+        row = rows.next();
+      }
+      return rowCount + countRows(batchExecutor.flushStatements());
+    } finally {
+      // discards the rows not flushed, the cache clear of its own caching layer and stops the flush thread, the
+      // transaction is committed or rolled back by the session
+      batchExecutor.close(true);
+    }
+  }
+
+  private static long countRows(List<BatchResult> batchResults) {
+    long rowCount = 0;
+    for (BatchResult batchResult : batchResults) {
+      for (int updateCount : batchResult.getUpdateCounts()) {
+        rowCount += updateCount == Statement.SUCCESS_NO_INFO ? 1 : Math.max(updateCount, 0);
+      }
+    }
+    return rowCount;
+  }
+
+  private boolean isStreamable(MappedStatement ms) {
+    if (ms.getStatementType() != StatementType.PREPARED) {
+      return false;
+    }
+    KeyGenerator keyGenerator = ms.getKeyGenerator();
+    return NoKeyGenerator.class.equals(keyGenerator.getClass())
+        || (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())
+            && (ms.getKeyProperties() == null || !configuration.isBatchKeyRetrievalEnabled()));
+  }
+
+  /**
+   * Returns the table and the columns of a plain insert setting each column with a parameter, null for any other
+   * statement.
+   */
+  static String[] parseTarget(BoundSql boundSql) {
+    Matcher matcher = PLAIN_INSERT.matcher(boundSql.getSql());
+    if (!matcher.matches()) {
+      return null;
+    }
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    String[] columns = matcher.group(2).split(",");
+    if (columns.length != parameterMappings.size()) {
+      return null;
+    }
+    StringBuilder columnList = new StringBuilder();
+    for (int i = 0; i < columns.length; i++) {
+      if (parameterMappings.get(i).getMode() != ParameterMode.IN || columns[i].trim().isEmpty()) {
+        return null;
+      }
+      if (i > 0) {
+        columnList.append(", ");
+      }
+      columnList.append(columns[i].trim());
+    }
+    return new String[] { matcher.group(1), columnList.toString() };
+  }
+
+  /**
+   * Returns the rows as CSV lines, encoded one at a time while the loader reads them.
+   */
+  Reader newCsvRows(MappedStatement ms, String sql, Object first, Iterator<?> rows) {
+    return new CsvRows(ms, sql, first, rows);
+  }
+
+  private final class CsvRows extends Reader {
+
+    private final MappedStatement ms;
+    private final String sql;
+    private final Iterator<?> rows;
+    private final CapturedParameters parameters = new CapturedParameters();
+    private final PreparedStatement capture = (PreparedStatement) Proxy.newProxyInstance(
+        PreparedStatement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, parameters);
+    private final StringBuilder line = new StringBuilder();
+    private Object first;
+    private int position;
+
+    CsvRows(MappedStatement ms, String sql, Object first, Iterator<?> rows) {
+      this.ms = ms;
+      this.sql = sql;
+      this.first = first;
+      this.rows = rows;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      while (position == line.length()) {
+        if (!nextLine()) {
+          return -1;
+        }
+      }
+      int count = Math.min(len, line.length() - position);
+      line.getChars(position, position + count, cbuf, off);
+      position += count;
+      return count;
+    }
+
+    @Override
+    public void close() {
+      // nothing to release
+    }
+
+    private boolean nextLine() {
+      Object row;
+      if (first != null) {
+        row = first;
+        first = null;
+      } else if (rows.hasNext()) {
+        row = rows.next();
+      } else {
+        return false;
+      }
+      BoundSql boundSql = ms.getBoundSql(row);
+      if (!sql.equals(boundSql.getSql())) {
+        throw new ExecutorException("Bulk load of " + ms.getId() + " needs the same SQL for every row but got: " + boundSql.getSql());
+      }
+      ParameterHandler parameterHandler = configuration.newParameterHandler(ms, row, boundSql);
+      parameters.reset(boundSql.getParameterMappings().size());
+      try {
+        parameterHandler.setParameters(capture);
+      } catch (SQLException e) {
+        throw new ExecutorException("Error encoding the row " + row + ".  Cause: " + e, e);
+      }
+      line.setLength(0);
+      position = 0;
+      for (int i = 0; i < parameters.values.length; i++) {
+        if (i > 0) {
+          line.append(',');
+        }
+        appendCsv(line, parameters.values[i]);
+      }
+      line.append('\n');
+      return true;
+    }
+
+  }
+
+  private static void appendCsv(StringBuilder line, Object value) {
+    if (value == null) {
+      return;
+    }
+    if (value instanceof InputStream || value instanceof Reader || value instanceof Blob || value instanceof Clob) {
+      throw new ExecutorException("Bulk load cannot encode a value of type " + value.getClass().getName() + ".");
+    }
+    if (value instanceof Number || value instanceof Boolean) {
+      line.append(value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString());
+    } else if (value instanceof byte[]) {
+      // bytea hex format
+      line.append("\\x");
+      for (byte b : (byte[]) value) {
+        line.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+    } else if (value instanceof CharSequence || value instanceof Character || value instanceof java.sql.Date
+        || value instanceof Time || value instanceof Timestamp) {
+      String text = value.toString();
+      line.append('"');
+      for (int i = 0; i < text.length(); i++) {
+        char c = text.charAt(i);
+        if (c == '"') {
+          line.append('"');
+        }
+        line.append(c);
+      }
+      line.append('"');
+    } else {
+      throw new ExecutorException("Bulk load cannot encode a value of type " + value.getClass().getName()
+          + ". Set it as a string, a number, a date or a binary in its type handler.");
+    }
+  }
+
+  /*
+   * Records the values set by the type handlers instead of sending them. Streams, readers, blobs and clobs are read
+   * fully when they are set, as the bytes or the string they hold.
+   */
+  private static final class CapturedParameters implements InvocationHandler {
+
+    private Object[] values;
+
+    void reset(int parameterCount) {
+      values = new Object[parameterCount];
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+        values[(Integer) args[0] - 1] = "setNull".equals(name) ? null : readFully(args);
+        return null;
+      } else if ("toString".equals(name) && args == null) {
+        return "Bulk load row";
+      }
+      throw new SQLException("Bulk load cannot encode the parameters of type handlers calling " + name);
+    }
+
+    private static Object readFully(Object[] args) throws SQLException {
+      try {
+        return read(args);
+      } catch (IOException e) {
+        throw new SQLException("Error reading a bulk loaded value.  Cause: " + e, e);
+      }
+    }
+
+    private static Object read(Object[] args) throws SQLException, IOException {
+      Object value = args[1];
+      // setBinaryStream(i, stream, length)等方法的长度参数
+      long length = args.length > 2 && args[2] instanceof Number ? ((Number) args[2]).longValue() : -1;
+      if (value instanceof InputStream) {
+        return readBytes((InputStream) value, length);
+      } else if (value instanceof Reader) {
+        return readString((Reader) value, length);
+      } else if (value instanceof Blob) {
+        Blob blob = (Blob) value;
+        return blob.getBytes(1, (int) blob.length());
+      } else if (value instanceof Clob) {
+        Clob clob = (Clob) value;
+        return clob.getSubString(1, (int) clob.length());
+      }
+      return value;
+    }
+
+    private static byte[] readBytes(InputStream in, long length) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      long remaining = length < 0 ? Long.MAX_VALUE : length;
+      int n;
+      while (remaining > 0 && (n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+        out.write(buffer, 0, n);
+        remaining -= n;
+      }
+      return out.toByteArray();
+    }
+
+    private static String readString(Reader reader, long length) throws IOException {
+      StringBuilder text = new StringBuilder();
+      char[] buffer = new char[8192];
+      long remaining = length < 0 ? Long.MAX_VALUE : length;
+      int n;
+      while (remaining > 0 && (n = reader.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+        text.append(buffer, 0, n);
+        remaining -= n;
+      }
+      return text.toString();
+    }
+
+  }
+
+  /*
+   * The transaction of the session, neither committed, rolled back nor closed by the batch executor sharing it.
+   */
+  private static final class SessionTransaction implements Transaction {
+
+    private final Transaction delegate;
+
+    SessionTransaction(Transaction delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      return delegate.getConnection();
+    }
+
+    @Override
+    public void commit() {
+      // committed by the session
+    }
+
+    @Override
+    public void rollback() {
+      // rolled back by the session
+    }
+
+    @Override
+    public void close() {
+      // closed by the session
+    }
+
+    @Override
+    public Integer getTimeout() throws SQLException {
+      return delegate.getTimeout();
+    }
+
+  }
+
+}
@@ -195,7 +195,8 @@ public class CachingExecutor implements Executor {
         delegate.clearLocalCache();
     }
 
-    private void flushCacheIfRequired(MappedStatement ms) {
+    @Override
+    public void flushCacheIfRequired(MappedStatement ms) {
         Cache cache = ms.getCache();
         if (cache != null && ms.isFlushCacheRequired()) {
             tcm.clear(cache);
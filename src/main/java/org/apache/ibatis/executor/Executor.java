@@ -54,6 +54,11 @@ public interface Executor {
 
   void clearLocalCache();
 
+  /**
+   * Clears the second level cache of the statement if it requires it, when the transaction is committed.
+   */
+  void flushCacheIfRequired(MappedStatement ms);
+
   void deferLoad(MappedStatement ms, MetaObject resultObject, String property, CacheKey key, Class<?> targetType);
 
   Transaction getTransaction();
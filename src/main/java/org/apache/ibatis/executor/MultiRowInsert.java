@@ -0,0 +1,162 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+
+/**
+ * The batched rows of a simple <code>INSERT INTO ... VALUES (...)</code>, sent as multi-row inserts
+ * (<code>VALUES (...), (...)</code>) when the batch is executed.
+ *
+ * @since 3.4.5
+ */
+final class MultiRowInsert {
+
+  private final String head;
+  private final String values;
+  private final int parameterCount;
+  // 每行的参数处理器及加入时读取的参数值
+  private final List<DefaultParameterHandler> rowHandlers = new ArrayList<DefaultParameterHandler>();
+  private final List<Object[]> rowValues = new ArrayList<Object[]>();
+
+  private MultiRowInsert(String head, String values, int parameterCount) {
+    this.head = head;
+    this.values = values;
+    this.parameterCount = parameterCount;
+  }
+
+  /**
+   * Returns the rows of the given insert, or null when it is not a single row <code>INSERT ... VALUES (...)</code>
+   * whose parameters are all in the values (eg: insert select, several rows, on duplicate key, returning...).
+   */
+  static MultiRowInsert parse(String sql, int parameterCount) {
+    if (sql.contains("--") || sql.contains("/*")) {
+      return null;
+    }
+    int start = skipWhitespace(sql, 0);
+    if (!sql.regionMatches(true, start, "INSERT", 0, 6)) {
+      return null;
+    }
+    int valuesIndex = -1;
+    int depth = 0;
+    for (int i = start; i < sql.length() && valuesIndex < 0; i++) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"') {
+        i = skipQuoted(sql, i);
+        if (i < 0) {
+          return null;
+        }
+      } else if (c == '?') {
+        return null;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (depth == 0 && isKeyword(sql, i, "VALUES")) {
+        valuesIndex = i;
+      } else if (depth == 0 && isKeyword(sql, i, "SELECT")) {
+        return null;
+      }
+    }
+    if (valuesIndex < 0) {
+      return null;
+    }
+    int open = skipWhitespace(sql, valuesIndex + 6);
+    if (open >= sql.length() || sql.charAt(open) != '(') {
+      return null;
+    }
+    int close = -1;
+    int parameters = 0;
+    depth = 0;
+    for (int i = open; i < sql.length() && close < 0; i++) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"') {
+        i = skipQuoted(sql, i);
+        if (i < 0) {
+          return null;
+        }
+      } else if (c == '?') {
+        parameters++;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth == 0) {
+        close = i;
+      }
+    }
+    if (close < 0 || skipWhitespace(sql, close + 1) != sql.length() || parameters != parameterCount) {
+      return null;
+    }
+    return new MultiRowInsert(sql.substring(0, valuesIndex) + "VALUES ", sql.substring(open, close + 1), parameterCount);
+  }
+
+  /**
+   * Adds a row, its values being read now: the parameter object may be changed and reused for the next rows.
+   */
+  void addRow(DefaultParameterHandler row) {
+    rowHandlers.add(row);
+    rowValues.add(row.getParameterValues());
+  }
+
+  int size() {
+    return rowHandlers.size();
+  }
+
+  /**
+   * Returns the insert of the given number of rows.
+   */
+  String getSql(int rowCount) {
+    StringBuilder sql = new StringBuilder(head.length() + rowCount * (values.length() + 2));
+    sql.append(head).append(values);
+    for (int i = 1; i < rowCount; i++) {
+      sql.append(", ").append(values);
+    }
+    return sql.toString();
+  }
+
+  /**
+   * Sets the values of the rows from the given one into an insert of <code>rowCount</code> rows.
+   */
+  void setParameters(PreparedStatement ps, int firstRow, int rowCount) {
+    for (int i = 0; i < rowCount; i++) {
+      rowHandlers.get(firstRow + i).setParameterValues(ps, i * parameterCount, rowValues.get(firstRow + i));
+    }
+  }
+
+  private static boolean isKeyword(String sql, int index, String keyword) {
+    int end = index + keyword.length();
+    return sql.regionMatches(true, index, keyword, 0, keyword.length())
+        && (index == 0 || !Character.isJavaIdentifierPart(sql.charAt(index - 1)))
+        && (end == sql.length() || !Character.isJavaIdentifierPart(sql.charAt(end)));
+  }
+
+  private static int skipWhitespace(String sql, int index) {
+    while (index < sql.length() && Character.isWhitespace(sql.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+
+  // 返回结束引号的位置，转义的引号（'it''s'）被当作相邻的两段字符串
+  private static int skipQuoted(String sql, int index) {
+    char quote = sql.charAt(index);
+    return sql.indexOf(quote, index + 1);
+  }
+
+}
@@ -28,7 +28,12 @@ import java.util.Map;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.ExceptionUtil;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.PropertyPath;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
@@ -56,27 +61,33 @@ public class Jdbc3KeyGenerator implements KeyGenerator {
     processBatch(ms, stmt, getParameters(parameter));
   }
 
+  /**
+   * Assigns the generated keys to the parameters in order, one row of keys per parameter: the parameters of a batch,
+   * the rows of a multi-row insert or both. The setters, type handlers and columns of the keys are resolved once for
+   * the whole batch, not for every row.
+   */
   public void processBatch(MappedStatement ms, Statement stmt, Collection<Object> parameters) {
+    final String[] keyProperties = ms.getKeyProperties();
+    if (keyProperties == null || parameters.isEmpty()) {
+      return;
+    }
     ResultSet rs = null;
     try {
       rs = stmt.getGeneratedKeys();
-      final Configuration configuration = ms.getConfiguration();
-      final TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
-      final String[] keyProperties = ms.getKeyProperties();
       final ResultSetMetaData rsmd = rs.getMetaData();
-      TypeHandler<?>[] typeHandlers = null;
-      if (keyProperties != null && rsmd.getColumnCount() >= keyProperties.length) {
-        for (Object parameter : parameters) {
-          // there should be one row for each statement (also one for each parameter)
-          if (!rs.next()) {
-            break;
-          }
-          final MetaObject metaParam = configuration.newMetaObject(parameter);
-          if (typeHandlers == null) {
-            typeHandlers = getTypeHandlers(typeHandlerRegistry, metaParam, keyProperties, rsmd);
-          }
-          populateKeys(rs, metaParam, keyProperties, typeHandlers);
+      if (rsmd.getColumnCount() < keyProperties.length) {
+        return;
+      }
+      KeyAssignment assignment = null;
+      for (Object parameter : parameters) {
+        // there should be one row for each statement (also one for each parameter)
+        if (!rs.next()) {
+          break;
+        }
+        if (assignment == null || !assignment.appliesTo(parameter)) {
+          assignment = new KeyAssignment(ms, parameter, rsmd);
         }
+        assignment.assign(rs, parameter);
       }
     } catch (Exception e) {
       throw new ExecutorException("Error getting generated key or setting result to parameter object. Cause: " + e, e);
@@ -112,30 +123,104 @@ public class Jdbc3KeyGenerator implements KeyGenerator {
     return parameters;
   }
 
-  private TypeHandler<?>[] getTypeHandlers(TypeHandlerRegistry typeHandlerRegistry, MetaObject metaParam, String[] keyProperties, ResultSetMetaData rsmd) throws SQLException {
-    TypeHandler<?>[] typeHandlers = new TypeHandler<?>[keyProperties.length];
-    for (int i = 0; i < keyProperties.length; i++) {
-      if (metaParam.hasSetter(keyProperties[i])) {
-        Class<?> keyPropertyType = metaParam.getSetterType(keyProperties[i]);
-        TypeHandler<?> th = typeHandlerRegistry.getTypeHandler(keyPropertyType, JdbcType.forCode(rsmd.getColumnType(i + 1)));
-        typeHandlers[i] = th;
+  /**
+   * 主键的赋值方式：每个主键属性的setter、TypeHandler和所在的列，对同一类型的参数只解析一次
+   */
+  private static final class KeyAssignment {
+
+    private final Configuration configuration;
+    private final Class<?> parameterType;
+    private final String[] keyProperties;
+    private final int[] columns;
+    private final TypeHandler<?>[] typeHandlers;
+    // 普通JavaBean的属性直接调用setter，否则通过MetaObject赋值
+    private final Invoker[] setters;
+    private final PropertyPath[] propertyPaths;
+
+    KeyAssignment(MappedStatement ms, Object parameter, ResultSetMetaData rsmd) throws SQLException {
+      this.configuration = ms.getConfiguration();
+      this.parameterType = parameter.getClass();
+      this.keyProperties = ms.getKeyProperties();
+      this.columns = new int[keyProperties.length];
+      this.typeHandlers = new TypeHandler<?>[keyProperties.length];
+      this.setters = new Invoker[keyProperties.length];
+      this.propertyPaths = new PropertyPath[keyProperties.length];
+      final TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+      final boolean bean = !(parameter instanceof Map) && !(parameter instanceof Collection)
+          && !configuration.getObjectWrapperFactory().hasWrapperFor(parameter);
+      final Reflector reflector = bean ? configuration.getReflectorFactory().findForClass(parameterType) : null;
+      MetaObject metaParam = null;
+      for (int i = 0; i < keyProperties.length; i++) {
+        String property = keyProperties[i];
+        columns[i] = findColumn(ms.getKeyColumns(), i, rsmd);
+        Class<?> keyPropertyType;
+        if (bean && property.indexOf('.') < 0 && property.indexOf('[') < 0) {
+          if (!reflector.hasSetter(property)) {
+            throw noSetter(property);
+          }
+          setters[i] = reflector.getSetInvoker(property);
+          keyPropertyType = reflector.getSetterType(property);
+        } else {
+          if (metaParam == null) {
+            metaParam = configuration.newMetaObject(parameter);
+          }
+          if (!metaParam.hasSetter(property)) {
+            throw noSetter(property);
+          }
+          propertyPaths[i] = PropertyPath.compile(property);
+          keyPropertyType = metaParam.getSetterType(property);
+        }
+        typeHandlers[i] = typeHandlerRegistry.getTypeHandler(keyPropertyType, JdbcType.forCode(rsmd.getColumnType(columns[i])));
       }
     }
-    return typeHandlers;
-  }
 
-  private void populateKeys(ResultSet rs, MetaObject metaParam, String[] keyProperties, TypeHandler<?>[] typeHandlers) throws SQLException {
-    for (int i = 0; i < keyProperties.length; i++) {
-      String property = keyProperties[i];
-      if (!metaParam.hasSetter(property)) {
-        throw new ExecutorException("No setter found for the keyProperty '" + property + "' in " + metaParam.getOriginalObject().getClass().getName() + ".");
+    boolean appliesTo(Object parameter) {
+      return parameter.getClass() == parameterType;
+    }
+
+    void assign(ResultSet rs, Object parameter) throws SQLException {
+      MetaObject metaParam = null;
+      for (int i = 0; i < keyProperties.length; i++) {
+        TypeHandler<?> th = typeHandlers[i];
+        if (th == null) {
+          continue;
+        }
+        Object value = th.getResult(rs, columns[i]);
+        if (setters[i] != null) {
+          try {
+            setters[i].invoke(parameter, new Object[] { value });
+          } catch (Throwable t) {
+            Throwable cause = ExceptionUtil.unwrapThrowable(t);
+            throw new ReflectionException("Could not set property '" + keyProperties[i] + "' of '" + parameterType
+                + "' with value '" + value + "' Cause: " + cause, cause);
+          }
+        } else {
+          if (metaParam == null) {
+            metaParam = configuration.newMetaObject(parameter);
+          }
+          metaParam.setValue(propertyPaths[i], value);
+        }
       }
-      TypeHandler<?> th = typeHandlers[i];
-      if (th != null) {
-        Object value = th.getResult(rs, i + 1);
-        metaParam.setValue(property, value);
+    }
+
+    /*
+     * The column named like the key column when the driver returns it, else the column at the same position.
+     */
+    private static int findColumn(String[] keyColumns, int index, ResultSetMetaData rsmd) throws SQLException {
+      if (keyColumns != null && index < keyColumns.length) {
+        for (int column = 1; column <= rsmd.getColumnCount(); column++) {
+          if (keyColumns[index].equalsIgnoreCase(rsmd.getColumnLabel(column))) {
+            return column;
+          }
+        }
       }
+      return index + 1;
     }
+
+    private ExecutorException noSetter(String property) {
+      return new ExecutorException("No setter found for the keyProperty '" + property + "' in " + parameterType.getName() + ".");
+    }
+
   }
 
 }
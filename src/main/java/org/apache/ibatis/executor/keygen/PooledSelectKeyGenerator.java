@@ -0,0 +1,192 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.keygen;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * 按块预分配主键的selectKey
+ *
+ * Key generator for sequence backed keys that runs its select key statement once per block of
+ * <code>allocationSize</code> keys instead of once per insert. The keys of the current block are handed out from
+ * memory, without locking, to every thread inserting through the statement; only fetching the next block is
+ * serialized.
+ * <p>
+ * How a fetched value maps to a block depends on the {@link Allocation}:
+ * <ul>
+ * <li>{@link Allocation#INCREMENT}: the sequence is declared with <code>INCREMENT BY allocationSize</code> and the
+ * value <code>v</code> reserves the keys <code>v</code> to <code>v + allocationSize - 1</code>.</li>
+ * <li>{@link Allocation#HILO}: the sequence is incremented by one and the value <code>v</code> reserves the keys
+ * <code>v * allocationSize</code> to <code>(v + 1) * allocationSize - 1</code>.</li>
+ * </ul>
+ * Keys of a block that is not used up (application restart, rolled back inserts) are lost, so the keys are unique
+ * but not gapless.
+ * <pre>
+ * &lt;selectKey keyProperty="id" resultType="long" order="BEFORE" allocationSize="50"&gt;
+ *   select nextval('author_seq')
+ * &lt;/selectKey&gt;
+ * </pre>
+ *
+ * @since 3.4.5
+ */
+public class PooledSelectKeyGenerator implements KeyGenerator {
+
+  public enum Allocation {
+    INCREMENT, HILO
+  }
+
+  private final MappedStatement keyStatement;
+  private final String keyProperty;
+  private final int allocationSize;
+  private final Allocation allocation;
+  private final Class<?> keyType;
+
+  // 当前可分配的主键块，分配时只做CAS，取下一块时才加锁
+  private final AtomicReference<KeyBlock> block = new AtomicReference<KeyBlock>(new KeyBlock(0, 0));
+  private final Object allocationLock = new Object();
+
+  public PooledSelectKeyGenerator(MappedStatement keyStatement, int allocationSize, Allocation allocation) {
+    String[] keyProperties = keyStatement.getKeyProperties();
+    if (keyProperties == null || keyProperties.length != 1) {
+      throw new IllegalArgumentException("Pooled key allocation requires exactly one keyProperty on " + keyStatement.getId() + ".");
+    }
+    if (allocationSize < 1) {
+      throw new IllegalArgumentException("The allocationSize of " + keyStatement.getId() + " must be positive but was " + allocationSize + ".");
+    }
+    this.keyStatement = keyStatement;
+    this.keyProperty = keyProperties[0];
+    this.allocationSize = allocationSize;
+    this.allocation = allocation == null ? Allocation.INCREMENT : allocation;
+    List<ResultMap> resultMaps = keyStatement.getResultMaps();
+    this.keyType = resultMaps.isEmpty() ? Long.class : resultMaps.get(0).getType();
+  }
+
+  public int getAllocationSize() {
+    return allocationSize;
+  }
+
+  public Allocation getAllocation() {
+    return allocation;
+  }
+
+  @Override
+  public void processBefore(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
+    if (parameter == null) {
+      return;
+    }
+    try {
+      final Configuration configuration = ms.getConfiguration();
+      final MetaObject metaParam = configuration.newMetaObject(parameter);
+      if (!metaParam.hasSetter(keyProperty)) {
+        throw new ExecutorException("No setter found for the keyProperty '" + keyProperty + "' in " + metaParam.getOriginalObject().getClass().getName() + ".");
+      }
+      metaParam.setValue(keyProperty, toKeyType(nextKey(executor, parameter)));
+    } catch (ExecutorException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ExecutorException("Error selecting key or setting result to parameter object. Cause: " + e, e);
+    }
+  }
+
+  @Override
+  public void processAfter(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
+    // do nothing
+  }
+
+  private long nextKey(Executor executor, Object parameter) throws Exception {
+    for (;;) {
+      KeyBlock current = block.get();
+      long key = current.next.getAndIncrement();
+      if (key < current.limit) {
+        return key;
+      }
+      synchronized (allocationLock) {
+        // 其他线程可能已经取到了新的块
+        if (block.get() == current) {
+          block.set(allocateBlock(executor, parameter));
+        }
+      }
+    }
+  }
+
+  private KeyBlock allocateBlock(Executor executor, Object parameter) throws Exception {
+    // Do not close keyExecutor.
+    // The transaction will be closed by parent executor.
+    Configuration configuration = keyStatement.getConfiguration();
+    Executor keyExecutor = configuration.newExecutor(executor.getTransaction(), ExecutorType.SIMPLE);
+    List<Object> values = keyExecutor.query(keyStatement, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+    if (values.size() == 0) {
+      throw new ExecutorException("SelectKey returned no data.");
+    } else if (values.size() > 1) {
+      throw new ExecutorException("SelectKey returned more than one value.");
+    }
+    Object value = values.get(0);
+    if (!(value instanceof Number)) {
+      MetaObject metaResult = configuration.newMetaObject(value);
+      value = metaResult.hasGetter(keyProperty) ? metaResult.getValue(keyProperty) : value;
+    }
+    if (!(value instanceof Number)) {
+      throw new ExecutorException("SelectKey of " + keyStatement.getId() + " must return a number to allocate keys but returned " + value + ".");
+    }
+    long first = ((Number) value).longValue();
+    if (allocation == Allocation.HILO) {
+      first *= allocationSize;
+    }
+    return new KeyBlock(first, first + allocationSize);
+  }
+
+  private Object toKeyType(long key) {
+    if (keyType == Integer.class || keyType == int.class) {
+      return (int) key;
+    } else if (keyType == Short.class || keyType == short.class) {
+      return (short) key;
+    } else if (keyType == BigInteger.class) {
+      return BigInteger.valueOf(key);
+    } else if (keyType == BigDecimal.class) {
+      return BigDecimal.valueOf(key);
+    } else if (keyType == String.class) {
+      return String.valueOf(key);
+    }
+    return key;
+  }
+
+  private static final class KeyBlock {
+
+    private final AtomicLong next;
+    private final long limit;
+
+    private KeyBlock(long first, long limit) {
+      this.next = new AtomicLong(first);
+      this.limit = limit;
+    }
+
+  }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2009-2017 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Appends the limiting clause to the end of the statement. Statements with a locking clause are left alone
+ * because the clause would have to be inserted before it, as well as statements that already limit their rows
+ * or end with a line comment that would swallow the appended clause.
+ */
+public abstract class BasePaginationDialect implements PaginationDialect {
+
+    // 无法在末尾追加分页子句的语句，交给RowBounds在客户端跳过
+    private static final Pattern UNSUPPORTED_SQL = Pattern.compile(
+            "\\s+FOR\\s+UPDATE\\b|\\s+SKIP\\s+LOCKED$|\\s+NOWAIT$"
+                    + "|\\bLIMIT\\b|\\bOFFSET\\b|\\bFETCH\\s+(FIRST|NEXT)\\b"
+                    + "|--[^\\r\\n]*$",
+            Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public String getPaginationSql(String sql, int offset, int limit, List<Integer> parameters) {
+        String trimmed = trim(sql);
+        if (trimmed.length() == 0) {
+            return null;
+        }
+        if (UNSUPPORTED_SQL.matcher(trimmed).find()) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder(trimmed.length() + 40).append(trimmed);
+        appendPagination(builder, offset > 0 ? offset : 0, limit, parameters);
+        return builder.toString();
+    }
+
+    /**
+     * Appends the limiting clause.
+     *
+     * @param sql the statement, without trailing blanks or semicolon
+     * @param offset number of rows to skip, 0 for none
+     * @param limit maximum number of rows, {@link RowBounds#NO_ROW_LIMIT} for no limit
+     * @param parameters receives the values of the appended placeholders
+     */
+    protected abstract void appendPagination(StringBuilder sql, int offset, int limit, List<Integer> parameters);
+
+    protected static boolean hasLimit(int limit) {
+        return limit != RowBounds.NO_ROW_LIMIT;
+    }
+
+    private static String trim(String sql) {
+        int end = sql.length();
+        while (end > 0 && (Character.isWhitespace(sql.charAt(end - 1)) || sql.charAt(end - 1) == ';')) {
+            end--;
+        }
+        return sql.substring(0, end);
+    }
+
+}
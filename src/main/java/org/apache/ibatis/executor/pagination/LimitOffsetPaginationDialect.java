@@ -0,0 +1,37 @@
+/**
+ * Copyright 2009-2017 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+
+/**
+ * <code>LIMIT ? OFFSET ?</code>, for PostgreSQL and H2.
+ */
+public class LimitOffsetPaginationDialect extends BasePaginationDialect {
+
+    @Override
+    protected void appendPagination(StringBuilder sql, int offset, int limit, List<Integer> parameters) {
+        if (hasLimit(limit)) {
+            sql.append(" LIMIT ?");
+            parameters.add(limit);
+        }
+        if (offset > 0) {
+            sql.append(" OFFSET ?");
+            parameters.add(offset);
+        }
+    }
+
+}
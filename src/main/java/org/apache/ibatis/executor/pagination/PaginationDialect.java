@@ -0,0 +1,38 @@
+/**
+ * Copyright 2009-2017 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+
+/**
+ * Pushes {@link org.apache.ibatis.session.RowBounds} down to the database, so rows outside the bounds are not
+ * transferred to the client and skipped there.
+ */
+public interface PaginationDialect {
+
+    /**
+     * Limits the rows returned by a select statement.
+     *
+     * @param sql the select statement
+     * @param offset number of rows to skip, 0 for none
+     * @param limit maximum number of rows, {@link org.apache.ibatis.session.RowBounds#NO_ROW_LIMIT} for no limit
+     * @param parameters receives the values of the placeholders added to the statement, in the order they appear
+     * @return the limited statement, or null when the statement can not be limited (the rows are then skipped
+     * on the client as usual)
+     */
+    String getPaginationSql(String sql, int offset, int limit, List<Integer> parameters);
+
+}
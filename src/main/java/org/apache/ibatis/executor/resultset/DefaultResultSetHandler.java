@@ -38,6 +38,7 @@ import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.PropertyPath;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
@@ -83,7 +84,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     private final ReflectorFactory reflectorFactory;
 
     // nested resultmaps
-    private final Map<CacheKey, Object> nestedResultObjects = new HashMap<CacheKey, Object>();
+    private final RowKeyMap nestedResultObjects = new RowKeyMap();
+    private final RowKey rowKey = new RowKey();
+    private final Map<String, Map<String, List<RowKeyColumn>>> rowKeyColumnsCache =
+            new HashMap<String, Map<String, List<RowKeyColumn>>>();
     private final Map<String, Object> ancestorObjects = new HashMap<String, Object>();
     private Object previousRowValue;
 
@@ -108,19 +112,32 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
     private static class UnMappedColumnAutoMapping {
         private final String column;
-        private final String property;
+        private final PropertyPath property;
         private final TypeHandler<?> typeHandler;
         private final boolean primitive;
 
         public UnMappedColumnAutoMapping(String column, String property, TypeHandler<?> typeHandler,
                                          boolean primitive) {
             this.column = column;
-            this.property = property;
+            this.property = PropertyPath.compile(property);
             this.typeHandler = typeHandler;
             this.primitive = primitive;
         }
     }
 
+    private static class RowKeyColumn {
+        private final String column;
+        // null when the column is read as a string
+        private final TypeHandler<?> typeHandler;
+        private final boolean countNull;
+
+        public RowKeyColumn(String column, TypeHandler<?> typeHandler, boolean countNull) {
+            this.column = column;
+            this.typeHandler = typeHandler;
+            this.countNull = countNull;
+        }
+    }
+
     public DefaultResultSetHandler(Executor executor, MappedStatement mappedStatement,
                                    ParameterHandler parameterHandler, ResultHandler<?> resultHandler, BoundSql boundSql,
                                    RowBounds rowBounds) {
@@ -312,6 +329,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
     private void cleanUpAfterHandlingResultSet() {
         nestedResultObjects.clear();
+        rowKeyColumnsCache.clear();
     }
 
     private void validateResultMapsCount(ResultSetWrapper rsw, int resultMapCount) {
@@ -576,7 +594,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
                 if (value != null || (configuration.isCallSettersOnNulls() && !metaObject.getSetterType(property)
                         .isPrimitive())) {
                     // gcode issue #377, call setter on nulls (value is not 'found')
-                    metaObject.setValue(property, value);
+                    metaObject.setValue(propertyMapping.getPropertyPath(), value);
                 }
             }
         }
@@ -1122,17 +1140,20 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         Object rowValue = previousRowValue;
         while (shouldProcessMoreRows(resultContext, rowBounds) && rsw.getResultSet().next()) {
             final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(rsw.getResultSet(), resultMap, null);
-            final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
-            Object partialObject = nestedResultObjects.get(rowKey);
+            final RowKey rowKey = createRowKey(discriminatedResultMap, rsw, null, null);
+            final RowKey knownKey = nestedResultObjects.get(rowKey);
+            Object partialObject = knownKey != null ? knownKey.getValue() : null;
             // issue #577 && #542
             if (mappedStatement.isResultOrdered()) {
                 if (partialObject == null && rowValue != null) {
                     nestedResultObjects.clear();
                     storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
                 }
-                rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, null, partialObject);
+                rowValue = getRowValue(rsw, discriminatedResultMap, knownKey != null ? knownKey : rowKey, null,
+                        partialObject);
             } else {
-                rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, null, partialObject);
+                rowValue = getRowValue(rsw, discriminatedResultMap, knownKey != null ? knownKey : rowKey, null,
+                        partialObject);
                 if (partialObject == null) {
                     storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
                 }
@@ -1150,7 +1171,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     // GET VALUE FROM ROW FOR NESTED RESULT MAP
     //
 
-    private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, CacheKey combinedKey, String columnPrefix,
+    /**
+     * The key is the stored key of the partial object when there is one, otherwise the key being probed for.
+     */
+    private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, RowKey combinedKey, String columnPrefix,
                                Object partialObject) throws SQLException {
         final String resultMapId = resultMap.getId();
         Object rowValue = partialObject;
@@ -1160,6 +1184,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
             applyNestedResultMappings(rsw, resultMap, metaObject, columnPrefix, combinedKey, false);
             ancestorObjects.remove(resultMapId);
         } else {
+            // store the key before the nested rows refill the probe
+            final RowKey storedKey =
+                    combinedKey.isNull() ? RowKey.NULL_ROW_KEY : nestedResultObjects.put(combinedKey);
             final ResultLoaderMap lazyLoader = new ResultLoaderMap();
             rowValue = createResultObject(rsw, resultMap, lazyLoader, columnPrefix);
             if (rowValue != null && !hasTypeHandlerForResultObject(rsw, resultMap.getType())) {
@@ -1171,14 +1198,14 @@ public class DefaultResultSetHandler implements ResultSetHandler {
                 foundValues =
                         applyPropertyMappings(rsw, resultMap, metaObject, lazyLoader, columnPrefix) || foundValues;
                 putAncestor(rowValue, resultMapId, columnPrefix);
-                foundValues = applyNestedResultMappings(rsw, resultMap, metaObject, columnPrefix, combinedKey, true)
+                foundValues = applyNestedResultMappings(rsw, resultMap, metaObject, columnPrefix, storedKey, true)
                         || foundValues;
                 ancestorObjects.remove(resultMapId);
                 foundValues = lazyLoader.size() > 0 || foundValues;
                 rowValue = (foundValues || configuration.isReturnInstanceForEmptyRow()) ? rowValue : null;
             }
-            if (combinedKey != CacheKey.NULL_CACHE_KEY) {
-                nestedResultObjects.put(combinedKey, rowValue);
+            if (storedKey != RowKey.NULL_ROW_KEY) {
+                storedKey.setValue(rowValue);
             }
         }
         return rowValue;
@@ -1193,7 +1220,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     //
 
     private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject,
-                                              String parentPrefix, CacheKey parentRowKey, boolean newObject) {
+                                              String parentPrefix, RowKey parentRowKey, boolean newObject) {
         boolean foundValues = false;
         for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
             final String nestedResultMapId = resultMapping.getNestedResultMapId();
@@ -1213,13 +1240,14 @@ public class DefaultResultSetHandler implements ResultSetHandler {
                             continue;
                         }
                     }
-                    final CacheKey rowKey = createRowKey(nestedResultMap, rsw, columnPrefix);
-                    final CacheKey combinedKey = combineKeys(rowKey, parentRowKey);
-                    Object rowValue = nestedResultObjects.get(combinedKey);
+                    final RowKey combinedKey = createRowKey(nestedResultMap, rsw, columnPrefix, parentRowKey);
+                    final RowKey knownKey = nestedResultObjects.get(combinedKey);
+                    Object rowValue = knownKey != null ? knownKey.getValue() : null;
                     boolean knownValue = (rowValue != null);
                     instantiateCollectionPropertyIfAppropriate(resultMapping, metaObject); // mandatory
                     if (anyNotNullColumnHasValue(resultMapping, columnPrefix, rsw)) {
-                        rowValue = getRowValue(rsw, nestedResultMap, combinedKey, columnPrefix, rowValue);
+                        rowValue = getRowValue(rsw, nestedResultMap, knownValue ? knownKey : combinedKey, columnPrefix,
+                                rowValue);
                         if (rowValue != null && !knownValue) {
                             linkObjects(metaObject, resultMapping, rowValue);
                             foundValues = true;
@@ -1279,37 +1307,50 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     // UNIQUE RESULT KEY
     //
 
-    private CacheKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
-        final CacheKey cacheKey = new CacheKey();
-        cacheKey.update(resultMap.getId());
-        List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
-        if (resultMappings.size() == 0) {
-            if (Map.class.isAssignableFrom(resultMap.getType())) {
-                createRowKeyForMap(rsw, cacheKey);
-            } else {
-                createRowKeyForUnmappedProperties(resultMap, rsw, cacheKey, columnPrefix);
-            }
-        } else {
-            createRowKeyForMappedProperties(resultMap, rsw, cacheKey, resultMappings, columnPrefix);
+    /**
+     * Fills the reusable row key with the id column values of the current row. A nested row is identified
+     * together with its parent row, so the parent must be a stored key.
+     */
+    private RowKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix, RowKey parentRowKey)
+            throws SQLException {
+        final RowKey rowKey = this.rowKey;
+        rowKey.reset(resultMap.getId(), columnPrefix, parentRowKey);
+        if (parentRowKey == RowKey.NULL_ROW_KEY) {
+            return rowKey;
         }
-        if (cacheKey.getUpdateCount() < 2) {
-            return CacheKey.NULL_CACHE_KEY;
+        final ResultSet rs = rsw.getResultSet();
+        for (RowKeyColumn rowKeyColumn : getRowKeyColumns(resultMap, rsw, columnPrefix)) {
+            final Object value = rowKeyColumn.typeHandler == null
+                    ? rs.getString(rowKeyColumn.column)
+                    : rowKeyColumn.typeHandler.getResult(rs, rowKeyColumn.column);
+            rowKey.update(value, value != null || rowKeyColumn.countNull);
         }
-        return cacheKey;
+        return rowKey;
     }
 
-    private CacheKey combineKeys(CacheKey rowKey, CacheKey parentRowKey) {
-        if (rowKey.getUpdateCount() > 1 && parentRowKey.getUpdateCount() > 1) {
-            CacheKey combinedKey;
-            try {
-                combinedKey = rowKey.clone();
-            } catch (CloneNotSupportedException e) {
-                throw new ExecutorException("Error cloning cache key.  Cause: " + e, e);
+    private List<RowKeyColumn> getRowKeyColumns(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix)
+            throws SQLException {
+        Map<String, List<RowKeyColumn>> rowKeyColumnsByPrefix = rowKeyColumnsCache.get(resultMap.getId());
+        if (rowKeyColumnsByPrefix == null) {
+            rowKeyColumnsByPrefix = new HashMap<String, List<RowKeyColumn>>();
+            rowKeyColumnsCache.put(resultMap.getId(), rowKeyColumnsByPrefix);
+        }
+        List<RowKeyColumn> rowKeyColumns = rowKeyColumnsByPrefix.get(columnPrefix);
+        if (rowKeyColumns == null) {
+            rowKeyColumns = new ArrayList<RowKeyColumn>();
+            List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
+            if (resultMappings.size() == 0) {
+                if (Map.class.isAssignableFrom(resultMap.getType())) {
+                    createRowKeyColumnsForMap(rsw, rowKeyColumns);
+                } else {
+                    createRowKeyColumnsForUnmappedProperties(resultMap, rsw, rowKeyColumns, columnPrefix);
+                }
+            } else {
+                createRowKeyColumnsForMappedProperties(resultMap, rsw, rowKeyColumns, resultMappings, columnPrefix);
             }
-            combinedKey.update(parentRowKey);
-            return combinedKey;
+            rowKeyColumnsByPrefix.put(columnPrefix, rowKeyColumns);
         }
-        return CacheKey.NULL_CACHE_KEY;
+        return rowKeyColumns;
     }
 
     private List<ResultMapping> getResultMappingsForRowKey(ResultMap resultMap) {
@@ -1320,34 +1361,32 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return resultMappings;
     }
 
-    private void createRowKeyForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey,
-                                                 List<ResultMapping> resultMappings, String columnPrefix)
+    private void createRowKeyColumnsForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw,
+                                                        List<RowKeyColumn> rowKeyColumns,
+                                                        List<ResultMapping> resultMappings, String columnPrefix)
             throws SQLException {
         for (ResultMapping resultMapping : resultMappings) {
             if (resultMapping.getNestedResultMapId() != null && resultMapping.getResultSet() == null) {
                 // Issue #392
                 final ResultMap nestedResultMap = configuration.getResultMap(resultMapping.getNestedResultMapId());
-                createRowKeyForMappedProperties(nestedResultMap, rsw, cacheKey,
+                createRowKeyColumnsForMappedProperties(nestedResultMap, rsw, rowKeyColumns,
                         nestedResultMap.getConstructorResultMappings(),
                         prependPrefix(resultMapping.getColumnPrefix(), columnPrefix));
             } else if (resultMapping.getNestedQueryId() == null) {
                 final String column = prependPrefix(resultMapping.getColumn(), columnPrefix);
-                final TypeHandler<?> th = resultMapping.getTypeHandler();
                 List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
                 // Issue #114
                 if (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
-                    final Object value = th.getResult(rsw.getResultSet(), column);
-                    if (value != null || configuration.isReturnInstanceForEmptyRow()) {
-                        cacheKey.update(column);
-                        cacheKey.update(value);
-                    }
+                    rowKeyColumns.add(new RowKeyColumn(column, resultMapping.getTypeHandler(),
+                            configuration.isReturnInstanceForEmptyRow()));
                 }
             }
         }
     }
 
-    private void createRowKeyForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey,
-                                                   String columnPrefix) throws SQLException {
+    private void createRowKeyColumnsForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw,
+                                                          List<RowKeyColumn> rowKeyColumns, String columnPrefix)
+            throws SQLException {
         final MetaClass metaType = MetaClass.forClass(resultMap.getType(), reflectorFactory);
         List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
         for (String column : unmappedColumnNames) {
@@ -1361,23 +1400,14 @@ public class DefaultResultSetHandler implements ResultSetHandler {
                 }
             }
             if (metaType.findProperty(property, configuration.isMapUnderscoreToCamelCase()) != null) {
-                String value = rsw.getResultSet().getString(column);
-                if (value != null) {
-                    cacheKey.update(column);
-                    cacheKey.update(value);
-                }
+                rowKeyColumns.add(new RowKeyColumn(column, null, false));
             }
         }
     }
 
-    private void createRowKeyForMap(ResultSetWrapper rsw, CacheKey cacheKey) throws SQLException {
-        List<String> columnNames = rsw.getColumnNames();
-        for (String columnName : columnNames) {
-            final String value = rsw.getResultSet().getString(columnName);
-            if (value != null) {
-                cacheKey.update(columnName);
-                cacheKey.update(value);
-            }
+    private void createRowKeyColumnsForMap(ResultSetWrapper rsw, List<RowKeyColumn> rowKeyColumns) {
+        for (String columnName : rsw.getColumnNames()) {
+            rowKeyColumns.add(new RowKeyColumn(columnName, null, false));
         }
     }
 
@@ -1387,13 +1417,13 @@ public class DefaultResultSetHandler implements ResultSetHandler {
             final MetaObject targetMetaObject = configuration.newMetaObject(collectionProperty);
             targetMetaObject.add(rowValue);
         } else {
-            metaObject.setValue(resultMapping.getProperty(), rowValue);
+            metaObject.setValue(resultMapping.getPropertyPath(), rowValue);
         }
     }
 
     private Object instantiateCollectionPropertyIfAppropriate(ResultMapping resultMapping, MetaObject metaObject) {
         final String propertyName = resultMapping.getProperty();
-        Object propertyValue = metaObject.getValue(propertyName);
+        Object propertyValue = metaObject.getValue(resultMapping.getPropertyPath());
         if (propertyValue == null) {
             Class<?> type = resultMapping.getJavaType();
             if (type == null) {
@@ -1402,7 +1432,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
             try {
                 if (objectFactory.isCollection(type)) {
                     propertyValue = objectFactory.create(type);
-                    metaObject.setValue(propertyName, propertyValue);
+                    metaObject.setValue(resultMapping.getPropertyPath(), propertyValue);
                     return propertyValue;
                 }
             } catch (Exception e) {
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2009-2017 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Arrays;
+
+import org.apache.ibatis.reflection.ArrayUtil;
+
+/**
+ * Identity of a row for a nested result map.
+ * <p>
+ * Unlike {@link org.apache.ibatis.cache.CacheKey} the column values are stored positionally (the column list
+ * is fixed for a given result map and column prefix) and the parent row is referenced instead of being copied,
+ * so a single instance can be refilled for every row and only copied when a new row object is created.
+ */
+final class RowKey {
+
+    /** Marks a row that can not be identified, same as {@link org.apache.ibatis.cache.CacheKey#NULL_CACHE_KEY}. */
+    static final RowKey NULL_ROW_KEY = new RowKey(0);
+
+    private static final int DEFAULT_MULTIPLYER = 37;
+    private static final int DEFAULT_HASHCODE = 17;
+
+    private String resultMapId;
+    private String columnPrefix;
+    private RowKey parent;
+    private Object[] values;
+    private int size;
+    private int updateCount;
+    private int hashcode;
+
+    // only used once the key is stored in a RowKeyMap
+    private Object value;
+    RowKey next;
+
+    RowKey() {
+        this(8);
+    }
+
+    private RowKey(int capacity) {
+        this.values = new Object[capacity];
+    }
+
+    /**
+     * Starts a new row identity, the parent must be a stored key (or null for a top level row).
+     */
+    void reset(String resultMapId, String columnPrefix, RowKey parent) {
+        Arrays.fill(values, 0, size, null);
+        this.resultMapId = resultMapId;
+        this.columnPrefix = columnPrefix;
+        this.parent = parent;
+        this.size = 0;
+        this.updateCount = 0;
+        int hash = DEFAULT_HASHCODE;
+        hash = DEFAULT_MULTIPLYER * hash + resultMapId.hashCode();
+        hash = DEFAULT_MULTIPLYER * hash + (columnPrefix == null ? 0 : columnPrefix.hashCode());
+        hash = DEFAULT_MULTIPLYER * hash + (parent == null ? 0 : parent.hashcode);
+        this.hashcode = hash;
+    }
+
+    /**
+     * Adds the value of the next id column. Values that are not counted still take part in the identity but
+     * a key without any counted value identifies nothing.
+     */
+    void update(Object columnValue, boolean counted) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size << 1);
+        }
+        values[size++] = columnValue;
+        if (counted) {
+            updateCount++;
+        }
+        hashcode = DEFAULT_MULTIPLYER * hashcode + (columnValue == null ? 1 : ArrayUtil.hashCode(columnValue));
+    }
+
+    boolean isNull() {
+        return updateCount == 0 || parent == NULL_ROW_KEY;
+    }
+
+    RowKey copy() {
+        RowKey copy = new RowKey(size);
+        System.arraycopy(values, 0, copy.values, 0, size);
+        copy.resultMapId = resultMapId;
+        copy.columnPrefix = columnPrefix;
+        copy.parent = parent;
+        copy.size = size;
+        copy.updateCount = updateCount;
+        copy.hashcode = hashcode;
+        return copy;
+    }
+
+    Object getValue() {
+        return value;
+    }
+
+    void setValue(Object value) {
+        this.value = value;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashcode;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof RowKey)) {
+            return false;
+        }
+        final RowKey that = (RowKey) object;
+        if (hashcode != that.hashcode || size != that.size || updateCount != that.updateCount) {
+            return false;
+        }
+        if (!resultMapId.equals(that.resultMapId)) {
+            return false;
+        }
+        if (columnPrefix == null ? that.columnPrefix != null : !columnPrefix.equals(that.columnPrefix)) {
+            return false;
+        }
+        if (parent != that.parent && (parent == null || !parent.equals(that.parent))) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!ArrayUtil.equals(values[i], that.values[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder returnValue = new StringBuilder().append(hashcode).append(':').append(resultMapId);
+        if (columnPrefix != null) {
+            returnValue.append(':').append(columnPrefix);
+        }
+        for (int i = 0; i < size; i++) {
+            returnValue.append(':').append(ArrayUtil.toString(values[i]));
+        }
+        return returnValue.toString();
+    }
+
+}
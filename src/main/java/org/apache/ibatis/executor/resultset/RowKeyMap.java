@@ -0,0 +1,102 @@
+/**
+ * Copyright 2009-2017 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Arrays;
+
+/**
+ * Hash table of the objects already built for nested result maps. The stored {@link RowKey}s are the entries
+ * themselves, so looking up a row that was already seen does not allocate anything.
+ */
+final class RowKeyMap {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private RowKey[] table = new RowKey[DEFAULT_CAPACITY];
+    private int size;
+    private int threshold = DEFAULT_CAPACITY * 3 / 4;
+
+    /**
+     * Returns the stored key that holds a row object equal to the given key, or null when there is none.
+     */
+    RowKey get(RowKey key) {
+        if (key.isNull()) {
+            return null;
+        }
+        RowKey stored = find(key);
+        return stored == null || stored.getValue() == null ? null : stored;
+    }
+
+    /**
+     * Returns the stored key equal to the given key, storing a copy of it when there is none yet.
+     */
+    RowKey put(RowKey key) {
+        RowKey stored = find(key);
+        if (stored == null) {
+            if (size >= threshold) {
+                resize();
+            }
+            stored = key.copy();
+            int index = indexFor(stored.hashCode(), table.length);
+            stored.next = table[index];
+            table[index] = stored;
+            size++;
+        }
+        return stored;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(table, null);
+            size = 0;
+        }
+    }
+
+    private RowKey find(RowKey key) {
+        for (RowKey e = table[indexFor(key.hashCode(), table.length)]; e != null; e = e.next) {
+            if (e.equals(key)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    private void resize() {
+        RowKey[] oldTable = table;
+        RowKey[] newTable = new RowKey[oldTable.length << 1];
+        for (RowKey head : oldTable) {
+            RowKey e = head;
+            while (e != null) {
+                RowKey next = e.next;
+                int index = indexFor(e.hashCode(), newTable.length);
+                e.next = newTable[index];
+                newTable[index] = e;
+                e = next;
+            }
+        }
+        table = newTable;
+        threshold = newTable.length * 3 / 4;
+    }
+
+    private static int indexFor(int hash, int length) {
+        return (hash ^ (hash >>> 16)) & (length - 1);
+    }
+
+}
@@ -89,7 +89,8 @@ public class PreparedStatementHandler extends BaseStatementHandler {
         String sql = boundSql.getSql();
 
         // eg1: mappedStatement.getKeyGenerator=NoKeyGenerator
-        if (mappedStatement.getKeyGenerator() instanceof Jdbc3KeyGenerator) {
+        // 执行器可以通过BoundSql关闭生成主键的请求（如关闭了主键回填的批处理）
+        if (mappedStatement.getKeyGenerator() instanceof Jdbc3KeyGenerator && boundSql.isGeneratedKeysRequested()) {
             String[] keyColumnNames = mappedStatement.getKeyColumns();
             if (keyColumnNames == null) {
                 return connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
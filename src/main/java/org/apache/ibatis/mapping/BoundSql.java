@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.PropertyPath;
 import org.apache.ibatis.reflection.property.PropertyTokenizer;
 import org.apache.ibatis.session.Configuration;
 
@@ -50,6 +51,9 @@ public class BoundSql {
 
     private MetaObject metaParameters;
 
+    // 预编译语句是否请求生成的主键（Jdbc3KeyGenerator），执行器可以关闭
+    private boolean generatedKeysRequested = true;
+
     public BoundSql(Configuration configuration, String sql, List<ParameterMapping> parameterMappings,
                     Object parameterObject) {
         this.sql = sql; // eg1: "select id, name, age from tb_user where id = ?"
@@ -86,4 +90,32 @@ public class BoundSql {
     public Object getAdditionalParameter(String name) {
         return metaParameters.getValue(name);
     }
+
+    public boolean hasAdditionalParameter(PropertyPath path) {
+        return additionalParameters.containsKey(path.getRootName());
+    }
+
+    public Object getAdditionalParameter(PropertyPath path) {
+        return path.getValue(metaParameters);
+    }
+
+    public Map<String, Object> getAdditionalParameters() {
+        return additionalParameters;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public boolean isGeneratedKeysRequested() {
+        return generatedKeysRequested;
+    }
+
+    /**
+     * Sets whether the prepared statement asks the driver for the generated keys when the statement uses them, eg:
+     * turned off by the batch executor when the keys of the batches are not read back.
+     * @since 3.4.5
+     */
+    public void setGeneratedKeysRequested(boolean generatedKeysRequested) {
+        this.generatedKeysRequested = generatedKeysRequested;
+    }
 }
@@ -17,6 +17,7 @@ package org.apache.ibatis.mapping;
 
 import java.sql.ResultSet;
 
+import org.apache.ibatis.reflection.PropertyPath;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
@@ -32,6 +33,8 @@ public class ParameterMapping {
     private Configuration configuration;
 
     private String property;
+    // property解析后的路径，第一次使用时创建
+    private PropertyPath propertyPath;
     private ParameterMode mode;
     private Class<?> javaType = Object.class;
     private JdbcType jdbcType;
@@ -140,6 +143,17 @@ public class ParameterMapping {
         return property;
     }
 
+    /**
+     * Used for reading the value of the property from the parameter object.
+     * @since 3.4.5
+     */
+    public PropertyPath getPropertyPath() {
+        if (propertyPath == null && property != null) {
+            propertyPath = PropertyPath.compile(property);
+        }
+        return propertyPath;
+    }
+
     /**
      * Used for handling output of callable statements
      * @return
@@ -20,6 +20,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.ibatis.reflection.PropertyPath;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
@@ -32,6 +33,7 @@ public class ResultMapping {
 
   private Configuration configuration;
   private String property;
+  private PropertyPath propertyPath;
   private String column;
   private Class<?> javaType;
   private JdbcType jdbcType;
@@ -187,6 +189,17 @@ public class ResultMapping {
     return property;
   }
 
+  /**
+   * Used for setting the value of the property on the result object.
+   * @since 3.4.5
+   */
+  public PropertyPath getPropertyPath() {
+    if (propertyPath == null && property != null) {
+      propertyPath = PropertyPath.compile(property);
+    }
+    return propertyPath;
+  }
+
   public String getColumn() {
     return column;
   }
@@ -0,0 +1,159 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * 合并了整条拦截器链的InvocationHandler
+ *
+ * Single proxy layer standing for all the interceptors of a chain. The interceptors matching each method of the
+ * target type are resolved once per type (see {@link #compile(Class, List)}); a call to a method no interceptor
+ * declares goes straight to the target and an intercepted call runs its interceptors one after the other, each
+ * {@link Invocation#proceed()} moving to the next one instead of crossing another proxy.
+ *
+ * @since 3.4.5
+ */
+class ChainedPlugin implements InvocationHandler {
+
+    private final Object target;
+    private final Map<Method, Interceptor[]> chains;
+
+    private ChainedPlugin(Object target, Map<Method, Interceptor[]> chains) {
+        this.target = target;
+        this.chains = chains;
+    }
+
+    static Object wrap(Object target, Dispatch dispatch) {
+        if (dispatch.proxyConstructor == null) {
+            return target;
+        }
+        try {
+            return dispatch.proxyConstructor.newInstance(new ChainedPlugin(target, dispatch.chains));
+        } catch (Exception e) {
+            throw new PluginException("Could not create the plugin proxy of " + target.getClass().getName() + ". Cause: " + e, e);
+        }
+    }
+
+    /**
+     * Resolves the interceptors of every method of the type. The last added interceptor runs first, as it would be
+     * the outermost proxy when each interceptor wraps the target on its own.
+     */
+    static Dispatch compile(Class<?> type, List<Interceptor> interceptors) {
+        Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+        Map<Method, List<Interceptor>> methodInterceptors = new HashMap<Method, List<Interceptor>>();
+        for (int i = interceptors.size() - 1; i >= 0; i--) {
+            Interceptor interceptor = interceptors.get(i);
+            Map<Class<?>, Set<Method>> signatureMap = Plugin.getSignatureMap(interceptor);
+            for (Class<?> intercepted : Plugin.getAllInterfaces(type, signatureMap)) {
+                interfaces.add(intercepted);
+                for (Method method : signatureMap.get(intercepted)) {
+                    // 与Plugin一致，只拦截由签名中的接口本身声明的方法
+                    if (method.getDeclaringClass() != intercepted) {
+                        continue;
+                    }
+                    List<Interceptor> chain = methodInterceptors.get(method);
+                    if (chain == null) {
+                        chain = new ArrayList<Interceptor>();
+                        methodInterceptors.put(method, chain);
+                    }
+                    chain.add(interceptor);
+                }
+            }
+        }
+        if (interfaces.isEmpty()) {
+            return new Dispatch(null, Collections.<Method, Interceptor[]>emptyMap());
+        }
+        Map<Method, Interceptor[]> chains = new HashMap<Method, Interceptor[]>();
+        for (Map.Entry<Method, List<Interceptor>> entry : methodInterceptors.entrySet()) {
+            chains.put(entry.getKey(), entry.getValue().toArray(new Interceptor[entry.getValue().size()]));
+        }
+        try {
+            Class<?> proxyClass = Proxy.getProxyClass(type.getClassLoader(), interfaces.toArray(new Class<?>[interfaces.size()]));
+            return new Dispatch(proxyClass.getConstructor(InvocationHandler.class), chains);
+        } catch (NoSuchMethodException e) {
+            throw new PluginException("Could not create the plugin proxy class of " + type.getName() + ". Cause: " + e, e);
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        try {
+            Interceptor[] chain = chains.get(method);
+            if (chain == null) {
+                return method.invoke(target, args);
+            }
+            return chain[0].intercept(new ChainedInvocation(target, method, args, chain, 1));
+        } catch (Exception e) {
+            throw ExceptionUtil.unwrapThrowable(e);
+        }
+    }
+
+    /**
+     * The interceptors of the methods of one target type together with the constructor of its proxy class.
+     */
+    static final class Dispatch {
+
+        private final Constructor<?> proxyConstructor;
+        private final Map<Method, Interceptor[]> chains;
+
+        private Dispatch(Constructor<?> proxyConstructor, Map<Method, Interceptor[]> chains) {
+            this.proxyConstructor = proxyConstructor;
+            this.chains = chains;
+        }
+
+    }
+
+    private static final class ChainedInvocation extends Invocation {
+
+        private final Interceptor[] chain;
+        private final int next;
+
+        private ChainedInvocation(Object target, Method method, Object[] args, Interceptor[] chain, int next) {
+            super(target, method, args);
+            this.chain = chain;
+            this.next = next;
+        }
+
+        @Override
+        public Object proceed() throws InvocationTargetException, IllegalAccessException {
+            if (next == chain.length) {
+                return super.proceed();
+            }
+            try {
+                return chain[next].intercept(new ChainedInvocation(getTarget(), getMethod(), getArgs(), chain, next + 1));
+            } catch (Throwable t) {
+                // 与经过下一层代理时一样，内层拦截器的异常包装在InvocationTargetException中
+                throw new InvocationTargetException(ExceptionUtil.unwrapThrowable(t));
+            }
+        }
+
+    }
+
+}
@@ -18,6 +18,8 @@ package org.apache.ibatis.plugin;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 拦截器链
@@ -28,7 +30,14 @@ public class InterceptorChain {
 
     private final List<Interceptor> interceptors = new ArrayList<Interceptor>();
 
+    // 合并模式下按目标类缓存的拦截器分发表，添加拦截器时清空
+    private final ConcurrentMap<Class<?>, ChainedPlugin.Dispatch> dispatches = new ConcurrentHashMap<Class<?>, ChainedPlugin.Dispatch>();
+    private volatile boolean compiled;
+
     public Object pluginAll(Object target) {
+        if (compiled) {
+            return interceptors.isEmpty() ? target : ChainedPlugin.wrap(target, dispatchFor(target.getClass()));
+        }
         for (Interceptor interceptor : interceptors) {
             target = interceptor.plugin(target);
         }
@@ -37,6 +46,37 @@ public class InterceptorChain {
 
     public void addInterceptor(Interceptor interceptor) {
         interceptors.add(interceptor);
+        dispatches.clear();
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public boolean isCompiled() {
+        return compiled;
+    }
+
+    /**
+     * Sets whether the chain wraps targets in a single proxy dispatching each method to the interceptors whose
+     * {@link Intercepts} signatures declare it, instead of calling {@link Interceptor#plugin(Object)} on every
+     * interceptor. The interceptors then must rely on their signatures only and the target of their
+     * {@link Invocation} is the plugged object itself rather than the next proxy.
+     * @since 3.4.5
+     */
+    public void setCompiled(boolean compiled) {
+        this.compiled = compiled;
+    }
+
+    private ChainedPlugin.Dispatch dispatchFor(Class<?> type) {
+        ChainedPlugin.Dispatch dispatch = dispatches.get(type);
+        if (dispatch == null) {
+            dispatch = ChainedPlugin.compile(type, interceptors);
+            ChainedPlugin.Dispatch existing = dispatches.putIfAbsent(type, dispatch);
+            if (existing != null) {
+                dispatch = existing;
+            }
+        }
+        return dispatch;
     }
 
     // 将interceptors使用装饰者模式，封装为不可编辑的集合返回
@@ -68,7 +68,7 @@ public class Plugin implements InvocationHandler {
         }
     }
 
-    private static Map<Class<?>, Set<Method>> getSignatureMap(Interceptor interceptor) {
+    static Map<Class<?>, Set<Method>> getSignatureMap(Interceptor interceptor) {
         Intercepts interceptsAnnotation = interceptor.getClass().getAnnotation(Intercepts.class);
         // issue #251
         if (interceptsAnnotation == null) {
@@ -94,7 +94,7 @@ public class Plugin implements InvocationHandler {
         return signatureMap;
     }
 
-    private static Class<?>[] getAllInterfaces(Class<?> type, Map<Class<?>, Set<Method>> signatureMap) {
+    static Class<?>[] getAllInterfaces(Class<?> type, Map<Class<?>, Set<Method>> signatureMap) {
         Set<Class<?>> interfaces = new HashSet<Class<?>>();
         while (type != null) {
             for (Class<?> c : type.getInterfaces()) {
@@ -0,0 +1,286 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.lang.UsesJava7;
+import org.apache.ibatis.reflection.invoker.DefaultInvokerFactory;
+import org.apache.ibatis.reflection.invoker.InvokerFactory;
+
+/**
+ * 有容量上限且不会阻止类加载器卸载的反射工厂类
+ *
+ * Reflector factory for long running JVMs where classes come and go with their class loaders (redeploys,
+ * per tenant plugins, ...).
+ * <p>
+ * The reflectors of the classes loaded along with MyBatis or by a child class loader are attached to their classes
+ * through a {@link ClassValue} instead of being kept in a map keyed by class, so the cache never holds such a class
+ * loader reachable: once a loader is unreachable its classes and their reflectors are collected together.
+ * The classes of parent class loaders (the JDK, ...) are kept in a map instead: they outlive MyBatis, and a reflector
+ * attached to them would keep the MyBatis class loader reachable. Classes of unrelated class loaders are kept in a
+ * weakly keyed map, their reflectors being softly referenced as a reflector references its class.
+ * On top of that the number of cached reflectors is bounded, the least recently used ones being evicted
+ * (clock algorithm) when a new one would exceed the maximum size.
+ * <pre>
+ * &lt;reflectorFactory type="org.apache.ibatis.reflection.BoundedReflectorFactory"/&gt;
+ * </pre>
+ *
+ * @since 3.4.5
+ */
+@UsesJava7
+public class BoundedReflectorFactory extends DefaultReflectorFactory {
+
+    public static final int DEFAULT_MAX_SIZE = 2048;
+
+    // 标记值只能是JDK的类，不能让父类加载器的类引用MyBatis的类
+    private static final Boolean CACHED_IN_MAP = Boolean.TRUE;
+    private static final Boolean CACHED_WEAKLY = Boolean.FALSE;
+
+    // 每个Class上挂载的Reflector，类被卸载时一起回收；其他类加载器的类只挂载标记值
+    private final ClassValue<Object> localEntries = new ClassValue<Object>() {
+        @Override
+        protected Object computeValue(Class<?> type) {
+            switch (ClassLoaderScope.of(type)) {
+                case LOCAL:
+                    misses.incrementAndGet();
+                    return new Entry(createReflector(type));
+                case PARENT:
+                    return CACHED_IN_MAP;
+                default:
+                    return CACHED_WEAKLY;
+            }
+        }
+    };
+    // 父类加载器的类比MyBatis存活更久，可以放在Map中
+    private final ConcurrentMap<Class<?>, Entry> parentEntries = new ConcurrentHashMap<Class<?>, Entry>();
+    // 无关类加载器的类：键是弱引用，值是软引用（Reflector引用了类本身），不会阻止类加载器被回收
+    private final Map<Class<?>, Reference<Entry>> foreignEntries = new WeakHashMap<Class<?>, Reference<Entry>>();
+
+    // 已缓存的类，只持有弱引用；按照加入的顺序排列，用于淘汰
+    private final Deque<Reference<Class<?>>> cachedTypes = new ArrayDeque<Reference<Class<?>>>();
+    private final ReferenceQueue<Class<?>> unloadedTypes = new ReferenceQueue<Class<?>>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private volatile int maxSize;
+
+    public BoundedReflectorFactory() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public BoundedReflectorFactory(int maxSize) {
+        this(new DefaultInvokerFactory(), maxSize);
+    }
+
+    public BoundedReflectorFactory(InvokerFactory invokerFactory, int maxSize) {
+        super(invokerFactory);
+        setMaxSize(maxSize);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The maximum size of the reflector cache must be positive but was " + maxSize);
+        }
+        this.maxSize = maxSize;
+        synchronized (cachedTypes) {
+            evict();
+        }
+    }
+
+    @Override
+    public Reflector findForClass(Class<?> type) {
+        if (!isClassCacheEnabled()) {
+            return createReflector(type);
+        }
+        requests.incrementAndGet();
+        Entry entry = getEntry(type, true);
+        if (!entry.registered) {
+            register(type, entry);
+        } else if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry.reflector;
+    }
+
+    /**
+     * Returns the number of lookups answered by a cached reflector.
+     */
+    public long getHitCount() {
+        return requests.get() - misses.get();
+    }
+
+    /**
+     * Returns the number of reflectors that had to be created.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of reflectors removed to keep the cache under its maximum size. Reflectors collected along
+     * with their class loader are not counted.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the number of reflectors currently cached.
+     */
+    public int getSize() {
+        synchronized (cachedTypes) {
+            expungeUnloadedTypes();
+            return cachedTypes.size();
+        }
+    }
+
+    /**
+     * Removes all the cached reflectors.
+     */
+    public void clear() {
+        synchronized (cachedTypes) {
+            Reference<Class<?>> ref;
+            while ((ref = cachedTypes.poll()) != null) {
+                Class<?> type = ref.get();
+                if (type != null) {
+                    removeEntry(type);
+                }
+            }
+            expungeUnloadedTypes();
+        }
+    }
+
+    /**
+     * Returns the cached entry of the type, or a new one when create is true. Entries of the classes of unrelated
+     * class loaders are only created on demand, the other entries are always returned.
+     */
+    private Entry getEntry(Class<?> type, boolean create) {
+        Object value = localEntries.get(type);
+        if (value instanceof Entry) {
+            return (Entry) value;
+        }
+        if (value == CACHED_WEAKLY) {
+            return getForeignEntry(type, create);
+        }
+        Entry entry = parentEntries.get(type);
+        if (entry == null) {
+            entry = new Entry(createReflector(type));
+            Entry existing = parentEntries.putIfAbsent(type, entry);
+            if (existing != null) {
+                entry = existing;
+            } else {
+                misses.incrementAndGet();
+            }
+        }
+        return entry;
+    }
+
+    private Entry getForeignEntry(Class<?> type, boolean create) {
+        synchronized (foreignEntries) {
+            Reference<Entry> ref = foreignEntries.get(type);
+            Entry entry = ref == null ? null : ref.get();
+            if (entry == null && create) {
+                entry = new Entry(createReflector(type));
+                // 软引用被清除的类仍然登记在淘汰队列中，不再重复登记
+                entry.registered = ref != null;
+                foreignEntries.put(type, new SoftReference<Entry>(entry));
+                misses.incrementAndGet();
+            }
+            return entry;
+        }
+    }
+
+    private void removeEntry(Class<?> type) {
+        if (parentEntries.remove(type) != null) {
+            return;
+        }
+        synchronized (foreignEntries) {
+            if (foreignEntries.remove(type) != null) {
+                return;
+            }
+        }
+        localEntries.remove(type);
+    }
+
+    private void register(Class<?> type, Entry entry) {
+        synchronized (cachedTypes) {
+            // 并发计算时ClassValue只保留一个Entry，这里只登记一次
+            if (!entry.registered) {
+                entry.registered = true;
+                expungeUnloadedTypes();
+                cachedTypes.add(new WeakReference<Class<?>>(type, unloadedTypes));
+                evict();
+            }
+        }
+    }
+
+    private void evict() {
+        // clock算法：最近被访问过的类重新排到队尾，未被访问过的类被淘汰
+        int secondChances = cachedTypes.size();
+        while (cachedTypes.size() > maxSize) {
+            Reference<Class<?>> ref = cachedTypes.poll();
+            Class<?> type = ref.get();
+            if (type == null) {
+                continue;
+            }
+            Entry entry = getEntry(type, false);
+            if (entry != null && entry.referenced && secondChances-- > 0) {
+                entry.referenced = false;
+                cachedTypes.add(ref);
+            } else {
+                removeEntry(type);
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private void expungeUnloadedTypes() {
+        Reference<? extends Class<?>> ref;
+        while ((ref = unloadedTypes.poll()) != null) {
+            cachedTypes.remove(ref);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Reflector reflector;
+        private volatile boolean registered;
+        private volatile boolean referenced;
+
+        private Entry(Reflector reflector) {
+            this.reflector = reflector;
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+/**
+ * 类相对于MyBatis类加载器的位置，决定类的缓存方式
+ *
+ * Where the class loader of a class stands relative to the class loader of MyBatis, which tells how metadata about
+ * the class can be cached without keeping a class loader from being collected.
+ *
+ * @since 3.4.5
+ */
+public enum ClassLoaderScope {
+
+    /**
+     * Loaded by the MyBatis class loader or one of its descendants. The class can not outlive MyBatis, so values
+     * referencing MyBatis classes can be attached to it (e.g. through a {@code ClassValue}).
+     */
+    LOCAL,
+
+    /**
+     * Loaded by an ancestor of the MyBatis class loader, or by the bootstrap class loader. The class outlives MyBatis,
+     * so it can be kept in a map owned by MyBatis, but nothing referencing MyBatis classes may be attached to it.
+     */
+    PARENT,
+
+    /**
+     * Loaded by an unrelated class loader, which neither MyBatis nor the class may keep reachable.
+     */
+    FOREIGN;
+
+    private static final ClassLoader MYBATIS_CLASS_LOADER = ClassLoaderScope.class.getClassLoader();
+
+    public static ClassLoaderScope of(Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        if (MYBATIS_CLASS_LOADER == null || isAncestor(MYBATIS_CLASS_LOADER, loader)) {
+            return LOCAL;
+        }
+        if (loader == null || isAncestor(loader, MYBATIS_CLASS_LOADER)) {
+            return PARENT;
+        }
+        return FOREIGN;
+    }
+
+    /**
+     * Returns true if the ancestor is the loader itself or one of its parents.
+     */
+    private static boolean isAncestor(ClassLoader ancestor, ClassLoader loader) {
+        for (ClassLoader current = loader; current != null; current = current.getParent()) {
+            if (current == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -18,6 +18,9 @@ package org.apache.ibatis.reflection;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import org.apache.ibatis.reflection.invoker.DefaultInvokerFactory;
+import org.apache.ibatis.reflection.invoker.InvokerFactory;
+
 /**
  * 默认的反射工厂类实现
  *
@@ -32,7 +35,18 @@ public class DefaultReflectorFactory implements ReflectorFactory {
     // 使用ConcurrentHashMap维护每一个class文件对应一个Reflector
     private final ConcurrentMap<Class<?>, Reflector> reflectorMap = new ConcurrentHashMap<Class<?>, Reflector>();
 
+    // 创建Reflector中属性访问的Invoker
+    private final InvokerFactory invokerFactory;
+
+    // 预先计算的Reflector元数据，为null时每个类都需要反射解析
+    private volatile ReflectorMetadataIndex metadataIndex;
+
     public DefaultReflectorFactory() {
+        this(new DefaultInvokerFactory());
+    }
+
+    public DefaultReflectorFactory(InvokerFactory invokerFactory) {
+        this.invokerFactory = invokerFactory;
     }
 
     @Override
@@ -45,6 +59,21 @@ public class DefaultReflectorFactory implements ReflectorFactory {
         this.classCacheEnabled = classCacheEnabled;
     }
 
+    /**
+     * @since 3.4.5
+     */
+    public ReflectorMetadataIndex getMetadataIndex() {
+        return metadataIndex;
+    }
+
+    /**
+     * Sets the index reflectors are created from. Classes missing from the index are introspected and added to it.
+     * @since 3.4.5
+     */
+    public void setMetadataIndex(ReflectorMetadataIndex metadataIndex) {
+        this.metadataIndex = metadataIndex;
+    }
+
     // eg：type=Configuration.class
     @Override
     public Reflector findForClass(Class<?> type) {
@@ -53,13 +82,35 @@ public class DefaultReflectorFactory implements ReflectorFactory {
             Reflector cached = reflectorMap.get(type);
             // eg：第一次，reflectorMap为空，所以cached一定为null
             if (cached == null) {
-                cached = new Reflector(type); // eg: 初始化Configuration的反射器Reflector
+                cached = createReflector(type); // eg: 初始化Configuration的反射器Reflector
                 reflectorMap.put(type, cached); // eg: 维护到reflectorMap中，key=Configuration.class  value=new Reflector(type)
             }
             return cached;
         } else {
-            return new Reflector(type);
+            return createReflector(type);
+        }
+    }
+
+    /**
+     * Creates a new reflector for the type, using the metadata index when there is one.
+     * @since 3.4.5
+     */
+    protected Reflector createReflector(Class<?> type) {
+        ReflectorMetadataIndex index = metadataIndex;
+        if (index == null) {
+            return new Reflector(type, invokerFactory);
+        }
+        ReflectorMetadata metadata = index.get(type);
+        if (metadata != null) {
+            try {
+                return new Reflector(type, invokerFactory, metadata);
+            } catch (ReflectionException e) {
+                // the index does not match the class, introspect it again
+            }
         }
+        Reflector reflector = new Reflector(type, invokerFactory);
+        index.put(reflector);
+        return reflector;
     }
 
 }
@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.binding.ArrayParamMap;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.reflection.property.PropertyTokenizer;
 import org.apache.ibatis.reflection.wrapper.BeanWrapper;
@@ -26,6 +27,7 @@ import org.apache.ibatis.reflection.wrapper.CollectionWrapper;
 import org.apache.ibatis.reflection.wrapper.MapWrapper;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
+import org.apache.ibatis.reflection.wrapper.ParamMapWrapper;
 
 /**
  * @author Clinton Begin
@@ -60,6 +62,8 @@ public class MetaObject {
             this.objectWrapper = (ObjectWrapper) object;
         } else if (objectWrapperFactory.hasWrapperFor(object)) { // DefaultObjectWrapperFactory默认返回false
             this.objectWrapper = objectWrapperFactory.getWrapperFor(this, object);
+        } else if (object instanceof ArrayParamMap) {
+            this.objectWrapper = new ParamMapWrapper(this, (ArrayParamMap) object);
         } else if (object instanceof Map) {
             this.objectWrapper = new MapWrapper(this, (Map) object);
         } else if (object instanceof Collection) {
@@ -169,6 +173,20 @@ public class MetaObject {
         }
     }
 
+    /**
+     * Same as {@link #getValue(String)} for a path parsed in advance.
+     */
+    public Object getValue(PropertyPath path) {
+        return path.getValue(this);
+    }
+
+    /**
+     * Same as {@link #setValue(String, Object)} for a path parsed in advance.
+     */
+    public void setValue(PropertyPath path, Object value) {
+        path.setValue(this, value);
+    }
+
     public MetaObject metaObjectForProperty(String name) {
         Object value = getValue(name);
         return MetaObject.forObject(value, objectFactory, objectWrapperFactory, reflectorFactory);
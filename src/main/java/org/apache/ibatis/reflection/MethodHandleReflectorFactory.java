@@ -0,0 +1,38 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import org.apache.ibatis.lang.UsesJava7;
+import org.apache.ibatis.reflection.invoker.MethodHandleInvokerFactory;
+
+/**
+ * 使用MethodHandle访问属性的反射工厂类
+ *
+ * Reflector factory whose reflectors access properties through method handles instead of core reflection.
+ * <pre>
+ * &lt;reflectorFactory type="org.apache.ibatis.reflection.MethodHandleReflectorFactory"/&gt;
+ * </pre>
+ *
+ * @since 3.4.5
+ */
+@UsesJava7
+public class MethodHandleReflectorFactory extends DefaultReflectorFactory {
+
+    public MethodHandleReflectorFactory() {
+        super(new MethodHandleInvokerFactory());
+    }
+
+}
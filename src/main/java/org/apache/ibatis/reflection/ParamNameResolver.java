@@ -23,6 +23,7 @@ import java.util.SortedMap;
 import java.util.TreeMap;
 
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.binding.ArrayParamMap;
 import org.apache.ibatis.binding.MapperMethod.ParamMap;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
@@ -51,6 +52,14 @@ public class ParamNameResolver {
     /** 参数是否用@Param注解修饰*/
     private boolean hasParamAnnotation;
 
+    /** 按names的顺序预先计算好的入参下标、参数名和通用参数名（param1, param2, ...，与@Param重名时为null），每次调用时直接打包 */
+    private final int[] argIndexes;
+    private final String[] paramNames;
+    private final String[] genericParamNames;
+
+    /** 开启compactParamMapEnabled时，多个入参打包为以数组保存的ArrayParamMap，参数名到下标的映射只计算一次 */
+    private final ArrayParamMap.Names compactNames;
+
     // eg1: method = public abstract vo.User mapper.UserMapper.getUserById(java.lang.Long)
     /**
      * 解析方法入参，维护到names中。
@@ -112,6 +121,23 @@ public class ParamNameResolver {
         }
         // eg1: names={0:"id"}
         names = Collections.unmodifiableSortedMap(map);
+
+        argIndexes = new int[names.size()];
+        paramNames = new String[names.size()];
+        genericParamNames = new String[names.size()];
+        int i = 0;
+        for (Map.Entry<Integer, String> entry : names.entrySet()) {
+            argIndexes[i] = entry.getKey();
+            paramNames[i] = entry.getValue();
+            /**
+             * add generic param names (param1, param2, ...)
+             * ensure not to overwrite parameter named with @Param
+             */
+            final String genericParamName = GENERIC_NAME_PREFIX + String.valueOf(i + 1);
+            genericParamNames[i] = names.containsValue(genericParamName) ? null : genericParamName;
+            i++;
+        }
+        compactNames = config.isCompactParamMapEnabled() ? new ArrayParamMap.Names(paramNames, genericParamNames) : null;
     }
 
     private String getActualParamName(Method method, int paramIndex) {
@@ -144,7 +170,7 @@ public class ParamNameResolver {
     // eg1:  args = {2L}
     public Object getNamedParams(Object[] args) {
         // eg1: names={0:"id"} paramCount=1
-        final int paramCount = names.size();
+        final int paramCount = argIndexes.length;
         if (args == null || paramCount == 0) {
             return null;
         }
@@ -152,30 +178,24 @@ public class ParamNameResolver {
         // eg1: hasParamAnnotation=true
         /** 如果不包含@Param注解并且只有一个入参*/
         else if (!hasParamAnnotation && paramCount == 1) {
-            return args[names.firstKey()]; // 0 -> "arg0"
+            return args[argIndexes[0]]; // 0 -> "arg0"
+        } else if (compactNames != null) {
+            final Object[] values = new Object[paramCount];
+            for (int i = 0; i < paramCount; i++) {
+                values[i] = args[argIndexes[i]];
+            }
+            return compactNames.newParamMap(values);
         } else {
             final Map<String, Object> param = new ParamMap<>();
-            int i = 0;
-            // eg1: names={0:"id"}
-            for (Map.Entry<Integer, String> entry : names.entrySet()) {
-                // eg1: param.put("id"：2L)     entry.getKey()=0  args[0]=2L
-                param.put(entry.getValue(), args[entry.getKey()]);
-
-                /**
-                 * add generic param names (param1, param2, ...)
-                 */
-                // eg1: genericParamName = "param1"
-                final String genericParamName = GENERIC_NAME_PREFIX + String.valueOf(i + 1);
-
-                /**
-                 * ensure not to overwrite parameter named with @Param
-                 */
-                // eg1: names={0:"id"}  genericParamName = "param1"
-                if (!names.containsValue(genericParamName)) {
+            // eg1: paramNames={"id"}  genericParamNames={"param1"}
+            for (int i = 0; i < paramCount; i++) {
+                // eg1: param.put("id"：2L)     argIndexes[0]=0  args[0]=2L
+                final Object arg = args[argIndexes[i]];
+                param.put(paramNames[i], arg);
+                if (genericParamNames[i] != null) {
                     // eg1: param.put("param1", 2L)
-                    param.put(genericParamName, args[entry.getKey()]);
+                    param.put(genericParamNames[i], arg);
                 }
-                i++;
             }
             // eg1: param={"id": 2L, "param1", 2L}
             return param;
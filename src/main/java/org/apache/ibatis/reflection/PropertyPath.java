@@ -0,0 +1,201 @@
+/**
+ * Copyright 2009-2017 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
+
+/**
+ * 预先解析的属性路径
+ *
+ * A property expression such as <code>order.customer.address.city</code> or <code>items[0].name</code>,
+ * parsed once so it can be evaluated repeatedly. Evaluating it gives the same results as
+ * {@link MetaObject#getValue(String)} and {@link MetaObject#setValue(String, Object)}, but the intermediate
+ * beans and maps are accessed directly instead of being wrapped in a {@link MetaObject} for every segment.
+ */
+public final class PropertyPath {
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private final String path;
+
+    // 每一段属性，eg: "items[0]"，不包含children
+    private final PropertyTokenizer[] segments;
+
+    // 从每一段开始的剩余路径，实例化为null的中间属性时使用
+    private final String[] remainingPaths;
+
+    private PropertyPath(String path) {
+        List<PropertyTokenizer> tokens = new ArrayList<>();
+        List<String> remaining = new ArrayList<>();
+        PropertyTokenizer prop = new PropertyTokenizer(path);
+        String current = path;
+        while (true) {
+            tokens.add(new PropertyTokenizer(prop.getIndexedName()));
+            remaining.add(current);
+            if (!prop.hasNext()) {
+                break;
+            }
+            current = prop.getChildren();
+            prop = prop.next();
+        }
+        this.path = path;
+        this.segments = tokens.toArray(new PropertyTokenizer[tokens.size()]);
+        this.remainingPaths = remaining.toArray(new String[remaining.size()]);
+    }
+
+    public static PropertyPath compile(String path) {
+        return new PropertyPath(path);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the name of the first segment, the one looked up on the root object.
+     */
+    public String getRootName() {
+        return segments[0].getName();
+    }
+
+    public boolean isNested() {
+        return segments.length > 1;
+    }
+
+    /**
+     * Returns the value of the property, or null when an intermediate property is null.
+     */
+    public Object getValue(MetaObject metaObject) {
+        Object value = metaObject.getObjectWrapper().get(segments[0]);
+        for (int i = 1; i < segments.length && value != null; i++) {
+            value = get(metaObject, value, segments[i]);
+        }
+        return value;
+    }
+
+    /**
+     * Sets the value of the property, instantiating the intermediate properties that are null unless the value
+     * is null too.
+     */
+    public void setValue(MetaObject metaObject, Object value) {
+        int last = segments.length - 1;
+        // the meta object of the current object, only created when the object has to be wrapped anyway
+        MetaObject currentMetaObject = metaObject;
+        Object current = null;
+        for (int i = 0; i < last; i++) {
+            Object child = currentMetaObject != null
+                    ? currentMetaObject.getObjectWrapper().get(segments[i])
+                    : get(metaObject, current, segments[i]);
+            if (child == null) {
+                if (value == null) {
+                    // don't instantiate child path if value is null
+                    return;
+                }
+                if (currentMetaObject == null) {
+                    currentMetaObject = forObject(metaObject, current);
+                }
+                currentMetaObject = currentMetaObject.getObjectWrapper().instantiatePropertyValue(remainingPaths[i],
+                        new PropertyTokenizer(remainingPaths[i]), metaObject.getObjectFactory());
+            } else {
+                current = child;
+                currentMetaObject = null;
+            }
+        }
+        if (currentMetaObject != null) {
+            currentMetaObject.getObjectWrapper().set(segments[last], value);
+        } else {
+            set(metaObject, current, segments[last], value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    private static Object get(MetaObject root, Object object, PropertyTokenizer segment) {
+        if (isUnwrapped(root, object, segment)) {
+            if (object instanceof Map) {
+                return ((Map<?, ?>) object).get(segment.getName());
+            }
+            Invoker method = getReflector(root, object).getGetInvoker(segment.getName());
+            try {
+                try {
+                    return method.invoke(object, NO_ARGUMENTS);
+                } catch (Throwable t) {
+                    throw ExceptionUtil.unwrapThrowable(t);
+                }
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new ReflectionException("Could not get property '" + segment.getName() + "' from "
+                        + object.getClass() + ".  Cause: " + t.toString(), t);
+            }
+        }
+        return forObject(root, object).getObjectWrapper().get(segment);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void set(MetaObject root, Object object, PropertyTokenizer segment, Object value) {
+        if (isUnwrapped(root, object, segment)) {
+            if (object instanceof Map) {
+                ((Map<String, Object>) object).put(segment.getName(), value);
+                return;
+            }
+            try {
+                Invoker method = getReflector(root, object).getSetInvoker(segment.getName());
+                try {
+                    method.invoke(object, new Object[] {value});
+                } catch (Throwable t) {
+                    throw ExceptionUtil.unwrapThrowable(t);
+                }
+            } catch (Throwable t) {
+                throw new ReflectionException("Could not set property '" + segment.getName() + "' of '"
+                        + object.getClass() + "' with value '" + value + "' Cause: " + t.toString(), t);
+            }
+            return;
+        }
+        forObject(root, object).getObjectWrapper().set(segment, value);
+    }
+
+    /**
+     * Whether the object would be wrapped by a {@link org.apache.ibatis.reflection.wrapper.BeanWrapper} or a
+     * {@link org.apache.ibatis.reflection.wrapper.MapWrapper}, and the segment is a plain property of it.
+     */
+    private static boolean isUnwrapped(MetaObject root, Object object, PropertyTokenizer segment) {
+        return segment.getIndex() == null
+                && !(object instanceof ObjectWrapper)
+                && !(object instanceof Collection)
+                && !root.getObjectWrapperFactory().hasWrapperFor(object);
+    }
+
+    private static Reflector getReflector(MetaObject root, Object object) {
+        return root.getReflectorFactory().findForClass(object.getClass());
+    }
+
+    private static MetaObject forObject(MetaObject root, Object object) {
+        return MetaObject.forObject(object, root.getObjectFactory(), root.getObjectWrapperFactory(),
+                root.getReflectorFactory());
+    }
+
+}
@@ -15,10 +15,12 @@
  */
 package org.apache.ibatis.reflection;
 
+import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
@@ -32,8 +34,11 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.apache.ibatis.reflection.invoker.DefaultInvokerFactory;
 import org.apache.ibatis.reflection.invoker.GetFieldInvoker;
 import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.InvokerFactory;
+import org.apache.ibatis.reflection.invoker.MethodHandleInvoker;
 import org.apache.ibatis.reflection.invoker.MethodInvoker;
 import org.apache.ibatis.reflection.invoker.SetFieldInvoker;
 import org.apache.ibatis.reflection.property.PropertyNamer;
@@ -49,6 +54,10 @@ import org.apache.ibatis.reflection.property.PropertyNamer;
 public class Reflector {
 
     private static final String[] EMPTY_STRING_ARRAY = new String[0];
+    private static final InvokerFactory DEFAULT_INVOKER_FACTORY = new DefaultInvokerFactory();
+
+    // 创建属性访问的Invoker
+    private final InvokerFactory invokerFactory;
 
     // 需要反射的Class
     private Class<?> type;
@@ -68,11 +77,96 @@ public class Reflector {
     private Map<String, String> caseInsensitivePropertyMap = new HashMap<>();
 
     public Reflector(Class<?> clazz) {
+        this(clazz, DEFAULT_INVOKER_FACTORY);
+    }
+
+    public Reflector(Class<?> clazz, InvokerFactory invokerFactory) {
+        this.invokerFactory = invokerFactory;
         type = clazz;
         addDefaultConstructor(clazz);
         addGetMethods(clazz);
         addSetMethods(clazz);
         addFields(clazz);
+        addPropertyNames();
+    }
+
+    /**
+     * Creates the reflector from precomputed metadata instead of introspecting the class.
+     *
+     * @throws ReflectionException if a method or field of the metadata does not exist
+     * @since 3.4.5
+     */
+    public Reflector(Class<?> clazz, InvokerFactory invokerFactory, ReflectorMetadata metadata) {
+        this.invokerFactory = invokerFactory;
+        type = clazz;
+        addDefaultConstructor(clazz);
+        boolean canAccessPrivateMethods = canAccessPrivateMethods();
+        for (ReflectorMetadata.Property property : metadata.getGetters()) {
+            Member member = resolveMember(property, canAccessPrivateMethods);
+            if (member instanceof Method) {
+                addGetMethod(property.getName(), (Method) member);
+            } else {
+                addGetField((Field) member);
+            }
+        }
+        for (ReflectorMetadata.Property property : metadata.getSetters()) {
+            Member member = resolveMember(property, canAccessPrivateMethods);
+            if (member instanceof Method) {
+                addSetMethod(property.getName(), (Method) member);
+            } else {
+                addSetField((Field) member);
+            }
+        }
+        addPropertyNames();
+    }
+
+    private Member resolveMember(ReflectorMetadata.Property property, boolean canAccessPrivateMethods) {
+        Member member = property.resolve(type);
+        if (canAccessPrivateMethods) {
+            try {
+                ((AccessibleObject) member).setAccessible(true);
+            } catch (Exception e) {
+                // Ignored. This is only a final precaution, nothing we can do.
+            }
+        }
+        return member;
+    }
+
+    /**
+     * Returns the metadata to create this reflector again, or null when an invoker does not tell which method or
+     * field it accesses (invokers of a custom {@link InvokerFactory}).
+     */
+    ReflectorMetadata getMetadata(long classHash) {
+        Map<String, Member> getMembers = members(getMethods);
+        Map<String, Member> setMembers = members(setMethods);
+        if (getMembers == null || setMembers == null) {
+            return null;
+        }
+        return new ReflectorMetadata(type.getName(), classHash, getMembers, setMembers);
+    }
+
+    private static Map<String, Member> members(Map<String, Invoker> invokers) {
+        Map<String, Member> members = new HashMap<>();
+        for (Map.Entry<String, Invoker> entry : invokers.entrySet()) {
+            Invoker invoker = entry.getValue();
+            Member member;
+            if (invoker instanceof MethodInvoker) {
+                member = ((MethodInvoker) invoker).getMethod();
+            } else if (invoker instanceof GetFieldInvoker) {
+                member = ((GetFieldInvoker) invoker).getField();
+            } else if (invoker instanceof SetFieldInvoker) {
+                member = ((SetFieldInvoker) invoker).getField();
+            } else if (invoker instanceof MethodHandleInvoker) {
+                member = ((MethodHandleInvoker) invoker).getMember();
+            } else {
+                return null;
+            }
+            members.put(entry.getKey(), member);
+        }
+        return members;
+    }
+
+    private void addPropertyNames() {
         readablePropertyNames = getMethods.keySet().toArray(new String[getMethods.keySet().size()]);
         writeablePropertyNames = setMethods.keySet().toArray(new String[setMethods.keySet().size()]);
         for (String propName : readablePropertyNames) {
@@ -191,7 +285,7 @@ public class Reflector {
 
     private void addGetMethod(String name, Method method) {
         if (isValidPropertyName(name)) {
-            getMethods.put(name, new MethodInvoker(method));
+            getMethods.put(name, invokerFactory.createMethodInvoker(method));
             Type returnType = TypeParameterResolver.resolveReturnType(method, type);
             getTypes.put(name, typeToClass(returnType));
         }
@@ -270,7 +364,7 @@ public class Reflector {
 
     private void addSetMethod(String name, Method method) {
         if (isValidPropertyName(name)) {
-            setMethods.put(name, new MethodInvoker(method));
+            setMethods.put(name, invokerFactory.createMethodInvoker(method));
             Type[] paramTypes = TypeParameterResolver.resolveParamTypes(method, type);
             setTypes.put(name, typeToClass(paramTypes[0]));
         }
@@ -345,7 +439,7 @@ public class Reflector {
 
     private void addSetField(Field field) {
         if (isValidPropertyName(field.getName())) {
-            setMethods.put(field.getName(), new SetFieldInvoker(field));
+            setMethods.put(field.getName(), invokerFactory.createSetFieldInvoker(field));
             Type fieldType = TypeParameterResolver.resolveFieldType(field, type);
             setTypes.put(field.getName(), typeToClass(fieldType));
         }
@@ -353,7 +447,7 @@ public class Reflector {
 
     private void addGetField(Field field) {
         if (isValidPropertyName(field.getName())) {
-            getMethods.put(field.getName(), new GetFieldInvoker(field));
+            getMethods.put(field.getName(), invokerFactory.createGetFieldInvoker(field));
             Type fieldType = TypeParameterResolver.resolveFieldType(field, type);
             getTypes.put(field.getName(), typeToClass(fieldType));
         }
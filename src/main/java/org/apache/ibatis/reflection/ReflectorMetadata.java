@@ -0,0 +1,241 @@
+/**
+ * Copyright 2009-2017 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预先计算的Reflector属性表
+ *
+ * The getters and setters a {@link Reflector} found for a class, stored by name so a reflector can be created
+ * again without walking the class hierarchy and resolving conflicting methods.
+ *
+ * @since 3.4.5
+ */
+public final class ReflectorMetadata {
+
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<String, Class<?>>();
+
+    static {
+        for (Class<?> primitive : new Class<?>[] {boolean.class, byte.class, char.class, short.class, int.class,
+                long.class, float.class, double.class}) {
+            PRIMITIVE_TYPES.put(primitive.getName(), primitive);
+        }
+    }
+
+    private final String typeName;
+    private final long classHash;
+    private final List<Property> getters;
+    private final List<Property> setters;
+
+    ReflectorMetadata(String typeName, long classHash, Map<String, Member> getMembers,
+                      Map<String, Member> setMembers) {
+        this.typeName = typeName;
+        this.classHash = classHash;
+        this.getters = toProperties(getMembers);
+        this.setters = toProperties(setMembers);
+    }
+
+    private ReflectorMetadata(String typeName, long classHash, List<Property> getters, List<Property> setters) {
+        this.typeName = typeName;
+        this.classHash = classHash;
+        this.getters = getters;
+        this.setters = setters;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * The hash of the class files this metadata was computed from.
+     */
+    public long getClassHash() {
+        return classHash;
+    }
+
+    List<Property> getGetters() {
+        return getters;
+    }
+
+    List<Property> getSetters() {
+        return setters;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeUTF(typeName);
+        out.writeLong(classHash);
+        writeProperties(out, getters);
+        writeProperties(out, setters);
+    }
+
+    static ReflectorMetadata read(DataInput in) throws IOException {
+        return new ReflectorMetadata(in.readUTF(), in.readLong(), readProperties(in), readProperties(in));
+    }
+
+    private static void writeProperties(DataOutput out, List<Property> properties) throws IOException {
+        out.writeInt(properties.size());
+        for (Property property : properties) {
+            property.write(out);
+        }
+    }
+
+    private static List<Property> readProperties(DataInput in) throws IOException {
+        int size = in.readInt();
+        List<Property> properties = new ArrayList<Property>(size);
+        for (int i = 0; i < size; i++) {
+            properties.add(Property.read(in));
+        }
+        return properties;
+    }
+
+    private static List<Property> toProperties(Map<String, Member> members) {
+        List<Property> properties = new ArrayList<Property>(members.size());
+        for (Map.Entry<String, Member> entry : members.entrySet()) {
+            properties.add(new Property(entry.getKey(), entry.getValue()));
+        }
+        return properties;
+    }
+
+    /**
+     * A property and the method or field that accesses it.
+     */
+    static final class Property {
+
+        private final String name;
+        private final String declaringClass;
+        private final String memberName;
+        // null for a field
+        private final String[] parameterTypes;
+
+        Property(String name, Member member) {
+            this.name = name;
+            this.declaringClass = member.getDeclaringClass().getName();
+            this.memberName = member.getName();
+            if (member instanceof Method) {
+                Class<?>[] types = ((Method) member).getParameterTypes();
+                parameterTypes = new String[types.length];
+                for (int i = 0; i < types.length; i++) {
+                    parameterTypes[i] = types[i].getName();
+                }
+            } else {
+                parameterTypes = null;
+            }
+        }
+
+        private Property(String name, String declaringClass, String memberName, String[] parameterTypes) {
+            this.name = name;
+            this.declaringClass = declaringClass;
+            this.memberName = memberName;
+            this.parameterTypes = parameterTypes;
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeUTF(name);
+            out.writeUTF(declaringClass);
+            out.writeUTF(memberName);
+            // -1 for a field
+            out.writeInt(parameterTypes == null ? -1 : parameterTypes.length);
+            if (parameterTypes != null) {
+                for (String parameterType : parameterTypes) {
+                    out.writeUTF(parameterType);
+                }
+            }
+        }
+
+        static Property read(DataInput in) throws IOException {
+            String name = in.readUTF();
+            String declaringClass = in.readUTF();
+            String memberName = in.readUTF();
+            int count = in.readInt();
+            String[] parameterTypes = count < 0 ? null : new String[count];
+            for (int i = 0; i < count; i++) {
+                parameterTypes[i] = in.readUTF();
+            }
+            return new Property(name, declaringClass, memberName, parameterTypes);
+        }
+
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Looks up the member on the given type or one of its supertypes.
+         */
+        Member resolve(Class<?> type) {
+            Class<?> declaring = findDeclaringClass(type);
+            try {
+                if (declaring == null) {
+                    throw new ClassNotFoundException(declaringClass);
+                }
+                if (parameterTypes == null) {
+                    return declaring.getDeclaredField(memberName);
+                }
+                Class<?>[] types = new Class<?>[parameterTypes.length];
+                for (int i = 0; i < types.length; i++) {
+                    types[i] = classForName(parameterTypes[i], declaring.getClassLoader());
+                }
+                return declaring.getDeclaredMethod(memberName, types);
+            } catch (Exception e) {
+                throw new ReflectionException("Could not find the member for property '" + name + "' of " + type
+                        + " in the reflector metadata.  Cause: " + e, e);
+            }
+        }
+
+        private Class<?> findDeclaringClass(Class<?> type) {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                if (current.getName().equals(declaringClass)) {
+                    return current;
+                }
+                Class<?> found = findInterface(current.getInterfaces());
+                if (found != null) {
+                    return found;
+                }
+            }
+            return null;
+        }
+
+        private Class<?> findInterface(Class<?>[] interfaces) {
+            for (Class<?> anInterface : interfaces) {
+                if (anInterface.getName().equals(declaringClass)) {
+                    return anInterface;
+                }
+                Class<?> found = findInterface(anInterface.getInterfaces());
+                if (found != null) {
+                    return found;
+                }
+            }
+            return null;
+        }
+
+        private static Class<?> classForName(String name, ClassLoader classLoader) throws ClassNotFoundException {
+            Class<?> primitive = PRIMITIVE_TYPES.get(name);
+            if (primitive != null) {
+                return primitive;
+            }
+            return Class.forName(name, false, classLoader);
+        }
+    }
+
+}
@@ -0,0 +1,289 @@
+/**
+ * Copyright 2009-2017 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * Reflector元数据索引
+ *
+ * Index of {@link ReflectorMetadata} by class name, so {@link DefaultReflectorFactory} can create reflectors
+ * without introspecting the classes again. It can be generated at build time with {@link #add(Class)} or filled
+ * on the first run by the reflector factory, then stored and loaded on the next start:
+ * <pre>
+ * ReflectorMetadataIndex index = file.exists() ? ReflectorMetadataIndex.load(in) : new ReflectorMetadataIndex();
+ * ((DefaultReflectorFactory) configuration.getReflectorFactory()).setMetadataIndex(index);
+ * ...
+ * if (index.isModified()) {
+ *   index.store(out);
+ * }
+ * </pre>
+ * An entry is only used when the class and its superclasses and interfaces come from the same builds. A jar is
+ * identified once by its path, size and modification time; a class loaded from a directory (exploded classes during
+ * development) the same way by its class file. Classes without a code source or class file (generated classes) are
+ * not indexed.
+ *
+ * @since 3.4.5
+ */
+public class ReflectorMetadataIndex {
+
+    private static final int FORMAT_VERSION = 2;
+    // the code source is not a jar file, its classes are hashed one by one
+    private static final long DIRECTORY = -1;
+
+    private final ConcurrentMap<String, ReflectorMetadata> entries = new ConcurrentHashMap<String, ReflectorMetadata>();
+    // 每个jar包的哈希只计算一次；目录中的类记为DIRECTORY，按类文件计算
+    private final ConcurrentMap<String, Long> codeSourceHashes = new ConcurrentHashMap<String, Long>();
+    // weak, so the index does not keep class loaders alive
+    private final Map<Class<?>, Long> classFileHashes = Collections.synchronizedMap(new WeakHashMap<Class<?>, Long>());
+    private volatile boolean modified;
+
+    /**
+     * Returns the metadata of the class, or null when it is not indexed or the class has changed.
+     */
+    public ReflectorMetadata get(Class<?> type) {
+        ReflectorMetadata metadata = entries.get(type.getName());
+        if (metadata == null) {
+            return null;
+        }
+        long hash = classHash(type);
+        return hash != 0 && hash == metadata.getClassHash() ? metadata : null;
+    }
+
+    /**
+     * Adds the metadata of a reflector, if the origin of its type is known and its invokers tell which members they
+     * access.
+     */
+    public void put(Reflector reflector) {
+        Class<?> type = reflector.getType();
+        long hash = classHash(type);
+        if (hash == 0) {
+            return;
+        }
+        ReflectorMetadata metadata = reflector.getMetadata(hash);
+        if (metadata != null) {
+            entries.put(type.getName(), metadata);
+            modified = true;
+        }
+    }
+
+    /**
+     * Introspects the class and adds its metadata.
+     */
+    public void add(Class<?> type) {
+        put(new Reflector(type));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Whether entries were added since the index was created or loaded.
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    public void store(OutputStream outputStream) throws IOException {
+        // 只包含名称的简单二进制格式，加载比Java序列化快得多
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(javaVersion());
+        Collection<ReflectorMetadata> metadata = new ArrayList<ReflectorMetadata>(entries.values());
+        out.writeInt(metadata.size());
+        for (ReflectorMetadata entry : metadata) {
+            entry.write(out);
+        }
+        out.flush();
+        modified = false;
+    }
+
+    /**
+     * Loads a stored index. An index stored by another format version or Java version returns an empty index.
+     */
+    public static ReflectorMetadataIndex load(InputStream inputStream) throws IOException {
+        ReflectorMetadataIndex index = new ReflectorMetadataIndex();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() == FORMAT_VERSION && in.readUTF().equals(javaVersion())) {
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                ReflectorMetadata metadata = ReflectorMetadata.read(in);
+                index.entries.put(metadata.getTypeName(), metadata);
+            }
+        }
+        return index;
+    }
+
+    private static String javaVersion() {
+        return String.valueOf(System.getProperty("java.version"));
+    }
+
+    /**
+     * Combines the hashes of the jars or class files of the type, its superclasses and interfaces. The classes of the
+     * JDK are left out. Returns 0 when the origin of a class is unknown.
+     */
+    private long classHash(Class<?> type) {
+        long hash = 17;
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            long classHash = classAndInterfacesHash(current);
+            if (classHash == 0) {
+                return 0;
+            }
+            hash = 31 * hash + classHash;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private long classAndInterfacesHash(Class<?> type) {
+        long hash = classFileHash(type);
+        for (Class<?> anInterface : type.getInterfaces()) {
+            long interfaceHash = classAndInterfacesHash(anInterface);
+            if (hash == 0 || interfaceHash == 0) {
+                return 0;
+            }
+            hash = 31 * hash + interfaceHash;
+        }
+        return hash;
+    }
+
+    private long classFileHash(Class<?> type) {
+        if (type.getClassLoader() == null) {
+            // JDK class
+            return 1;
+        }
+        URL location = codeSourceLocation(type);
+        if (location == null) {
+            return 0;
+        }
+        String key = location.toString();
+        Long hash = codeSourceHashes.get(key);
+        if (hash == null) {
+            hash = codeSourceHash(location);
+            codeSourceHashes.put(key, hash);
+        }
+        if (hash != DIRECTORY) {
+            return hash;
+        }
+        Long cached = classFileHashes.get(type);
+        if (cached == null) {
+            cached = readClassFileHash(type, location);
+            classFileHashes.put(type, cached);
+        }
+        return cached;
+    }
+
+    private static URL codeSourceLocation(Class<?> type) {
+        try {
+            CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+            return codeSource == null ? null : codeSource.getLocation();
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+
+    private static long codeSourceHash(URL location) {
+        File file = toFile(location);
+        return file != null && file.isFile() ? fileHash(file) : DIRECTORY;
+    }
+
+    /**
+     * Hashes a class that does not come from a jar file: a class file under a directory is identified like a jar,
+     * without asking the class loader for it, other class files are read.
+     */
+    private static long readClassFileHash(Class<?> type, URL location) {
+        String name = type.getName();
+        File directory = toFile(location);
+        if (directory != null) {
+            File file = new File(directory, name.replace('.', File.separatorChar) + ".class");
+            if (file.isFile()) {
+                return fileHash(file);
+            }
+        }
+        URL resource = type.getResource(name.substring(name.lastIndexOf('.') + 1) + ".class");
+        if (resource == null) {
+            return 0;
+        }
+        InputStream in = null;
+        try {
+            in = resource.openStream();
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, n);
+            }
+            return nonZero(crc.getValue());
+        } catch (IOException e) {
+            return 0;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private static File toFile(URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Identifies a file by its path, size and modification time, which change whenever it is rebuilt or replaced,
+     * without reading it.
+     */
+    private static long fileHash(File file) {
+        CRC32 crc = new CRC32();
+        crc.update(file.getAbsolutePath().getBytes());
+        long hash = 31 * crc.getValue() + file.length();
+        return nonZero(31 * hash + file.lastModified());
+    }
+
+    /**
+     * Never 0, which means unknown, nor {@link #DIRECTORY}.
+     */
+    private static long nonZero(long hash) {
+        return hash == 0 || hash == DIRECTORY ? 1 : hash;
+    }
+
+}
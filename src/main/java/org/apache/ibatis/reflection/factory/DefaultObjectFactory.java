@@ -16,6 +16,11 @@
 package org.apache.ibatis.reflection.factory;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -27,7 +32,12 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import org.apache.ibatis.lang.UsesJava7;
+import org.apache.ibatis.reflection.ClassLoaderScope;
 import org.apache.ibatis.reflection.ReflectionException;
 
 /**
@@ -37,10 +47,14 @@ import org.apache.ibatis.reflection.ReflectionException;
  * @author Clinton Begin
  * @modify muse
  */
+@UsesJava7
 public class DefaultObjectFactory implements ObjectFactory, Serializable {
 
     private static final long serialVersionUID = -8855120656740914948L;
 
+    // 每个类型已经查找过的构造方法，避免每创建一个对象都查找并设置一次构造方法
+    private transient ConstructorCache constructorCache;
+
     // eg1: type = List.class
     // eg1: type=User.class
     @Override
@@ -82,27 +96,17 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
     // eg1: type=ArrayList.class constructorArgTypes=null constructorArgs=null
     <T> T instantiateClass(Class<T> type, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
         try {
-            Constructor<T> constructor;
-
             // eg1: constructorArgTypes=null constructorArgs=null
             /** 如果是调用无参数的默认构造方法 */
             if (constructorArgTypes == null || constructorArgs == null) {
                 // eg1: type=ArrayList.class
-                constructor = type.getDeclaredConstructor(); /** 取得默认构造方法对象 */
-                if (!constructor.isAccessible()) {
-                    /** 为反射对象设置可访问标志，flag为true表明屏蔽Java语言的访问检查，使得对象的私有属性也可以被查询和设置 */
-                    constructor.setAccessible(true);
-                }
-                return constructor.newInstance(); /** 生成实例 */
+                return getConstructors(type).newInstance(); /** 生成实例 */
             }
 
             /** 调用有参数的构造方法 */
-            constructor = type.getDeclaredConstructor(constructorArgTypes.toArray(new Class[constructorArgTypes.size()]));
-            if (!constructor.isAccessible()) {
-                constructor.setAccessible(true);
-            }
-            return constructor.newInstance(constructorArgs.toArray(new Object[constructorArgs.size()])); // 生成实例
-        } catch (Exception e) {
+            return getConstructors(type).newInstance(constructorArgTypes,
+                    constructorArgs.toArray(new Object[constructorArgs.size()])); // 生成实例
+        } catch (Throwable e) {
             StringBuilder argTypes = new StringBuilder();
             if (constructorArgTypes != null && !constructorArgTypes.isEmpty()) {
                 for (Class<?> argType : constructorArgTypes) {
@@ -125,6 +129,135 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
         }
     }
 
+    <T> TypeConstructors<T> getConstructors(Class<T> type) {
+        ConstructorCache cache = constructorCache;
+        if (cache == null) {
+            // created lazily, the cache is not serialized
+            cache = new ConstructorCache();
+            constructorCache = cache;
+        }
+        return cache.get(type);
+    }
+
+    /**
+     * The constructors looked up so far, by type. They are attached to the classes loaded along with MyBatis or by a
+     * child class loader through a {@link ClassValue}, so the cache never keeps these classes from being unloaded.
+     * The classes of parent class loaders (the JDK collections, ...) outlive MyBatis and are kept in a map instead,
+     * a value attached to them would keep the MyBatis class loader reachable. Classes of unrelated class loaders are
+     * kept in a weakly keyed map, the constructors being softly referenced as they reference their class.
+     */
+    @UsesJava7
+    private static final class ConstructorCache {
+
+        // 标记值只能是JDK的类，不能让父类加载器的类引用MyBatis的类
+        private static final Boolean CACHED_IN_MAP = Boolean.TRUE;
+        private static final Boolean CACHED_WEAKLY = Boolean.FALSE;
+
+        private final ClassValue<Object> localConstructors = new ClassValue<Object>() {
+            @Override
+            protected Object computeValue(Class<?> type) {
+                switch (ClassLoaderScope.of(type)) {
+                    case LOCAL:
+                        return new TypeConstructors<Object>(type);
+                    case PARENT:
+                        return CACHED_IN_MAP;
+                    default:
+                        return CACHED_WEAKLY;
+                }
+            }
+        };
+        private final ConcurrentMap<Class<?>, TypeConstructors<?>> parentConstructors =
+                new ConcurrentHashMap<Class<?>, TypeConstructors<?>>();
+        // 无关类加载器的类：键是弱引用，值是软引用（值引用了类本身），不会阻止类加载器被回收
+        private final Map<Class<?>, Reference<TypeConstructors<?>>> foreignConstructors =
+                new WeakHashMap<Class<?>, Reference<TypeConstructors<?>>>();
+
+        @SuppressWarnings("unchecked")
+        <T> TypeConstructors<T> get(Class<T> type) {
+            Object value = localConstructors.get(type);
+            if (value instanceof TypeConstructors) {
+                return (TypeConstructors<T>) value;
+            }
+            if (value == CACHED_WEAKLY) {
+                return getForeign(type);
+            }
+            TypeConstructors<T> constructors = (TypeConstructors<T>) parentConstructors.get(type);
+            if (constructors == null) {
+                constructors = new TypeConstructors<T>(type);
+                TypeConstructors<T> existing = (TypeConstructors<T>) parentConstructors.putIfAbsent(type, constructors);
+                if (existing != null) {
+                    constructors = existing;
+                }
+            }
+            return constructors;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> TypeConstructors<T> getForeign(Class<T> type) {
+            synchronized (foreignConstructors) {
+                Reference<TypeConstructors<?>> ref = foreignConstructors.get(type);
+                TypeConstructors<T> constructors = ref == null ? null : (TypeConstructors<T>) ref.get();
+                if (constructors == null) {
+                    constructors = new TypeConstructors<T>(type);
+                    foreignConstructors.put(type, new SoftReference<TypeConstructors<?>>(constructors));
+                }
+                return constructors;
+            }
+        }
+    }
+
+    /**
+     * The accessible constructors of a type, looked up on first use and invoked through method handles adapted to
+     * <code>(Object[])Object</code>, which avoid the access checks and argument copying of core reflection.
+     */
+    @UsesJava7
+    private static final class TypeConstructors<T> {
+
+        private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+        private final Class<?> type;
+        private volatile MethodHandle defaultConstructor;
+        private final ConcurrentMap<List<Class<?>>, MethodHandle> constructors =
+                new ConcurrentHashMap<List<Class<?>>, MethodHandle>();
+
+        TypeConstructors(Class<?> type) {
+            this.type = type;
+        }
+
+        @SuppressWarnings("unchecked")
+        T newInstance() throws Throwable {
+            MethodHandle constructor = defaultConstructor;
+            if (constructor == null) {
+                /** 取得默认构造方法对象 */
+                constructor = unreflect(type.getDeclaredConstructor()).asType(MethodType.methodType(Object.class));
+                defaultConstructor = constructor;
+            }
+            return (T) (Object) constructor.invokeExact();
+        }
+
+        @SuppressWarnings("unchecked")
+        T newInstance(List<Class<?>> constructorArgTypes, Object[] args) throws Throwable {
+            MethodHandle constructor = constructors.get(constructorArgTypes);
+            if (constructor == null) {
+                int count = constructorArgTypes.size();
+                constructor = unreflect(type.getDeclaredConstructor(constructorArgTypes.toArray(new Class[count])))
+                        .asType(MethodType.genericMethodType(count))
+                        .asSpreader(Object[].class, count);
+                // the argument types list of the caller may be reused, keep a copy
+                constructors.put(new ArrayList<Class<?>>(constructorArgTypes), constructor);
+            }
+            return (T) (Object) constructor.invokeExact(args);
+        }
+
+        private static MethodHandle unreflect(Constructor<?> constructor) throws IllegalAccessException {
+            if (!constructor.isAccessible()) {
+                /** 为反射对象设置可访问标志，flag为true表明屏蔽Java语言的访问检查，使得对象的私有属性也可以被查询和设置 */
+                constructor.setAccessible(true);
+            }
+            return LOOKUP.unreflectConstructor(constructor);
+        }
+    }
+
     /**
      * 对类型进行映射转换
      *
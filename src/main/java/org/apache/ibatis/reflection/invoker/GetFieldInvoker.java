@@ -37,4 +37,11 @@ public class GetFieldInvoker implements Invoker {
   public Class<?> getType() {
     return field.getType();
   }
+
+  /**
+   * @since 3.4.5
+   */
+  public Field getField() {
+    return field;
+  }
 }
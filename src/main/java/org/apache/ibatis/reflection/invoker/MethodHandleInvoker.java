@@ -0,0 +1,80 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Modifier;
+
+import org.apache.ibatis.lang.UsesJava7;
+
+/**
+ * Invokes a method handle adapted to <code>(Object, Object[])Object</code>, so the call is an exact invocation
+ * without the access checks and argument copying of core reflection.
+ * Errors are reported as core reflection does: the handle is expected to wrap the exceptions thrown by the
+ * method in an {@link InvocationTargetException} (see {@link MethodHandleInvokerFactory}), a target or arguments
+ * that do not match the member raise an {@link IllegalArgumentException} and a null target for an instance member
+ * raises a {@link NullPointerException}.
+ */
+@UsesJava7
+public class MethodHandleInvoker implements Invoker {
+
+  private final MethodHandle handle;
+  private final Member member;
+  private final Class<?> type;
+  private final boolean instanceMember;
+
+  public MethodHandleInvoker(MethodHandle handle, Member member, Class<?> type) {
+    this.handle = handle;
+    this.member = member;
+    this.type = type;
+    this.instanceMember = !Modifier.isStatic(member.getModifiers());
+  }
+
+  @Override
+  public Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+    if (target == null && instanceMember) {
+      throw new NullPointerException("Cannot access " + member + " on a null target");
+    }
+    try {
+      return (Object) handle.invokeExact(target, args);
+    } catch (InvocationTargetException e) {
+      throw e;
+    } catch (IllegalArgumentException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      // ClassCastException, WrongMethodTypeException or NullPointerException adapting the target or the arguments
+      throw new IllegalArgumentException("Cannot invoke " + member + " with the given arguments.  Cause: " + e, e);
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalArgumentException("Cannot invoke " + member + ".  Cause: " + t, t);
+    }
+  }
+
+  /**
+   * Returns the method or field the handle was looked up for.
+   */
+  public Member getMember() {
+    return member;
+  }
+
+  @Override
+  public Class<?> getType() {
+    return type;
+  }
+}
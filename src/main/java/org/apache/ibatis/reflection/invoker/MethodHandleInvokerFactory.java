@@ -0,0 +1,108 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.apache.ibatis.lang.UsesJava7;
+
+/**
+ * Creates {@link MethodHandleInvoker}s. Members a public lookup can not access (the reflector could not make
+ * them accessible) are still invoked through core reflection.
+ * The exceptions thrown by a method are wrapped in an {@link InvocationTargetException} right around the direct
+ * method handle, before the argument adaptations, so the invoker can tell them from invocation errors.
+ */
+@UsesJava7
+public class MethodHandleInvokerFactory implements InvokerFactory {
+
+  private static final MethodType GETTER_TYPE = MethodType.genericMethodType(1);
+  private static final MethodType SETTER_TYPE = MethodType.genericMethodType(2);
+
+  private static final MethodHandle WRAP_TARGET_EXCEPTION;
+
+  static {
+    try {
+      WRAP_TARGET_EXCEPTION = MethodHandles.lookup().findStatic(MethodHandleInvokerFactory.class,
+          "wrapTargetException", MethodType.methodType(Object.class, Throwable.class));
+    } catch (Exception e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+  private final InvokerFactory fallback = new DefaultInvokerFactory();
+
+  @Override
+  public Invoker createMethodInvoker(Method method) {
+    MethodHandle handle;
+    try {
+      handle = lookup.unreflect(method).asFixedArity();
+    } catch (IllegalAccessException e) {
+      return fallback.createMethodInvoker(method);
+    }
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    MethodType type = handle.type();
+    MethodHandle wrapper = MethodHandles.dropArguments(
+        WRAP_TARGET_EXCEPTION.asType(MethodType.methodType(type.returnType(), Throwable.class)), 1, type.parameterList());
+    handle = MethodHandles.catchException(handle, Throwable.class, wrapper);
+    if (Modifier.isStatic(method.getModifiers())) {
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+    }
+    handle = handle.asType(MethodType.genericMethodType(parameterTypes.length + 1))
+        .asSpreader(Object[].class, parameterTypes.length);
+    return new MethodHandleInvoker(handle, method,
+        parameterTypes.length == 1 ? parameterTypes[0] : method.getReturnType());
+  }
+
+  @Override
+  public Invoker createGetFieldInvoker(Field field) {
+    MethodHandle handle;
+    try {
+      handle = lookup.unreflectGetter(field);
+    } catch (IllegalAccessException e) {
+      return fallback.createGetFieldInvoker(field);
+    }
+    if (Modifier.isStatic(field.getModifiers())) {
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+    }
+    return new MethodHandleInvoker(handle.asType(GETTER_TYPE).asSpreader(Object[].class, 0), field, field.getType());
+  }
+
+  @Override
+  public Invoker createSetFieldInvoker(Field field) {
+    MethodHandle handle;
+    try {
+      handle = lookup.unreflectSetter(field);
+    } catch (IllegalAccessException e) {
+      return fallback.createSetFieldInvoker(field);
+    }
+    if (Modifier.isStatic(field.getModifiers())) {
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+    }
+    return new MethodHandleInvoker(handle.asType(SETTER_TYPE).asSpreader(Object[].class, 1), field, field.getType());
+  }
+
+  private static Object wrapTargetException(Throwable t) throws InvocationTargetException {
+    throw new InvocationTargetException(t);
+  }
+
+}
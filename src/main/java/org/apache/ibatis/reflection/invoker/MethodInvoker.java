@@ -45,4 +45,11 @@ public class MethodInvoker implements Invoker {
   public Class<?> getType() {
     return type;
   }
+
+  /**
+   * @since 3.4.5
+   */
+  public Method getMethod() {
+    return method;
+  }
 }
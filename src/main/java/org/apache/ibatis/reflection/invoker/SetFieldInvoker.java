@@ -38,4 +38,11 @@ public class SetFieldInvoker implements Invoker {
   public Class<?> getType() {
     return field.getType();
   }
+
+  /**
+   * @since 3.4.5
+   */
+  public Field getField() {
+    return field;
+  }
 }
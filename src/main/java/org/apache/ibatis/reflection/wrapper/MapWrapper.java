@@ -100,6 +100,10 @@ public class MapWrapper extends BaseWrapper {
       } else {
         return metaValue.getGetterType(prop.getChildren());
       }
+    } else if (prop.getIndex() != null) {
+      // eg: "ids[0]", the type of the element
+      Object value = get(prop);
+      return value != null ? value.getClass() : Object.class;
     } else {
       if (map.get(name) != null) {
         return map.get(name).getClass();
@@ -0,0 +1,66 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.wrapper;
+
+import org.apache.ibatis.binding.ArrayParamMap;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+
+/**
+ * Wrapper of the read-only parameters of a mapper method: the parameters themselves cannot be set, only the
+ * properties of their values.
+ *
+ * @since 3.4.5
+ */
+public class ParamMapWrapper extends MapWrapper {
+
+  private final ArrayParamMap params;
+
+  public ParamMapWrapper(MetaObject metaObject, ArrayParamMap params) {
+    super(metaObject, params);
+    this.params = params;
+  }
+
+  @Override
+  public void set(PropertyTokenizer prop, Object value) {
+    if (prop.getIndex() == null) {
+      throw new ReflectionException("Cannot set the parameter '" + prop.getName() + "', the parameters of a mapper method are read-only.");
+    }
+    super.set(prop, value);
+  }
+
+  @Override
+  public boolean hasSetter(String name) {
+    PropertyTokenizer prop = new PropertyTokenizer(name);
+    if (!params.containsKey(prop.getName())) {
+      return false;
+    }
+    if (prop.hasNext()) {
+      MetaObject metaValue = metaObject.metaObjectForProperty(prop.getIndexedName());
+      return metaValue != SystemMetaObject.NULL_META_OBJECT && metaValue.hasSetter(prop.getChildren());
+    }
+    return prop.getIndex() != null;
+  }
+
+  @Override
+  public MetaObject instantiatePropertyValue(String name, PropertyTokenizer prop, ObjectFactory objectFactory) {
+    throw new ReflectionException("Cannot set the parameter '" + prop.getName() + "', the parameters of a mapper method are read-only.");
+  }
+
+}
@@ -26,6 +26,7 @@ import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.PropertyPath;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeException;
@@ -64,35 +65,70 @@ public class DefaultParameterHandler implements ParameterHandler {
      */
     @Override
     public void setParameters(PreparedStatement ps) {
+        setParameterValues(ps, 0, getParameterValues());
+    }
+
+    /**
+     * Returns the values of the parameters, in the order of the parameter mappings, null for the OUT parameters.
+     * They are read when this method is called, eg: when a row is added to a multi-row insert.
+     * @since 3.4.5
+     */
+    public Object[] getParameterValues() {
         ErrorContext.instance().activity("setting parameters").object(mappedStatement.getParameterMap().getId());
 
         // eg1: parameterMappings[0] = ParameterMapping{property='id', mode=IN, javaType=class java.lang.Long, jdbcType=null, numericScale=null, resultMapId='null', jdbcTypeName='null', expression='null'}
+        List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+        if (parameterMappings == null) {
+            return new Object[0];
+        }
+        Object[] values = new Object[parameterMappings.size()];
+        // 参数对象的MetaObject，所有属性共用一个
+        MetaObject metaObject = null;
+        // eg1: parameterMappings.size() = 1
+        for (int i = 0; i < parameterMappings.size(); i++) {
+            ParameterMapping parameterMapping = parameterMappings.get(i);
+            // eg1: parameterMapping.getMode() = IN
+            if (parameterMapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            // eg1: propertyPath="id"
+            PropertyPath propertyPath = parameterMapping.getPropertyPath();
+            // eg1: boundSql.hasAdditionalParameter(propertyPath) = false
+            if (boundSql.hasAdditionalParameter(propertyPath)) { // issue #448 ask first for additional params
+                values[i] = boundSql.getAdditionalParameter(propertyPath);
+            }
+            // eg1: parameterObject = 2
+            else if (parameterObject == null) {
+                values[i] = null;
+            }
+            // eg1: parameterObject.getClass() = java.lang.Long.class   返回ture
+            else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
+                // eg1: value = parameterObject = 2L
+                values[i] = parameterObject;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameterObject);
+                }
+                values[i] = metaObject.getValue(propertyPath);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Sets the given values, as returned by {@link #getParameterValues()}, after the given number of parameters
+     * already set, eg: the values of a row of a multi-row insert.
+     * @since 3.4.5
+     */
+    public void setParameterValues(PreparedStatement ps, int offset, Object[] values) {
+        ErrorContext.instance().activity("setting parameters").object(mappedStatement.getParameterMap().getId());
+
         List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
         if (parameterMappings != null) {
-            // eg1: parameterMappings.size() = 1
             for (int i = 0; i < parameterMappings.size(); i++) {
                 ParameterMapping parameterMapping = parameterMappings.get(i);
-                // eg1: parameterMapping.getMode() = IN
                 if (parameterMapping.getMode() != ParameterMode.OUT) {
-                    Object value;
-                    // eg1: propertyName="id"
-                    String propertyName = parameterMapping.getProperty();
-                    // eg1: boundSql.hasAdditionalParameter(propertyName) = false
-                    if (boundSql.hasAdditionalParameter(propertyName)) { // issue #448 ask first for additional params
-                        value = boundSql.getAdditionalParameter(propertyName);
-                    }
-                    // eg1: parameterObject = 2
-                    else if (parameterObject == null) {
-                        value = null;
-                    }
-                    // eg1: parameterObject.getClass() = java.lang.Long.class   返回ture
-                    else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
-                        // eg1: value = parameterObject = 2L
-                        value = parameterObject;
-                    } else {
-                        MetaObject metaObject = configuration.newMetaObject(parameterObject);
-                        value = metaObject.getValue(propertyName);
-                    }
+                    Object value = values[i];
                     // eg1: typeHandler=class java.lang.Long
                     TypeHandler typeHandler = parameterMapping.getTypeHandler();
                     // eg1: jdbcType=null
@@ -104,7 +140,7 @@ public class DefaultParameterHandler implements ParameterHandler {
                     try {
                         // eg1: typeHandler=BaseTypeHandler
                         /** 针对预处理语句，设置入参 */
-                        typeHandler.setParameter(ps, i + 1, value, jdbcType);
+                        typeHandler.setParameter(ps, offset + i + 1, value, jdbcType);
                     } catch (TypeException e) {
                         throw new TypeException("Could not set parameters for mapping: " + parameterMapping +
                                 ". Cause: " + e, e);
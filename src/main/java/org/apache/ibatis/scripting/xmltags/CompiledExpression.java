@@ -0,0 +1,710 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Expression compiled to a tree of evaluators, covering the subset of OGNL used by most dynamic SQL tests: property
+ * paths, {@code null}, boolean, integer and string literals, comparisons, boolean logic and the {@code size()},
+ * {@code isEmpty()} and {@code length()} methods.
+ * <p>
+ * The evaluation follows the OGNL semantics (including the values returned by {@code and}/{@code or}). Whenever the
+ * values met at runtime are outside of what is supported (null targets, comparisons needing a type conversion,
+ * beans without a public getter, ...) an {@link UnsupportedValueException} is thrown and the caller must evaluate
+ * the expression with OGNL instead, so that results and error messages stay the same. Exceptions thrown by the
+ * getters themselves are not retried, they are wrapped in a {@link GetterException}.
+ *
+ * @see OgnlCache
+ */
+abstract class CompiledExpression {
+
+  /**
+   * Compiles the expression, or returns null when it uses something that is not supported.
+   */
+  static CompiledExpression compile(String expression) {
+    try {
+      return new Parser(expression).parse();
+    } catch (UnsupportedExpressionException e) {
+      return null;
+    }
+  }
+
+  abstract Object getValue(Object root);
+
+  /**
+   * Same as {@code OgnlOps.booleanValue(Object)}.
+   */
+  static boolean booleanValue(Object value) {
+    if (value == null) {
+      return false;
+    }
+    Class<?> type = value.getClass();
+    if (type == Boolean.class) {
+      return (Boolean) value;
+    }
+    if (type == String.class) {
+      return Boolean.parseBoolean((String) value);
+    }
+    if (type == Character.class) {
+      return (Character) value != 0;
+    }
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue() != 0;
+    }
+    return true;
+  }
+
+  /**
+   * Same as {@code OgnlOps.equal(Object, Object)} for the supported values.
+   */
+  static boolean equal(Object v1, Object v2) {
+    if (v1 == null) {
+      return v2 == null;
+    }
+    if (v1 == v2) {
+      return true;
+    }
+    if (v2 == null) {
+      return false;
+    }
+    if (v1.getClass().isArray()) {
+      throw UnsupportedValueException.INSTANCE;
+    }
+    if (v1.equals(v2) || compare(v1, v2) == 0) {
+      return true;
+    }
+    return v1 instanceof Number && v2 instanceof Number && ((Number) v1).doubleValue() == ((Number) v2).doubleValue();
+  }
+
+  /**
+   * Same as {@code OgnlOps.compareWithConversion(Object, Object)} for the supported values.
+   */
+  @SuppressWarnings("unchecked")
+  static int compare(Object v1, Object v2) {
+    if (v1 == v2) {
+      return 0;
+    }
+    if (v1 == null || v2 == null) {
+      throw UnsupportedValueException.INSTANCE;
+    }
+    int t1 = numericType(v1.getClass());
+    int t2 = numericType(v2.getClass());
+    if (t1 == NON_NUMERIC && t2 == NON_NUMERIC) {
+      if (v1 instanceof Comparable && v1.getClass().isAssignableFrom(v2.getClass())) {
+        return ((Comparable<Object>) v1).compareTo(v2);
+      }
+    } else if (t1 == INTEGRAL && t2 == INTEGRAL) {
+      long lv1 = ((Number) v1).longValue();
+      long lv2 = ((Number) v2).longValue();
+      return lv1 == lv2 ? 0 : (lv1 < lv2 ? -1 : 1);
+    } else if (t1 != NON_NUMERIC && t2 != NON_NUMERIC && t1 != OTHER_NUMERIC && t2 != OTHER_NUMERIC) {
+      double dv1 = ((Number) v1).doubleValue();
+      double dv2 = ((Number) v2).doubleValue();
+      return dv1 == dv2 ? 0 : (dv1 < dv2 ? -1 : 1);
+    }
+    // conversions (strings to numbers, characters, booleans, big numbers...) and invalid comparisons are left to OGNL
+    throw UnsupportedValueException.INSTANCE;
+  }
+
+  private static final int NON_NUMERIC = 0;
+  private static final int INTEGRAL = 1;
+  private static final int FLOATING = 2;
+  private static final int OTHER_NUMERIC = 3;
+
+  // OGNL only knows these classes as numbers, other Number implementations are plain objects for it
+  private static int numericType(Class<?> type) {
+    if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class) {
+      return INTEGRAL;
+    }
+    if (type == Double.class || type == Float.class) {
+      return FLOATING;
+    }
+    if (type == Boolean.class || type == Character.class || type == BigInteger.class || type == BigDecimal.class) {
+      return OTHER_NUMERIC;
+    }
+    return NON_NUMERIC;
+  }
+
+  /**
+   * Thrown while evaluating when the values can not be handled without OGNL.
+   */
+  static final class UnsupportedValueException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    static final UnsupportedValueException INSTANCE = new UnsupportedValueException();
+
+    private UnsupportedValueException() {
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+
+  }
+
+  /**
+   * Thrown while evaluating when a getter fails, the cause is the exception thrown by the getter.
+   */
+  static final class GetterException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private GetterException(Throwable cause) {
+      super(cause);
+    }
+
+  }
+
+  private static final class UnsupportedExpressionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+  }
+
+  private static final class Literal extends CompiledExpression {
+
+    private final Object value;
+
+    private Literal(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      return value;
+    }
+
+  }
+
+  private static final class Not extends CompiledExpression {
+
+    private final CompiledExpression operand;
+
+    private Not(CompiledExpression operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      return booleanValue(operand.getValue(root)) ? Boolean.FALSE : Boolean.TRUE;
+    }
+
+  }
+
+  private static final class And extends CompiledExpression {
+
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+
+    private And(CompiledExpression left, CompiledExpression right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object value = left.getValue(root);
+      return booleanValue(value) ? right.getValue(root) : value;
+    }
+
+  }
+
+  private static final class Or extends CompiledExpression {
+
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+
+    private Or(CompiledExpression left, CompiledExpression right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object value = left.getValue(root);
+      return booleanValue(value) ? value : right.getValue(root);
+    }
+
+  }
+
+  private static final class Comparison extends CompiledExpression {
+
+    private static final int EQ = 0;
+    private static final int NEQ = 1;
+    private static final int LT = 2;
+    private static final int GT = 3;
+    private static final int LTE = 4;
+    private static final int GTE = 5;
+
+    private final int operator;
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+
+    private Comparison(int operator, CompiledExpression left, CompiledExpression right) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object v1 = left.getValue(root);
+      Object v2 = right.getValue(root);
+      boolean result;
+      switch (operator) {
+        case EQ:
+          result = equal(v1, v2);
+          break;
+        case NEQ:
+          result = !equal(v1, v2);
+          break;
+        case LT:
+          result = compare(v1, v2) < 0;
+          break;
+        case GT:
+          result = compare(v1, v2) > 0;
+          break;
+        case LTE:
+          result = !(compare(v1, v2) > 0);
+          break;
+        default:
+          result = !(compare(v1, v2) < 0);
+          break;
+      }
+      return result ? Boolean.TRUE : Boolean.FALSE;
+    }
+
+  }
+
+  /**
+   * Reads a property of the value of the target expression (or of the root when there is no target), the getter
+   * found for the last class seen is kept.
+   */
+  private static final class Property extends CompiledExpression {
+
+    private final CompiledExpression target;
+    private final String name;
+    private final String capitalizedName;
+    private volatile Getter getter;
+
+    private Property(CompiledExpression target, String name) {
+      this.target = target;
+      this.name = name;
+      this.capitalizedName = capitalize(name);
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object object = target == null ? root : target.getValue(root);
+      if (object == null) {
+        throw UnsupportedValueException.INSTANCE;
+      }
+      if (object instanceof DynamicContext.ContextMap) {
+        return DynamicContext.ContextAccessor.getBinding((Map<?, ?>) object, name);
+      }
+      if (object instanceof Map) {
+        if (MAP_PSEUDO_PROPERTIES.contains(name)) {
+          throw UnsupportedValueException.INSTANCE;
+        }
+        return ((Map<?, ?>) object).get(name);
+      }
+      Class<?> type = object.getClass();
+      Getter cached = getter;
+      if (cached == null || cached.type != type) {
+        cached = new Getter(type, findGetter(type, capitalizedName));
+        getter = cached;
+      }
+      if (cached.method == null) {
+        throw UnsupportedValueException.INSTANCE;
+      }
+      try {
+        return cached.method.invoke(object);
+      } catch (InvocationTargetException e) {
+        throw new GetterException(e.getCause());
+      } catch (IllegalAccessException e) {
+        throw UnsupportedValueException.INSTANCE;
+      }
+    }
+
+    // same as OgnlRuntime.capitalizeBeanPropertyName(String)
+    private static String capitalize(String name) {
+      if (name.length() == 1) {
+        return name.toUpperCase();
+      }
+      if (Character.isLowerCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+        return name;
+      }
+      char[] chars = name.toCharArray();
+      chars[0] = Character.toUpperCase(chars[0]);
+      return new String(chars);
+    }
+
+    /*
+     * Only plain beans with a single public getter (either getXxx or isXxx) declared in a public class are read
+     * directly, collections, arrays and anything OGNL may resolve differently are left to it.
+     */
+    private static Method findGetter(Class<?> type, String capitalizedName) {
+      if (type.isArray() || Collection.class.isAssignableFrom(type) || Iterator.class.isAssignableFrom(type)
+          || Enumeration.class.isAssignableFrom(type)) {
+        return null;
+      }
+      Method get = findPublicMethod(type, "get" + capitalizedName);
+      Method is = findPublicMethod(type, "is" + capitalizedName);
+      if (get != null && is != null) {
+        return null;
+      }
+      Method method = get != null ? get : is;
+      if (method == null || method.getReturnType() == void.class
+          || method.getDeclaringClass().isInterface()
+          || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+        return null;
+      }
+      return method;
+    }
+
+    private static Method findPublicMethod(Class<?> type, String name) {
+      try {
+        return type.getMethod(name);
+      } catch (NoSuchMethodException e) {
+        return null;
+      } catch (SecurityException e) {
+        return null;
+      }
+    }
+
+  }
+
+  private static final class Getter {
+
+    private final Class<?> type;
+    private final Method method;
+
+    private Getter(Class<?> type, Method method) {
+      this.type = type;
+      this.method = method;
+    }
+
+  }
+
+  private static final Set<String> MAP_PSEUDO_PROPERTIES = new HashSet<String>(
+      Arrays.asList("size", "keys", "keySet", "values", "isEmpty"));
+
+  private static final class MethodCall extends CompiledExpression {
+
+    private static final int SIZE = 0;
+    private static final int IS_EMPTY = 1;
+    private static final int LENGTH = 2;
+
+    private final CompiledExpression target;
+    private final int method;
+
+    private MethodCall(CompiledExpression target, int method) {
+      this.target = target;
+      this.method = method;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object object = target.getValue(root);
+      switch (method) {
+        case SIZE:
+          if (object instanceof Collection) {
+            return ((Collection<?>) object).size();
+          }
+          if (object instanceof Map) {
+            return ((Map<?, ?>) object).size();
+          }
+          break;
+        case IS_EMPTY:
+          if (object instanceof Collection) {
+            return ((Collection<?>) object).isEmpty();
+          }
+          if (object instanceof Map) {
+            return ((Map<?, ?>) object).isEmpty();
+          }
+          if (object instanceof String) {
+            return ((String) object).isEmpty();
+          }
+          break;
+        default:
+          if (object instanceof String) {
+            return ((String) object).length();
+          }
+          break;
+      }
+      throw UnsupportedValueException.INSTANCE;
+    }
+
+  }
+
+  /*
+   * Recursive descent parser following the OGNL operator precedence:
+   *
+   * or       := and (('or' | '||') and)*
+   * and      := equality (('and' | '&&') equality)*
+   * equality := relation (('==' | 'eq' | '!=' | 'neq') relation)*
+   * relation := unary (('<' | 'lt' | '>' | 'gt' | '<=' | 'lte' | '>=' | 'gte') unary)*
+   * unary    := ('!' | 'not') unary | '-' integer | primary
+   * primary  := literal | '(' or ')' | name ('.' name | '.' method '(' ')')*
+   */
+  private static final class Parser {
+
+    // OGNL keywords that are not supported here, they can not be property names
+    private static final Set<String> RESERVED = new HashSet<String>(Arrays.asList(
+        "in", "instanceof", "new", "shl", "shr", "ushr", "band", "bor", "xor"));
+
+    private final String expression;
+    private int position;
+
+    private Parser(String expression) {
+      this.expression = expression;
+    }
+
+    private CompiledExpression parse() {
+      CompiledExpression result = parseOr();
+      skipWhitespace();
+      if (position != expression.length()) {
+        throw new UnsupportedExpressionException();
+      }
+      return result;
+    }
+
+    private CompiledExpression parseOr() {
+      CompiledExpression result = parseAnd();
+      while (acceptOperator("||") || acceptKeyword("or")) {
+        result = new Or(result, parseAnd());
+      }
+      return result;
+    }
+
+    private CompiledExpression parseAnd() {
+      CompiledExpression result = parseEquality();
+      while (acceptOperator("&&") || acceptKeyword("and")) {
+        result = new And(result, parseEquality());
+      }
+      return result;
+    }
+
+    private CompiledExpression parseEquality() {
+      CompiledExpression result = parseRelation();
+      while (true) {
+        if (acceptOperator("==") || acceptKeyword("eq")) {
+          result = new Comparison(Comparison.EQ, result, parseRelation());
+        } else if (acceptOperator("!=") || acceptKeyword("neq")) {
+          result = new Comparison(Comparison.NEQ, result, parseRelation());
+        } else {
+          return result;
+        }
+      }
+    }
+
+    private CompiledExpression parseRelation() {
+      CompiledExpression result = parseUnary();
+      while (true) {
+        if (acceptOperator("<=") || acceptKeyword("lte")) {
+          result = new Comparison(Comparison.LTE, result, parseUnary());
+        } else if (acceptOperator(">=") || acceptKeyword("gte")) {
+          result = new Comparison(Comparison.GTE, result, parseUnary());
+        } else if (acceptOperator("<") || acceptKeyword("lt")) {
+          result = new Comparison(Comparison.LT, result, parseUnary());
+        } else if (acceptOperator(">") || acceptKeyword("gt")) {
+          result = new Comparison(Comparison.GT, result, parseUnary());
+        } else {
+          return result;
+        }
+      }
+    }
+
+    private CompiledExpression parseUnary() {
+      if (acceptOperator("!") || acceptKeyword("not")) {
+        return new Not(parseUnary());
+      }
+      if (acceptOperator("-")) {
+        skipWhitespace();
+        return new Literal(parseInteger(true));
+      }
+      return parsePrimary();
+    }
+
+    private CompiledExpression parsePrimary() {
+      skipWhitespace();
+      if (position == expression.length()) {
+        throw new UnsupportedExpressionException();
+      }
+      char c = expression.charAt(position);
+      if (c == '(') {
+        position++;
+        CompiledExpression result = parseOr();
+        if (!acceptOperator(")")) {
+          throw new UnsupportedExpressionException();
+        }
+        return result;
+      }
+      if (c == '\'' || c == '"') {
+        return new Literal(parseString(c));
+      }
+      if (c >= '0' && c <= '9') {
+        return new Literal(parseInteger(false));
+      }
+      String name = parseName();
+      if ("null".equals(name)) {
+        return new Literal(null);
+      }
+      if ("true".equals(name)) {
+        return new Literal(Boolean.TRUE);
+      }
+      if ("false".equals(name)) {
+        return new Literal(Boolean.FALSE);
+      }
+      CompiledExpression result = new Property(null, name);
+      while (acceptOperator(".")) {
+        name = parseName();
+        if (acceptOperator("(")) {
+          if (!acceptOperator(")")) {
+            throw new UnsupportedExpressionException();
+          }
+          if ("size".equals(name)) {
+            result = new MethodCall(result, MethodCall.SIZE);
+          } else if ("isEmpty".equals(name)) {
+            result = new MethodCall(result, MethodCall.IS_EMPTY);
+          } else if ("length".equals(name)) {
+            result = new MethodCall(result, MethodCall.LENGTH);
+          } else {
+            throw new UnsupportedExpressionException();
+          }
+        } else {
+          result = new Property(result, name);
+        }
+      }
+      return result;
+    }
+
+    private String parseName() {
+      skipWhitespace();
+      int start = position;
+      if (position < expression.length() && Character.isJavaIdentifierStart(expression.charAt(position))) {
+        position++;
+        while (position < expression.length() && Character.isJavaIdentifierPart(expression.charAt(position))) {
+          position++;
+        }
+      }
+      String name = expression.substring(start, position);
+      if (name.isEmpty() || RESERVED.contains(name) || isOperatorKeyword(name)) {
+        throw new UnsupportedExpressionException();
+      }
+      return name;
+    }
+
+    private static boolean isOperatorKeyword(String name) {
+      return "or".equals(name) || "and".equals(name) || "not".equals(name) || "eq".equals(name) || "neq".equals(name)
+          || "lt".equals(name) || "gt".equals(name) || "lte".equals(name) || "gte".equals(name);
+    }
+
+    /*
+     * Only decimal int literals without suffix, OGNL reads the others (octal, hexadecimal, long, big...) in its own way.
+     */
+    private Integer parseInteger(boolean negative) {
+      int start = position;
+      while (position < expression.length() && Character.isLetterOrDigit(expression.charAt(position))) {
+        position++;
+      }
+      String digits = expression.substring(start, position);
+      if (digits.isEmpty() || (digits.length() > 1 && digits.charAt(0) == '0')
+          || (position < expression.length() && expression.charAt(position) == '.')) {
+        throw new UnsupportedExpressionException();
+      }
+      for (int i = 0; i < digits.length(); i++) {
+        if (digits.charAt(i) < '0' || digits.charAt(i) > '9') {
+          throw new UnsupportedExpressionException();
+        }
+      }
+      try {
+        int value = Integer.parseInt(digits);
+        return negative ? -value : value;
+      } catch (NumberFormatException e) {
+        throw new UnsupportedExpressionException();
+      }
+    }
+
+    /*
+     * Strings without escapes. A single quoted literal of one character is a Character for OGNL, so it is not
+     * supported.
+     */
+    private String parseString(char quote) {
+      int end = expression.indexOf(quote, position + 1);
+      if (end == -1) {
+        throw new UnsupportedExpressionException();
+      }
+      String value = expression.substring(position + 1, end);
+      if (value.indexOf('\\') != -1 || (quote == '\'' && value.length() == 1)) {
+        throw new UnsupportedExpressionException();
+      }
+      position = end + 1;
+      return value;
+    }
+
+    private boolean acceptOperator(String operator) {
+      skipWhitespace();
+      if (!expression.startsWith(operator, position)) {
+        return false;
+      }
+      int end = position + operator.length();
+      // do not take the start of a longer operator ("<" of "<=", "!" of "!=", "." of a decimal...)
+      if (end < expression.length()) {
+        char next = expression.charAt(end);
+        if ((next == '=' && "!<>=".indexOf(operator.charAt(operator.length() - 1)) != -1)
+            || (operator.equals("&&") || operator.equals("||")) && (next == '&' || next == '|')) {
+          return false;
+        }
+      }
+      position = end;
+      return true;
+    }
+
+    private boolean acceptKeyword(String keyword) {
+      skipWhitespace();
+      int end = position + keyword.length();
+      if (!expression.startsWith(keyword, position)
+          || (end < expression.length() && Character.isJavaIdentifierPart(expression.charAt(end)))) {
+        return false;
+      }
+      position = end;
+      return true;
+    }
+
+    private void skipWhitespace() {
+      while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+        position++;
+      }
+    }
+
+  }
+
+}
@@ -23,6 +23,7 @@ import ognl.OgnlException;
 import ognl.OgnlRuntime;
 import ognl.PropertyAccessor;
 
+import org.apache.ibatis.binding.ArrayParamMap;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 
@@ -46,6 +47,9 @@ public class DynamicContext {
         if (parameterObject != null && !(parameterObject instanceof Map)) {
             MetaObject metaObject = configuration.newMetaObject(parameterObject);
             bindings = new ContextMap(metaObject);
+        } else if (parameterObject instanceof ArrayParamMap) {
+            // 只读的Mapper方法参数，直接按参数名查找，不需要MetaObject
+            bindings = new ContextMap(null, (ArrayParamMap) parameterObject);
         } else {
             bindings = new ContextMap(null);
         }
@@ -53,6 +57,13 @@ public class DynamicContext {
         bindings.put(DATABASE_ID_KEY, configuration.getDatabaseId());
     }
 
+    /**
+     * Creates a context filtering the SQL appended to the given one, the subclass delegates the bindings to it.
+     */
+    DynamicContext(DynamicContext delegate) {
+        this.bindings = delegate.bindings;
+    }
+
     public Map<String, Object> getBindings() {
         return bindings;
     }
@@ -78,11 +89,17 @@ public class DynamicContext {
         private static final long serialVersionUID = 2977601501966151582L;
 
         private MetaObject parameterMetaObject;
+        private ArrayParamMap parameterMap;
 
         public ContextMap(MetaObject parameterMetaObject) {
             this.parameterMetaObject = parameterMetaObject;
         }
 
+        ContextMap(MetaObject parameterMetaObject, ArrayParamMap parameterMap) {
+            this.parameterMetaObject = parameterMetaObject;
+            this.parameterMap = parameterMap;
+        }
+
         @Override
         public Object get(Object key) {
             String strKey = (String) key;
@@ -95,6 +112,10 @@ public class DynamicContext {
                 return parameterMetaObject.getValue(strKey);
             }
 
+            if (parameterMap != null && parameterMap.containsKey(strKey)) {
+                return parameterMap.get(strKey);
+            }
+
             return null;
         }
     }
@@ -104,8 +125,10 @@ public class DynamicContext {
         @Override
         public Object getProperty(Map context, Object target, Object name)
                 throws OgnlException {
-            Map map = (Map) target;
+            return getBinding((Map) target, name);
+        }
 
+        static Object getBinding(Map map, Object name) {
             Object result = map.get(name);
             if (map.containsKey(name) || result != null) {
                 return result;
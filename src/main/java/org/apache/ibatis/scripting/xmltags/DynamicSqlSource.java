@@ -15,11 +15,15 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.builder.SqlSourceBuilder;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -30,6 +34,20 @@ public class DynamicSqlSource implements SqlSource {
   private Configuration configuration;
   private SqlNode rootSqlNode;
 
+  /*
+   * Parsed SQL per shape. The SQL built by the nodes is the shape: it reflects the branches taken, the sizes of the
+   * collections iterated and the ${} substitutions. The least recently used shapes are dropped beyond
+   * Configuration#getDynamicSqlCacheSize().
+   */
+  private final Map<ShapeKey, Shape> shapes = new LinkedHashMap<ShapeKey, Shape>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<ShapeKey, Shape> eldest) {
+      return size() > configuration.getDynamicSqlCacheSize();
+    }
+  };
+
   public DynamicSqlSource(Configuration configuration, SqlNode rootSqlNode) {
     this.configuration = configuration;
     this.rootSqlNode = rootSqlNode;
@@ -39,14 +57,101 @@ public class DynamicSqlSource implements SqlSource {
   public BoundSql getBoundSql(Object parameterObject) {
     DynamicContext context = new DynamicContext(configuration, parameterObject);
     rootSqlNode.apply(context);
-    SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
     Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
-    SqlSource sqlSource = sqlSourceParser.parse(context.getSql(), parameterType, context.getBindings());
-    BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+    BoundSql boundSql = getSqlSource(context.getSql(), parameterType, context.getBindings()).getBoundSql(parameterObject);
     for (Map.Entry<String, Object> entry : context.getBindings().entrySet()) {
       boundSql.setAdditionalParameter(entry.getKey(), entry.getValue());
     }
     return boundSql;
   }
 
+  private SqlSource getSqlSource(String sql, Class<?> parameterType, Map<String, Object> bindings) {
+    SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+    if (configuration.getDynamicSqlCacheSize() <= 0) {
+      return sqlSourceParser.parse(sql, parameterType, bindings);
+    }
+    ShapeKey key = new ShapeKey(sql, parameterType);
+    Shape shape;
+    synchronized (shapes) {
+      shape = shapes.get(key);
+    }
+    MetaObject metaBindings = configuration.newMetaObject(bindings);
+    if (shape != null && shape.matches(metaBindings)) {
+      return shape.sqlSource;
+    }
+    SqlSource sqlSource = sqlSourceParser.parse(sql, parameterType, bindings);
+    shape = new Shape(sqlSource, sqlSource.getBoundSql(null).getParameterMappings(), metaBindings);
+    synchronized (shapes) {
+      shapes.put(key, shape);
+    }
+    return sqlSource;
+  }
+
+  private static final class ShapeKey {
+
+    private final String sql;
+    private final Class<?> parameterType;
+    private final int hashCode;
+
+    private ShapeKey(String sql, Class<?> parameterType) {
+      this.sql = sql;
+      this.parameterType = parameterType;
+      this.hashCode = 31 * sql.hashCode() + parameterType.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (!(object instanceof ShapeKey)) {
+        return false;
+      }
+      ShapeKey that = (ShapeKey) object;
+      return hashCode == that.hashCode && parameterType == that.parameterType && sql.equals(that.sql);
+    }
+
+  }
+
+  /*
+   * The java types of the parameter mappings read from the bindings (foreach items, <bind> variables...) depend on
+   * the values bound, so they are checked before a shape is reused.
+   */
+  private static final class Shape {
+
+    private final SqlSource sqlSource;
+    private final String[] properties;
+    private final Class<?>[] bindingTypes;
+
+    private Shape(SqlSource sqlSource, List<ParameterMapping> parameterMappings, MetaObject metaBindings) {
+      this.sqlSource = sqlSource;
+      this.properties = new String[parameterMappings.size()];
+      this.bindingTypes = new Class<?>[parameterMappings.size()];
+      for (int i = 0; i < properties.length; i++) {
+        properties[i] = parameterMappings.get(i).getProperty();
+        bindingTypes[i] = bindingType(metaBindings, properties[i]);
+      }
+    }
+
+    private boolean matches(MetaObject metaBindings) {
+      for (int i = 0; i < properties.length; i++) {
+        if (bindingType(metaBindings, properties[i]) != bindingTypes[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // same lookup as SqlSourceBuilder, null when the type does not come from the bindings
+    private static Class<?> bindingType(MetaObject metaBindings, String property) {
+      if (property != null && metaBindings.hasGetter(property)) {
+        return metaBindings.getGetterType(property);
+      }
+      return null;
+    }
+
+  }
+
 }
@@ -15,11 +15,22 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.ibatis.parsing.GenericTokenParser;
 import org.apache.ibatis.parsing.TokenHandler;
+import org.apache.ibatis.session.ArrayParameterDialect;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.ArrayTypeHandler;
 
 /**
  * @author Clinton Begin
@@ -27,6 +38,9 @@ import org.apache.ibatis.session.Configuration;
 public class ForEachSqlNode implements SqlNode {
   public static final String ITEM_PREFIX = "__frch_";
 
+  // number of distinct texts whose split into static fragments and #{} tokens is kept
+  private static final int MAX_TEMPLATES = 64;
+
   private ExpressionEvaluator evaluator;
   private String collectionExpression;
   private SqlNode contents;
@@ -36,8 +50,22 @@ public class ForEachSqlNode implements SqlNode {
   private String item;
   private String index;
   private Configuration configuration;
+  private final Pattern itemPattern;
+  private final Pattern indexPattern;
+  private final ConcurrentMap<String, ItemTemplate> templates = new ConcurrentHashMap<String, ItemTemplate>();
+  // body made of a single #{item} token (eg: IN lists), its elements are referenced by position
+  private final ItemTemplate indexedTemplate;
+  // the collection may be bound as a single array parameter (the body is nothing but the #{item} token)
+  private final boolean arrayParameter;
 
   public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator) {
+    this(configuration, contents, collectionExpression, index, item, open, close, separator, false);
+  }
+
+  /**
+   * @since 3.4.5
+   */
+  public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator, boolean arrayParameter) {
     this.evaluator = new ExpressionEvaluator();
     this.collectionExpression = collectionExpression;
     this.contents = contents;
@@ -47,12 +75,30 @@ public class ForEachSqlNode implements SqlNode {
     this.index = index;
     this.item = item;
     this.configuration = configuration;
+    this.itemPattern = Pattern.compile("^\\s*" + item + "(?![^.,:\\s])");
+    this.indexPattern = index == null ? null : Pattern.compile("^\\s*" + index + "(?![^.,:\\s])");
+    this.indexedTemplate = getIndexedTemplate(contents);
+    this.arrayParameter = arrayParameter && indexedTemplate != null
+        && isBlank(indexedTemplate.fragments[0]) && isBlank(indexedTemplate.fragments[1]);
   }
 
   @Override
   public boolean apply(DynamicContext context) {
     Map<String, Object> bindings = context.getBindings();
-    final Iterable<?> iterable = evaluator.evaluateIterable(collectionExpression, bindings);
+    Object value = OgnlCache.getValue(collectionExpression, bindings);
+    if (indexedTemplate != null) {
+      Object collection = toIndexedCollection(value);
+      if (collection != null) {
+        ArrayParameterDialect dialect = arrayParameter ? configuration.getArrayParameterDialect() : null;
+        if (dialect != null) {
+          applyArray(context, collection, dialect);
+        } else {
+          applyIndexed(context, collection);
+        }
+        return true;
+      }
+    }
+    final Iterable<?> iterable = evaluator.toIterable(collectionExpression, value);
     if (!iterable.iterator().hasNext()) {
       return true;
     }
@@ -79,7 +125,7 @@ public class ForEachSqlNode implements SqlNode {
         applyIndex(context, i, uniqueNumber);
         applyItem(context, o, uniqueNumber);
       }
-      contents.apply(new FilteredDynamicContext(configuration, context, index, item, uniqueNumber));
+      contents.apply(new FilteredDynamicContext(context, uniqueNumber));
       if (first) {
         first = !((PrefixedContext) context).isPrefixApplied();
       }
@@ -90,6 +136,95 @@ public class ForEachSqlNode implements SqlNode {
     return true;
   }
 
+  /*
+   * The collection is bound once and each token reads its element by position, eg: #{__frch_id_1[0]}, instead of
+   * binding every element under its own name and rewriting the body for each of them.
+   */
+  private void applyIndexed(DynamicContext context, Object collection) {
+    int size = size(collection);
+    if (size == 0) {
+      return;
+    }
+    applyOpen(context);
+    String name = itemizeItem(item, context.getUniqueNumber());
+    context.bind(name, collection);
+    String head = new StringBuilder(indexedTemplate.fragments[0]).append("#{").append(name).append('[').toString();
+    String tail = new StringBuilder("]").append(indexedTemplate.tokenContents.get(0)).append('}')
+        .append(indexedTemplate.fragments[1]).toString();
+    StringBuilder builder = new StringBuilder(head.length() + tail.length() + 10);
+    for (int i = 0; i < size; i++) {
+      // same output as the PrefixedContext of each element
+      context.appendSql(i == 0 || separator == null ? "" : separator);
+      builder.setLength(0);
+      context.appendSql(builder.append(head).append(i).append(tail).toString());
+    }
+    applyLast(context, collection, size);
+    applyClose(context);
+  }
+
+  /*
+   * The whole collection is a single parameter bound by the ArrayTypeHandler, the dialect renders the elements of
+   * the array, eg: (UNNEST(#{__frch_id_1,typeHandler=org.apache.ibatis.type.ArrayTypeHandler})).
+   */
+  private void applyArray(DynamicContext context, Object collection, ArrayParameterDialect dialect) {
+    int size = size(collection);
+    if (size == 0) {
+      return;
+    }
+    applyOpen(context);
+    String name = itemizeItem(item, context.getUniqueNumber());
+    context.bind(name, collection);
+    context.appendSql(dialect.getInList(new StringBuilder("#{").append(name).append(indexedTemplate.tokenContents.get(0))
+        .append(",typeHandler=").append(ArrayTypeHandler.class.getName()).append('}').toString()));
+    applyLast(context, collection, size);
+    applyClose(context);
+  }
+
+  // the item and the index are left bound to the last element, as when binding them element by element
+  private void applyLast(DynamicContext context, Object collection, int size) {
+    if (index != null) {
+      context.bind(index, size - 1);
+    }
+    context.bind(item, collection instanceof List ? ((List<?>) collection).get(size - 1) : Array.get(collection, size - 1));
+  }
+
+  private static int size(Object collection) {
+    return collection instanceof List ? ((List<?>) collection).size() : Array.getLength(collection);
+  }
+
+  /*
+   * Returns the collection when its elements can be read by position (random access lists and arrays, primitive
+   * ones are not boxed), a copy of the other collections, and null when the elements are map entries (their key
+   * is the index) or the value is an iterable that should only be iterated once.
+   */
+  private static Object toIndexedCollection(Object value) {
+    if (value instanceof List && value instanceof RandomAccess) {
+      return containsEntries((List<?>) value) ? null : value;
+    }
+    if (value instanceof Collection) {
+      List<Object> list = new ArrayList<Object>((Collection<?>) value);
+      return containsEntries(list) ? null : list;
+    }
+    if (value instanceof Object[]) {
+      for (Object o : (Object[]) value) {
+        if (o instanceof Map.Entry) {
+          return null;
+        }
+      }
+      return value;
+    }
+    return value != null && value.getClass().isArray() ? value : null;
+  }
+
+  private static boolean containsEntries(List<?> list) {
+    for (int i = 0, n = list.size(); i < n; i++) {
+      if (list.get(i) instanceof Map.Entry) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private void applyIndex(DynamicContext context, Object o, int i) {
     if (index != null) {
       context.bind(index, o);
@@ -120,18 +255,109 @@ public class ForEachSqlNode implements SqlNode {
     return new StringBuilder(ITEM_PREFIX).append(item).append("_").append(i).toString();
   }
 
-  private static class FilteredDynamicContext extends DynamicContext {
+  /*
+   * Returns the template of a body made of static text with a single token referencing the item itself (not one
+   * of its properties, whose type is only known from the element), null for any other body.
+   */
+  private ItemTemplate getIndexedTemplate(SqlNode contents) {
+    SqlNode node = contents;
+    if (node instanceof MixedSqlNode && ((MixedSqlNode) node).getContents().length == 1) {
+      node = ((MixedSqlNode) node).getContents()[0];
+    }
+    if (item == null || !(node instanceof StaticTextSqlNode)) {
+      return null;
+    }
+    String text = ((StaticTextSqlNode) node).getText();
+    if (text == null || text.indexOf(ItemTemplate.MARKER) != -1) {
+      return null;
+    }
+    ItemTemplate template = new ItemTemplate(text);
+    if (template.fragments.length != 2 || !item.equals(template.tokenNames.get(0))
+        || template.tokenContents.get(0).trim().startsWith(".")) {
+      return null;
+    }
+    return template;
+  }
+
+  /*
+   * Returns the text split around its #{} tokens, the tokens referencing the item or the index only need the
+   * iteration number to be rewritten. Null when the text can not be split (it contains the marker character).
+   */
+  private ItemTemplate getTemplate(String sql) {
+    ItemTemplate template = templates.get(sql);
+    if (template == null) {
+      if (sql.indexOf(ItemTemplate.MARKER) != -1) {
+        return null;
+      }
+      template = new ItemTemplate(sql);
+      if (templates.size() < MAX_TEMPLATES) {
+        templates.putIfAbsent(sql, template);
+      }
+    }
+    return template;
+  }
+
+  private class ItemTemplate implements TokenHandler {
+    private static final char MARKER = '\u0000';
+
+    private final List<String> tokenNames = new ArrayList<String>();
+    private final List<String> tokenContents = new ArrayList<String>();
+    private final String[] fragments;
+
+    private ItemTemplate(String sql) {
+      String parsed = new GenericTokenParser("#{", "}", this).parse(sql);
+      List<String> list = new ArrayList<String>(tokenNames.size() + 1);
+      int start = 0;
+      for (int end = parsed.indexOf(MARKER); end != -1; end = parsed.indexOf(MARKER, start)) {
+        list.add(parsed.substring(start, end));
+        start = end + 1;
+      }
+      list.add(parsed.substring(start));
+      this.fragments = list.toArray(new String[list.size()]);
+    }
+
+    // same rewriting as the regular expressions applied to each token before
+    @Override
+    public String handleToken(String content) {
+      Matcher matcher = itemPattern.matcher(content);
+      if (matcher.find()) {
+        tokenNames.add(item);
+        tokenContents.add(content.substring(matcher.end()));
+      } else if (indexPattern != null && (matcher = indexPattern.matcher(content)).find()) {
+        tokenNames.add(index);
+        tokenContents.add(content.substring(matcher.end()));
+      } else {
+        tokenNames.add(null);
+        tokenContents.add(content);
+      }
+      return String.valueOf(MARKER);
+    }
+
+    private String apply(int uniqueNumber) {
+      if (fragments.length == 1) {
+        return fragments[0];
+      }
+      StringBuilder builder = new StringBuilder(fragments[0]);
+      for (int i = 1; i < fragments.length; i++) {
+        builder.append("#{");
+        String name = tokenNames.get(i - 1);
+        if (name != null) {
+          builder.append(ITEM_PREFIX).append(name).append('_').append(uniqueNumber);
+        }
+        builder.append(tokenContents.get(i - 1)).append('}').append(fragments[i]);
+      }
+      return builder.toString();
+    }
+  }
+
+  private class FilteredDynamicContext extends DynamicContext {
     private DynamicContext delegate;
-    private int index;
-    private String itemIndex;
-    private String item;
+    private int uniqueNumber;
 
-    public FilteredDynamicContext(Configuration configuration,DynamicContext delegate, String itemIndex, String item, int i) {
-      super(configuration, null);
+    public FilteredDynamicContext(DynamicContext delegate, int uniqueNumber) {
+      super(delegate);
       this.delegate = delegate;
-      this.index = i;
-      this.itemIndex = itemIndex;
-      this.item = item;
+      this.uniqueNumber = uniqueNumber;
     }
 
     @Override
@@ -151,12 +377,17 @@ public class ForEachSqlNode implements SqlNode {
 
     @Override
     public void appendSql(String sql) {
+      ItemTemplate template = sql == null ? null : getTemplate(sql);
+      if (template != null) {
+        delegate.appendSql(template.apply(uniqueNumber));
+        return;
+      }
       GenericTokenParser parser = new GenericTokenParser("#{", "}", new TokenHandler() {
         @Override
         public String handleToken(String content) {
-          String newContent = content.replaceFirst("^\\s*" + item + "(?![^.,:\\s])", itemizeItem(item, index));
-          if (itemIndex != null && newContent.equals(content)) {
-            newContent = content.replaceFirst("^\\s*" + itemIndex + "(?![^.,:\\s])", itemizeItem(itemIndex, index));
+          String newContent = content.replaceFirst("^\\s*" + item + "(?![^.,:\\s])", itemizeItem(item, uniqueNumber));
+          if (index != null && newContent.equals(content)) {
+            newContent = content.replaceFirst("^\\s*" + index + "(?![^.,:\\s])", itemizeItem(index, uniqueNumber));
           }
           return new StringBuilder("#{").append(newContent).append("}").toString();
         }
@@ -172,14 +403,13 @@ public class ForEachSqlNode implements SqlNode {
 
   }
 
-
   private class PrefixedContext extends DynamicContext {
     private DynamicContext delegate;
     private String prefix;
     private boolean prefixApplied;
 
     public PrefixedContext(DynamicContext delegate, String prefix) {
-      super(configuration, null);
+      super(delegate);
       this.delegate = delegate;
       this.prefix = prefix;
       this.prefixApplied = false;
@@ -201,7 +431,7 @@ public class ForEachSqlNode implements SqlNode {
 
     @Override
     public void appendSql(String sql) {
-      if (!prefixApplied && sql != null && sql.trim().length() > 0) {
+      if (!prefixApplied && sql != null && !isBlank(sql)) {
         delegate.appendSql(prefix);
         prefixApplied = true;
       }
@@ -219,4 +449,14 @@ public class ForEachSqlNode implements SqlNode {
     }
   }
 
+  // same as sql.trim().length() == 0
+  private static boolean isBlank(String sql) {
+    for (int i = 0; i < sql.length(); i++) {
+      if (sql.charAt(i) > ' ') {
+        return false;
+      }
+    }
+    return true;
+  }
+
 }
@@ -15,16 +15,32 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * @author Clinton Begin
  */
 public class MixedSqlNode implements SqlNode {
-  private List<SqlNode> contents;
+  // nested mixed nodes are inlined, they always apply all their contents
+  private final SqlNode[] contents;
 
   public MixedSqlNode(List<SqlNode> contents) {
-    this.contents = contents;
+    List<SqlNode> flattened = new ArrayList<SqlNode>(contents.size());
+    for (SqlNode sqlNode : contents) {
+      if (sqlNode instanceof MixedSqlNode) {
+        for (SqlNode nested : ((MixedSqlNode) sqlNode).contents) {
+          flattened.add(nested);
+        }
+      } else {
+        flattened.add(sqlNode);
+      }
+    }
+    this.contents = flattened.toArray(new SqlNode[flattened.size()]);
+  }
+
+  SqlNode[] getContents() {
+    return contents;
   }
 
   @Override
@@ -25,6 +25,9 @@ import org.apache.ibatis.builder.BuilderException;
 
 /**
  * Caches OGNL parsed expressions.
+ * <p>
+ * Expressions using only property paths, literals, comparisons, boolean logic and {@code size()} are compiled to a
+ * {@link CompiledExpression} and evaluated without OGNL, anything else is left to OGNL.
  *
  * @author Eduardo Macarron
  *
@@ -33,6 +36,9 @@ import org.apache.ibatis.builder.BuilderException;
 public final class OgnlCache {
 
   private static final Map<String, Object> expressionCache = new ConcurrentHashMap<String, Object>();
+  // OGNL trees of the compiled expressions, parsed when the compiled form can not evaluate the given values
+  private static final Map<String, Object> ognlExpressionCache = new ConcurrentHashMap<String, Object>();
+  private static final OgnlClassResolver CLASS_RESOLVER = new OgnlClassResolver();
 
   private OgnlCache() {
     // Prevent Instantiation of Static Class
@@ -40,20 +46,48 @@ public final class OgnlCache {
 
   public static Object getValue(String expression, Object root) {
     try {
-      Map<Object, OgnlClassResolver> context = Ognl.createDefaultContext(root, new OgnlClassResolver());
-      return Ognl.getValue(parseExpression(expression), context, root);
+      Object node = parseExpression(expression);
+      if (node instanceof CompiledExpression) {
+        try {
+          return ((CompiledExpression) node).getValue(root);
+        } catch (CompiledExpression.UnsupportedValueException e) {
+          // 编译后的表达式不支持这些值，交给OGNL计算，保证结果和异常都与OGNL一致
+          node = parseOgnlExpression(expression);
+        } catch (CompiledExpression.GetterException e) {
+          // getter本身抛出的异常，不再用OGNL重新计算一次
+          throw new BuilderException("Error evaluating expression '" + expression + "'. Cause: " + e.getCause(), e.getCause());
+        }
+      }
+      Map<Object, OgnlClassResolver> context = Ognl.createDefaultContext(root, CLASS_RESOLVER);
+      return Ognl.getValue(node, context, root);
     } catch (OgnlException e) {
       throw new BuilderException("Error evaluating expression '" + expression + "'. Cause: " + e, e);
     }
   }
 
+  /*
+   * Returns the compiled form of the expression when it only uses what CompiledExpression supports, the parsed
+   * OGNL tree otherwise.
+   */
   private static Object parseExpression(String expression) throws OgnlException {
     Object node = expressionCache.get(expression);
     if (node == null) {
-      node = Ognl.parseExpression(expression);
+      node = CompiledExpression.compile(expression);
+      if (node == null) {
+        node = Ognl.parseExpression(expression);
+      }
       expressionCache.put(expression, node);
     }
     return node;
   }
 
+  private static Object parseOgnlExpression(String expression) throws OgnlException {
+    Object node = ognlExpressionCache.get(expression);
+    if (node == null) {
+      node = Ognl.parseExpression(expression);
+      ognlExpressionCache.put(expression, node);
+    }
+    return node;
+  }
+
 }
@@ -15,8 +15,11 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import ognl.ClassResolver;
 
@@ -33,23 +36,49 @@ import org.apache.ibatis.io.Resources;
  */
 public class OgnlClassResolver implements ClassResolver {
 
-  private Map<String, Class<?>> classes = new HashMap<String, Class<?>>(101);
+  /*
+   * Classes resolved per context class loader. Both the loaders and the classes are weakly referenced so that a
+   * redeployed application does not stay reachable through the expressions it evaluated.
+   */
+  private final Map<ClassLoader, Map<String, Reference<Class<?>>>> classes = new WeakHashMap<ClassLoader, Map<String, Reference<Class<?>>>>();
 
   @Override
   public Class classForName(String className, Map context) throws ClassNotFoundException {
-    Class<?> result = null;
-    if ((result = classes.get(className)) == null) {
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    Class<?> result = getCachedClass(loader, className);
+    if (result == null) {
       try {
         result = Resources.classForName(className);
       } catch (ClassNotFoundException e1) {
         if (className.indexOf('.') == -1) {
           result = Resources.classForName("java.lang." + className);
-          classes.put("java.lang." + className, result);
+          putCachedClass(loader, "java.lang." + className, result);
         }
       }
-      classes.put(className, result);
+      if (result != null) {
+        putCachedClass(loader, className, result);
+      }
     }
     return result;
   }
 
+  private Class<?> getCachedClass(ClassLoader loader, String className) {
+    synchronized (classes) {
+      Map<String, Reference<Class<?>>> loaderClasses = classes.get(loader);
+      Reference<Class<?>> ref = loaderClasses == null ? null : loaderClasses.get(className);
+      return ref == null ? null : ref.get();
+    }
+  }
+
+  private void putCachedClass(ClassLoader loader, String className, Class<?> type) {
+    synchronized (classes) {
+      Map<String, Reference<Class<?>>> loaderClasses = classes.get(loader);
+      if (loaderClasses == null) {
+        loaderClasses = new HashMap<String, Reference<Class<?>>>();
+        classes.put(loader, loaderClasses);
+      }
+      loaderClasses.put(className, new WeakReference<Class<?>>(type));
+    }
+  }
+
 }
@@ -32,9 +32,10 @@ public class TrimSqlNode implements SqlNode {
   private SqlNode contents;
   private String prefix;
   private String suffix;
-  private List<String> prefixesToOverride;
-  private List<String> suffixesToOverride;
-  private Configuration configuration;
+  // precomputed override rules: the upper case prefixes with the length to remove, the trimmed upper case suffixes
+  private String[] prefixesToOverride;
+  private int[] prefixLengthsToRemove;
+  private String[] suffixesToOverride;
 
   public TrimSqlNode(Configuration configuration, SqlNode contents, String prefix, String prefixesToOverride, String suffix, String suffixesToOverride) {
     this(configuration, contents, prefix, parseOverrides(prefixesToOverride), suffix, parseOverrides(suffixesToOverride));
@@ -43,10 +44,19 @@ public class TrimSqlNode implements SqlNode {
   protected TrimSqlNode(Configuration configuration, SqlNode contents, String prefix, List<String> prefixesToOverride, String suffix, List<String> suffixesToOverride) {
     this.contents = contents;
     this.prefix = prefix;
-    this.prefixesToOverride = prefixesToOverride;
     this.suffix = suffix;
-    this.suffixesToOverride = suffixesToOverride;
-    this.configuration = configuration;
+    int prefixCount = prefixesToOverride == null ? 0 : prefixesToOverride.size();
+    this.prefixesToOverride = new String[prefixCount];
+    this.prefixLengthsToRemove = new int[prefixCount];
+    for (int i = 0; i < prefixCount; i++) {
+      this.prefixesToOverride[i] = prefixesToOverride.get(i);
+      this.prefixLengthsToRemove[i] = prefixesToOverride.get(i).trim().length();
+    }
+    int suffixCount = suffixesToOverride == null ? 0 : suffixesToOverride.size();
+    this.suffixesToOverride = new String[suffixCount];
+    for (int i = 0; i < suffixCount; i++) {
+      this.suffixesToOverride[i] = suffixesToOverride.get(i).trim();
+    }
   }
 
   @Override
@@ -71,24 +81,19 @@ public class TrimSqlNode implements SqlNode {
 
   private class FilteredDynamicContext extends DynamicContext {
     private DynamicContext delegate;
-    private boolean prefixApplied;
-    private boolean suffixApplied;
     private StringBuilder sqlBuffer;
 
     public FilteredDynamicContext(DynamicContext delegate) {
-      super(configuration, null);
+      super(delegate);
       this.delegate = delegate;
-      this.prefixApplied = false;
-      this.suffixApplied = false;
       this.sqlBuffer = new StringBuilder();
     }
 
     public void applyAll() {
-      sqlBuffer = new StringBuilder(sqlBuffer.toString().trim());
-      String trimmedUppercaseSql = sqlBuffer.toString().toUpperCase(Locale.ENGLISH);
-      if (trimmedUppercaseSql.length() > 0) {
-        applyPrefix(sqlBuffer, trimmedUppercaseSql);
-        applySuffix(sqlBuffer, trimmedUppercaseSql);
+      trim(sqlBuffer);
+      if (sqlBuffer.length() > 0) {
+        applyPrefix(sqlBuffer);
+        applySuffix(sqlBuffer);
       }
       delegate.appendSql(sqlBuffer.toString());
     }
@@ -118,44 +123,62 @@ public class TrimSqlNode implements SqlNode {
       return delegate.getSql();
     }
 
-    private void applyPrefix(StringBuilder sql, String trimmedUppercaseSql) {
-      if (!prefixApplied) {
-        prefixApplied = true;
-        if (prefixesToOverride != null) {
-          for (String toRemove : prefixesToOverride) {
-            if (trimmedUppercaseSql.startsWith(toRemove)) {
-              sql.delete(0, toRemove.trim().length());
-              break;
-            }
-          }
-        }
-        if (prefix != null) {
-          sql.insert(0, " ");
-          sql.insert(0, prefix);
+    // the overrides are upper case, they are compared ignoring the case instead of upper casing the whole SQL
+    private void applyPrefix(StringBuilder sql) {
+      for (int i = 0; i < prefixesToOverride.length; i++) {
+        if (regionMatches(sql, 0, prefixesToOverride[i])) {
+          sql.delete(0, prefixLengthsToRemove[i]);
+          break;
         }
       }
+      if (prefix != null) {
+        sql.insert(0, " ");
+        sql.insert(0, prefix);
+      }
     }
 
-    private void applySuffix(StringBuilder sql, String trimmedUppercaseSql) {
-      if (!suffixApplied) {
-        suffixApplied = true;
-        if (suffixesToOverride != null) {
-          for (String toRemove : suffixesToOverride) {
-            if (trimmedUppercaseSql.endsWith(toRemove) || trimmedUppercaseSql.endsWith(toRemove.trim())) {
-              int start = sql.length() - toRemove.trim().length();
-              int end = sql.length();
-              sql.delete(start, end);
-              break;
-            }
-          }
-        }
-        if (suffix != null) {
-          sql.append(" ");
-          sql.append(suffix);
+    private void applySuffix(StringBuilder sql) {
+      for (String toRemove : suffixesToOverride) {
+        // the SQL is trimmed, so it can only end with the override without its blanks
+        int start = sql.length() - toRemove.length();
+        if (start >= 0 && regionMatches(sql, start, toRemove)) {
+          sql.delete(start, sql.length());
+          break;
         }
       }
+      if (suffix != null) {
+        sql.append(" ");
+        sql.append(suffix);
+      }
     }
 
   }
 
+  private static boolean regionMatches(StringBuilder sql, int offset, String upperCase) {
+    if (offset + upperCase.length() > sql.length()) {
+      return false;
+    }
+    for (int i = 0; i < upperCase.length(); i++) {
+      char c = sql.charAt(offset + i);
+      if (Character.toUpperCase(c) != upperCase.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // same as String#trim(), without copying the content
+  private static void trim(StringBuilder sql) {
+    int end = sql.length();
+    while (end > 0 && sql.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    sql.setLength(end);
+    int start = 0;
+    while (start < end && sql.charAt(start) <= ' ') {
+      start++;
+    }
+    sql.delete(0, start);
+  }
+
 }
@@ -273,8 +273,9 @@ public class XMLScriptBuilder extends BaseBuilder {
             String open = nodeToHandle.getStringAttribute("open");
             String close = nodeToHandle.getStringAttribute("close");
             String separator = nodeToHandle.getStringAttribute("separator");
-            ForEachSqlNode forEachSqlNode =
-                    new ForEachSqlNode(configuration, mixedSqlNode, collection, index, item, open, close, separator);
+            boolean arrayParameter = nodeToHandle.getBooleanAttribute("arrayParameter", false);
+            ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, index, item,
+                    open, close, separator, arrayParameter);
             targetContents.add(forEachSqlNode);
         }
     }
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2009-2017 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+/**
+ * 以一个数组参数绑定IN列表的方式，SQL语句不再随列表长度变化
+ *
+ * How a <code>&lt;foreach arrayParameter="true"&gt;</code> binds its whole collection as a single array parameter.
+ * The foreach renders the content of the parentheses of the IN predicate it sits in, so the mapper is the same
+ * for every database and the SQL text does not depend on the number of elements:
+ * <pre>
+ * ID IN &lt;foreach collection="ids" item="id" open="(" separator="," close=")" arrayParameter="true"&gt;#{id}&lt;/foreach&gt;
+ * </pre>
+ * Without a dialect the elements are bound one by one as usual.
+ *
+ * @since 3.4.5
+ */
+public enum ArrayParameterDialect {
+
+    /**
+     * <code>ID IN (UNNEST(?))</code>
+     */
+    HSQLDB("UNNEST(", ")"),
+
+    /**
+     * <code>ID IN (SELECT UNNEST(?))</code>
+     */
+    POSTGRESQL("SELECT UNNEST(", ")");
+
+    private final String prefix;
+    private final String suffix;
+
+    ArrayParameterDialect(String prefix, String suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    /**
+     * Returns the elements of the array parameter as the content of an IN predicate.
+     *
+     * @param arrayParameter the parameter token, eg: <code>#{ids,typeHandler=org.apache.ibatis.type.ArrayTypeHandler}</code>
+     */
+    public String getInList(String arrayParameter) {
+        return prefix + arrayParameter + suffix;
+    }
+
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2009-2017 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+
+import org.apache.ibatis.io.Resources;
+
+/**
+ * 数据库的批量导入协议，用于SqlSession#bulkInsert
+ *
+ * The protocol {@link SqlSession#bulkInsert(String, Iterable)} streams the rows of a plain
+ * <code>INSERT INTO table (columns) VALUES (?, ...)</code> statement with. The rows are written as CSV from the
+ * values set by the type handlers of the parameters. The JDBC driver of the database is accessed by reflection.
+ *
+ * @since 3.4.5
+ */
+public enum BulkLoadDialect {
+
+    /**
+     * <code>COPY table (columns) FROM STDIN WITH CSV</code> through the CopyManager of the PostgreSQL driver.
+     */
+    POSTGRESQL {
+        @Override
+        public String getLoadSql(String table, String columns) {
+            return "COPY " + table + " (" + columns + ") FROM STDIN WITH CSV";
+        }
+
+        @Override
+        public long load(Connection connection, String loadSql, Reader rows) throws Exception {
+            Class<?> pgConnectionType = Resources.classForName("org.postgresql.PGConnection");
+            Object pgConnection = connection.unwrap(pgConnectionType);
+            try {
+                Object copyManager = pgConnectionType.getMethod("getCopyAPI").invoke(pgConnection);
+                Object rowCount = copyManager.getClass().getMethod("copyIn", String.class, Reader.class)
+                        .invoke(copyManager, loadSql, rows);
+                return ((Number) rowCount).longValue();
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+    };
+
+    /**
+     * Returns the statement loading the given columns of the table.
+     */
+    public abstract String getLoadSql(String table, String columns);
+
+    /**
+     * Loads the CSV rows (one per line, NULL being an unquoted empty value) with the statement.
+     *
+     * @return the number of loaded rows
+     */
+    public abstract long load(Connection connection, String loadSql, Reader rows) throws Exception;
+
+}
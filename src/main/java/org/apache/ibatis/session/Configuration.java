@@ -40,6 +40,7 @@ import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.BatchFlushListener;
 import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ReuseExecutor;
@@ -48,6 +49,7 @@ import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.executor.pagination.PaginationDialect;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
@@ -158,6 +160,44 @@ public class Configuration {
 
     protected ProxyFactory proxyFactory = new JavassistProxyFactory(); // #224 Using internal Javassist instead of OGNL
 
+    // 分页方言，为null时RowBounds在客户端跳过记录
+    protected PaginationDialect paginationDialect;
+
+    // 每个动态SQL缓存的解析结果数量（按生成的SQL区分），0表示不缓存
+    protected int dynamicSqlCacheSize = 16;
+
+    // <foreach arrayParameter="true">以数组参数绑定时使用的方言，为null时逐个元素绑定
+    protected ArrayParameterDialect arrayParameterDialect;
+
+    // BATCH执行器中，交替执行的insert语句是否归入各自已打开的批处理
+    protected boolean batchGroupingEnabled;
+
+    // BATCH执行器自动flush的阈值：单个语句的行数、所有语句的行数、参数的估算字节数，0表示不限制
+    protected int batchMaxStatementRows;
+    protected int batchMaxRows;
+    protected long batchMaxBytes;
+
+    // BATCH执行器在后台线程中执行的自动flush的最大数量，0表示在调用线程中执行
+    protected int batchMaxAsyncFlushes;
+    // 允许后台flush的JDBC驱动名称（DatabaseMetaData#getDriverName中包含的字符串）
+    protected Set<String> batchAsyncFlushDrivers = new HashSet<String>();
+
+    // 批处理执行后的回调
+    protected BatchFlushListener batchFlushListener;
+
+    // SqlSession#bulkInsert使用的数据库批量导入协议，为null时以批处理插入，每批的行数
+    protected BulkLoadDialect bulkLoadDialect;
+    protected int bulkLoadBatchSize = 1000;
+
+    // Mapper方法的多个入参是否打包为以数组保存的只读ArrayParamMap，而不是每次新建一个HashMap
+    protected boolean compactParamMapEnabled;
+
+    // BATCH执行器是否取回生成的主键并回填到参数中
+    protected boolean batchKeyRetrievalEnabled = true;
+
+    // BATCH执行器把连续的单行insert改写成多行insert时，每条语句最多的行数，0表示不改写
+    protected int batchInsertRewriteRows;
+
     protected String databaseId;
     /**
      * Configuration factory class.
@@ -394,6 +434,257 @@ public class Configuration {
         this.proxyFactory = proxyFactory;
     }
 
+    /**
+     * @since 3.4.5
+     */
+    public PaginationDialect getPaginationDialect() {
+        return paginationDialect;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public void setPaginationDialect(PaginationDialect paginationDialect) {
+        this.paginationDialect = paginationDialect;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public int getDynamicSqlCacheSize() {
+        return dynamicSqlCacheSize;
+    }
+
+    /**
+     * Sets how many parsed SQL shapes each dynamic SQL source keeps, 0 disables the cache.
+     * @since 3.4.5
+     */
+    public void setDynamicSqlCacheSize(int dynamicSqlCacheSize) {
+        this.dynamicSqlCacheSize = dynamicSqlCacheSize;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public ArrayParameterDialect getArrayParameterDialect() {
+        return arrayParameterDialect;
+    }
+
+    /**
+     * Sets how the collections of the foreach elements marked with arrayParameter="true" are bound, null binds
+     * their elements one by one.
+     * @since 3.4.5
+     */
+    public void setArrayParameterDialect(ArrayParameterDialect arrayParameterDialect) {
+        this.arrayParameterDialect = arrayParameterDialect;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public boolean isBatchGroupingEnabled() {
+        return batchGroupingEnabled;
+    }
+
+    /**
+     * Sets whether the batch executor adds interleaved inserts to the batches already opened for them.
+     * @since 3.4.5
+     */
+    public void setBatchGroupingEnabled(boolean batchGroupingEnabled) {
+        this.batchGroupingEnabled = batchGroupingEnabled;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public int getBatchMaxStatementRows() {
+        return batchMaxStatementRows;
+    }
+
+    /**
+     * Sets the number of rows batched for one statement that makes the batch executor flush, 0 for no limit.
+     * @since 3.4.5
+     */
+    public void setBatchMaxStatementRows(int batchMaxStatementRows) {
+        this.batchMaxStatementRows = batchMaxStatementRows;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public int getBatchMaxRows() {
+        return batchMaxRows;
+    }
+
+    /**
+     * Sets the number of rows batched for all the statements that makes the batch executor flush, 0 for no limit.
+     * @since 3.4.5
+     */
+    public void setBatchMaxRows(int batchMaxRows) {
+        this.batchMaxRows = batchMaxRows;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public long getBatchMaxBytes() {
+        return batchMaxBytes;
+    }
+
+    /**
+     * Sets the estimated size of the batched values that makes the batch executor flush, 0 for no limit.
+     * @since 3.4.5
+     */
+    public void setBatchMaxBytes(long batchMaxBytes) {
+        this.batchMaxBytes = batchMaxBytes;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public int getBatchMaxAsyncFlushes() {
+        return batchMaxAsyncFlushes;
+    }
+
+    /**
+     * Sets the number of automatic flushes the batch executor may run in the background while the next rows are
+     * batched, 0 to run them on the calling thread. Only used with the drivers of
+     * {@link #getBatchAsyncFlushDrivers()}.
+     * @since 3.4.5
+     */
+    public void setBatchMaxAsyncFlushes(int batchMaxAsyncFlushes) {
+        this.batchMaxAsyncFlushes = batchMaxAsyncFlushes;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public Set<String> getBatchAsyncFlushDrivers() {
+        return batchAsyncFlushDrivers;
+    }
+
+    /**
+     * Sets the JDBC drivers whose connections may be handed to the background flush thread: a driver is allowed when
+     * its name ({@link java.sql.DatabaseMetaData#getDriverName()}) contains one of the given strings. The connection
+     * is never used by the caller and the flush thread at the same time, but it is used from both threads.
+     * @since 3.4.5
+     */
+    public void setBatchAsyncFlushDrivers(Set<String> batchAsyncFlushDrivers) {
+        this.batchAsyncFlushDrivers = batchAsyncFlushDrivers;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public BatchFlushListener getBatchFlushListener() {
+        return batchFlushListener;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public void setBatchFlushListener(BatchFlushListener batchFlushListener) {
+        this.batchFlushListener = batchFlushListener;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public BulkLoadDialect getBulkLoadDialect() {
+        return bulkLoadDialect;
+    }
+
+    /**
+     * Sets the bulk load protocol of the database used by {@link SqlSession#bulkInsert(String, Iterable)}, null to
+     * insert the rows with JDBC batches.
+     * @since 3.4.5
+     */
+    public void setBulkLoadDialect(BulkLoadDialect bulkLoadDialect) {
+        this.bulkLoadDialect = bulkLoadDialect;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public int getBulkLoadBatchSize() {
+        return bulkLoadBatchSize;
+    }
+
+    /**
+     * Sets the number of rows of the JDBC batches {@link SqlSession#bulkInsert(String, Iterable)} sends when the
+     * rows are not streamed with a bulk load protocol.
+     * @since 3.4.5
+     */
+    public void setBulkLoadBatchSize(int bulkLoadBatchSize) {
+        this.bulkLoadBatchSize = bulkLoadBatchSize;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public boolean isBatchKeyRetrievalEnabled() {
+        return batchKeyRetrievalEnabled;
+    }
+
+    /**
+     * Sets whether the batch executor reads back the generated keys of the batched statements (true by default).
+     * Turning it off makes batches fire and forget: the statements do not even ask the driver for their keys.
+     * @since 3.4.5
+     */
+    public void setBatchKeyRetrievalEnabled(boolean batchKeyRetrievalEnabled) {
+        this.batchKeyRetrievalEnabled = batchKeyRetrievalEnabled;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public int getBatchInsertRewriteRows() {
+        return batchInsertRewriteRows;
+    }
+
+    /**
+     * Sets the maximum number of rows of the multi-row inserts the batch executor sends in place of the batched
+     * executions of a simple <code>INSERT ... VALUES (...)</code>, 0 to send them as they are. Inserts using generated
+     * keys are only rewritten when {@link #isBatchKeyRetrievalEnabled()} is off.
+     * @since 3.4.5
+     */
+    public void setBatchInsertRewriteRows(int batchInsertRewriteRows) {
+        this.batchInsertRewriteRows = batchInsertRewriteRows;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public boolean isCompactParamMapEnabled() {
+        return compactParamMapEnabled;
+    }
+
+    /**
+     * Sets whether the parameters of mapper methods with several parameters are passed as a read-only
+     * {@link org.apache.ibatis.binding.ArrayParamMap} instead of a new {@link org.apache.ibatis.binding.MapperMethod.ParamMap}.
+     * Plugins that add values to the parameter map need it off (the default).
+     * @since 3.4.5
+     */
+    public void setCompactParamMapEnabled(boolean compactParamMapEnabled) {
+        this.compactParamMapEnabled = compactParamMapEnabled;
+    }
+
+    /**
+     * @since 3.4.5
+     */
+    public boolean isInterceptorChainCompiled() {
+        return interceptorChain.isCompiled();
+    }
+
+    /**
+     * Sets whether the plugins are applied through one proxy per plugged object that dispatches each method to its
+     * interceptors, see {@link InterceptorChain#setCompiled(boolean)}.
+     * @since 3.4.5
+     */
+    public void setInterceptorChainCompiled(boolean interceptorChainCompiled) {
+        interceptorChain.setCompiled(interceptorChainCompiled);
+    }
+
     public boolean isAggressiveLazyLoading() {
         return aggressiveLazyLoading;
     }
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
 import org.apache.ibatis.executor.BatchResult;
 
 /**
@@ -143,6 +144,36 @@ public interface SqlSession extends Closeable {
    */
   <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * Same as {@link #selectCursor(String)} but the mapped objects are pushed to a subscriber as it requests them.
+   * @param <T> the returned cursor element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @return Publisher of mapped objects
+   */
+  <T> CursorPublisher<T> selectPublisher(String statement);
+
+  /**
+   * Same as {@link #selectCursor(String, Object)} but the mapped objects are pushed to a subscriber as it requests them.
+   * @param <T> the returned cursor element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Publisher of mapped objects
+   */
+  <T> CursorPublisher<T> selectPublisher(String statement, Object parameter);
+
+  /**
+   * Same as {@link #selectCursor(String, Object, RowBounds)} but the mapped objects are pushed to a subscriber
+   * as it requests them. The statement is executed right away, rows are only mapped on demand and the cursor is
+   * closed when the subscriber cancels, fails or completes. The session stays open: to release it with the stream,
+   * use {@link CursorPublisher#openDedicated(SqlSessionFactory, String, Object, RowBounds)}.
+   * @param <T> the returned cursor element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds  Bounds to limit object retrieval
+   * @return Publisher of mapped objects
+   */
+  <T> CursorPublisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds);
+
   /**
    * Retrieve a single row mapped from the statement key and parameter
    * using a {@code ResultHandler}.
@@ -186,6 +217,19 @@ public interface SqlSession extends Closeable {
    */
   int insert(String statement, Object parameter);
 
+  /**
+   * Execute an insert statement for each of the given parameter objects, as fast as the database allows.
+   * Plain <code>INSERT INTO table (columns) VALUES (?, ...)</code> statements that do not read generated keys are
+   * streamed with the bulk load protocol of the database when {@link Configuration#getBulkLoadDialect()} is set,
+   * other statements are executed as JDBC batches of {@link Configuration#getBulkLoadBatchSize()} rows.
+   * The rows are read one at a time (eg: from a {@link org.apache.ibatis.cursor.Cursor}).
+   * @param statement Unique identifier matching the insert statement to execute.
+   * @param parameters The parameter objects of the rows.
+   * @return long The number of inserted rows.
+   * @since 3.4.5
+   */
+  long bulkInsert(String statement, Iterable<?> parameters);
+
   /**
    * Execute an update statement. The number of rows affected will be returned.
    * @param statement Unique identifier matching the statement to execute.
@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.Properties;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.reflection.ExceptionUtil;
 
@@ -200,6 +201,21 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
         return sqlSessionProxy.selectCursor(statement, parameter, rowBounds);
     }
 
+    @Override
+    public <T> CursorPublisher<T> selectPublisher(String statement) {
+        return sqlSessionProxy.selectPublisher(statement);
+    }
+
+    @Override
+    public <T> CursorPublisher<T> selectPublisher(String statement, Object parameter) {
+        return sqlSessionProxy.selectPublisher(statement, parameter);
+    }
+
+    @Override
+    public <T> CursorPublisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds) {
+        return sqlSessionProxy.selectPublisher(statement, parameter, rowBounds);
+    }
+
     @Override
     public <E> List<E> selectList(String statement) {
         return sqlSessionProxy.<E>selectList(statement);
@@ -240,6 +256,11 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
         return sqlSessionProxy.insert(statement, parameter);
     }
 
+    @Override
+    public long bulkInsert(String statement, Iterable<?> parameters) {
+        return sqlSessionProxy.bulkInsert(statement, parameters);
+    }
+
     @Override
     public int update(String statement) {
         return sqlSessionProxy.update(statement);
@@ -26,9 +26,11 @@ import java.util.Map;
 
 import org.apache.ibatis.binding.BindingException;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
 import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.exceptions.TooManyResultsException;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.BulkLoader;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.result.DefaultMapResultHandler;
@@ -132,6 +134,22 @@ public class DefaultSqlSession implements SqlSession {
         }
     }
 
+    @Override
+    public <T> CursorPublisher<T> selectPublisher(String statement) {
+        return selectPublisher(statement, null);
+    }
+
+    @Override
+    public <T> CursorPublisher<T> selectPublisher(String statement, Object parameter) {
+        return selectPublisher(statement, parameter, RowBounds.DEFAULT);
+    }
+
+    @Override
+    public <T> CursorPublisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds) {
+        // 订阅结束（完成、失败或取消）时只关闭游标，会话由调用者关闭
+        return new CursorPublisher<T>(this.<T>selectCursor(statement, parameter, rowBounds));
+    }
+
     @Override
     public <E> List<E> selectList(String statement) {
         return this.selectList(statement, null);
@@ -193,6 +211,19 @@ public class DefaultSqlSession implements SqlSession {
         return update(statement, parameter);
     }
 
+    @Override
+    public long bulkInsert(String statement, Iterable<?> parameters) {
+        try {
+            dirty = true;
+            MappedStatement ms = configuration.getMappedStatement(statement);
+            return new BulkLoader(configuration, executor).load(ms, parameters);
+        } catch (Exception e) {
+            throw ExceptionFactory.wrapException("Error bulk inserting into database.  Cause: " + e, e);
+        } finally {
+            ErrorContext.instance().reset();
+        }
+    }
+
     @Override
     public int update(String statement) {
         return update(statement, null);
@@ -15,24 +15,126 @@
  */
 package org.apache.ibatis.type;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.Array;
 import java.sql.CallableStatement;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
+ * Binds {@link Array}s as they are. Java arrays (primitive ones included) and collections are turned into an
+ * {@link Array} of the connection first, the SQL type of the elements being the jdbcType of the parameter when it
+ * is set, eg: #{ids,jdbcType=BIGINT,typeHandler=org.apache.ibatis.type.ArrayTypeHandler}, or else derived from
+ * the type of the elements.
+ *
  * @author Clinton Begin
  */
 public class ArrayTypeHandler extends BaseTypeHandler<Object> {
 
+  // 元素的Java类型对应的SQL类型名称，用于Connection.createArrayOf
+  private static final Map<Class<?>, String> STANDARD_TYPE_NAMES = new HashMap<Class<?>, String>();
+
+  static {
+    STANDARD_TYPE_NAMES.put(String.class, JdbcType.VARCHAR.name());
+    STANDARD_TYPE_NAMES.put(Character.class, JdbcType.CHAR.name());
+    STANDARD_TYPE_NAMES.put(Boolean.class, JdbcType.BOOLEAN.name());
+    STANDARD_TYPE_NAMES.put(Byte.class, JdbcType.TINYINT.name());
+    STANDARD_TYPE_NAMES.put(Short.class, JdbcType.SMALLINT.name());
+    STANDARD_TYPE_NAMES.put(Integer.class, JdbcType.INTEGER.name());
+    STANDARD_TYPE_NAMES.put(Long.class, JdbcType.BIGINT.name());
+    STANDARD_TYPE_NAMES.put(BigInteger.class, JdbcType.BIGINT.name());
+    STANDARD_TYPE_NAMES.put(Float.class, JdbcType.REAL.name());
+    STANDARD_TYPE_NAMES.put(Double.class, JdbcType.DOUBLE.name());
+    STANDARD_TYPE_NAMES.put(BigDecimal.class, JdbcType.NUMERIC.name());
+    STANDARD_TYPE_NAMES.put(java.sql.Date.class, JdbcType.DATE.name());
+    STANDARD_TYPE_NAMES.put(Time.class, JdbcType.TIME.name());
+    STANDARD_TYPE_NAMES.put(Timestamp.class, JdbcType.TIMESTAMP.name());
+  }
+
   public ArrayTypeHandler() {
     super();
   }
 
   @Override
   public void setNonNullParameter(PreparedStatement ps, int i, Object parameter, JdbcType jdbcType) throws SQLException {
-    ps.setArray(i, (Array) parameter);
+    if (parameter instanceof Array) {
+      ps.setArray(i, (Array) parameter);
+      return;
+    }
+    Object[] elements = toElements(parameter);
+    Array array = ps.getConnection().createArrayOf(resolveTypeName(parameter, elements, jdbcType), elements);
+    // not freed here: the driver may read it when the statement is executed, it is released with the statement
+    ps.setArray(i, array);
+  }
+
+  private static Object[] toElements(Object parameter) {
+    if (parameter instanceof Object[]) {
+      return (Object[]) parameter;
+    }
+    if (parameter instanceof Collection) {
+      return ((Collection<?>) parameter).toArray();
+    }
+    if (parameter.getClass().isArray()) {
+      // primitive array
+      int length = java.lang.reflect.Array.getLength(parameter);
+      Object[] elements = new Object[length];
+      for (int i = 0; i < length; i++) {
+        elements[i] = java.lang.reflect.Array.get(parameter, i);
+      }
+      return elements;
+    }
+    throw new TypeException("Could not bind " + parameter.getClass().getName()
+        + " as an array. It must be a java.sql.Array, a Java array or a Collection.");
+  }
+
+  private static String resolveTypeName(Object parameter, Object[] elements, JdbcType jdbcType) {
+    if (jdbcType != null && jdbcType != JdbcType.ARRAY) {
+      return jdbcType.name();
+    }
+    String typeName = null;
+    if (parameter.getClass().isArray()) {
+      typeName = STANDARD_TYPE_NAMES.get(boxed(parameter.getClass().getComponentType()));
+    }
+    for (int i = 0; typeName == null && i < elements.length; i++) {
+      if (elements[i] != null) {
+        typeName = STANDARD_TYPE_NAMES.get(elements[i].getClass());
+      }
+    }
+    if (typeName == null) {
+      throw new TypeException("Could not determine the SQL type of the elements of " + parameter.getClass().getName()
+          + ". Specify it with the jdbcType of the parameter.");
+    }
+    return typeName;
+  }
+
+  private static Class<?> boxed(Class<?> type) {
+    if (!type.isPrimitive()) {
+      return type;
+    } else if (type == int.class) {
+      return Integer.class;
+    } else if (type == long.class) {
+      return Long.class;
+    } else if (type == short.class) {
+      return Short.class;
+    } else if (type == byte.class) {
+      return Byte.class;
+    } else if (type == boolean.class) {
+      return Boolean.class;
+    } else if (type == double.class) {
+      return Double.class;
+    } else if (type == float.class) {
+      return Float.class;
+    } else if (type == char.class) {
+      return Character.class;
+    }
+    return type;
   }
 
   @Override
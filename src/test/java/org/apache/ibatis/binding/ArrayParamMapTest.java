@@ -0,0 +1,114 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.binding;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.reflection.wrapper.ParamMapWrapper;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+public class ArrayParamMapTest {
+
+  private static final ArrayParamMap.Names NAMES = new ArrayParamMap.Names(
+      new String[] { "id", "author" }, new String[] { "param1", "param2" });
+
+  @Test
+  public void shouldGetValuesByNameAndGenericName() {
+    Author author = new Author(101);
+    Map<String, Object> params = NAMES.newParamMap(new Object[] { 1, author });
+    assertEquals(4, params.size());
+    assertEquals(1, params.get("id"));
+    assertEquals(1, params.get("param1"));
+    assertSame(author, params.get("author"));
+    assertSame(author, params.get("param2"));
+    assertTrue(params.containsKey("param2"));
+    assertFalse(params.containsKey("param3"));
+    assertFalse(params.containsKey(1));
+  }
+
+  @Test
+  public void shouldBeEqualToParamMapWithSameEntries() {
+    Map<String, Object> expected = new HashMap<String, Object>();
+    expected.put("id", 1);
+    expected.put("param1", 1);
+    expected.put("author", null);
+    expected.put("param2", null);
+    Map<String, Object> params = NAMES.newParamMap(new Object[] { 1, null });
+    assertEquals(expected, params);
+    assertEquals(expected.hashCode(), params.hashCode());
+    assertEquals(expected, new HashMap<String, Object>(params));
+  }
+
+  @Test
+  public void shouldKeepLastValueOfDuplicateName() {
+    ArrayParamMap.Names names = new ArrayParamMap.Names(new String[] { "id", "id" }, new String[] { "param1", "param2" });
+    Map<String, Object> params = names.newParamMap(new Object[] { 1, 2 });
+    assertEquals(3, params.size());
+    assertEquals(2, params.get("id"));
+    assertEquals(1, params.get("param1"));
+  }
+
+  @Test(expected = BindingException.class)
+  public void shouldThrowOnMissingParameter() {
+    NAMES.newParamMap(new Object[] { 1, null }).get("name");
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldNotBeModifiable() {
+    NAMES.newParamMap(new Object[] { 1, null }).put("id", 2);
+  }
+
+  @Test
+  public void shouldSetPropertiesOfValuesOnly() {
+    Author author = new Author(101);
+    MetaObject metaObject = SystemMetaObject.forObject(NAMES.newParamMap(new Object[] { 1, author }));
+    assertTrue(metaObject.getObjectWrapper() instanceof ParamMapWrapper);
+    assertEquals(101, metaObject.getValue("author.id"));
+    assertTrue(metaObject.hasSetter("author.username"));
+    metaObject.setValue("author.username", "jim");
+    assertEquals("jim", author.getUsername());
+
+    assertFalse(metaObject.hasSetter("id"));
+    assertFalse(metaObject.hasSetter("name"));
+    try {
+      metaObject.setValue("id", 2);
+      fail();
+    } catch (ReflectionException e) {
+      assertTrue(e.getMessage().contains("read-only"));
+    }
+  }
+
+  @Test
+  public void shouldResolveBindingsFromParameters() {
+    DynamicContext context = new DynamicContext(new Configuration(), NAMES.newParamMap(new Object[] { 1, null }));
+    assertEquals(1, context.getBindings().get("id"));
+    assertEquals(1, context.getBindings().get("param1"));
+    assertNull(context.getBindings().get("author"));
+    assertNull(context.getBindings().get("name"));
+    context.bind("id", 2);
+    assertEquals(2, context.getBindings().get("id"));
+  }
+
+}
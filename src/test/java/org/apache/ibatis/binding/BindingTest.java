@@ -19,6 +19,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
@@ -30,6 +31,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
 import javassist.util.proxy.Proxy;
 
@@ -44,13 +46,17 @@ import org.apache.ibatis.domain.blog.Blog;
 import org.apache.ibatis.domain.blog.DraftPost;
 import org.apache.ibatis.domain.blog.Post;
 import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.result.DefaultResultHandler;
 import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.defaults.DefaultSqlSession;
 import org.apache.ibatis.transaction.TransactionFactory;
 import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
 import org.junit.BeforeClass;
@@ -797,4 +803,55 @@ public class BindingTest {
     assertTrue(mapperClasses.contains(BoundAuthorMapper.class));
   }
 
+  @Test
+  public void shouldGenerateMapperClassWithJavassistProxyFactory() {
+    SqlSession session = sqlSessionFactory.openSession();
+    try {
+      BoundAuthorMapper mapper = session.getMapper(BoundAuthorMapper.class);
+      assertTrue(mapper instanceof GeneratedMapper);
+      assertEquals(BoundAuthorMapper.class.getName() + MapperClassGenerator.CLASS_NAME_SUFFIX, mapper.getClass().getName());
+      assertSame(mapper.getClass(), session.getMapper(BoundAuthorMapper.class).getClass());
+      assertEquals(101, mapper.selectAuthor(101).getId());
+      assertEquals(3, mapper.findPostsInArray(new Integer[]{1, 3, 5}).size());
+    } finally {
+      session.close();
+    }
+  }
+
+  @Test
+  public void shouldUseJdkProxyWithOtherProxyFactory() {
+    Configuration configuration = new Configuration();
+    configuration.setProxyFactory(new ProxyFactory() {
+      @Override
+      public void setProperties(Properties properties) {
+      }
+
+      @Override
+      public Object createProxy(Object target, ResultLoaderMap lazyLoader, Configuration configuration,
+          ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+        return target;
+      }
+    });
+    configuration.addMapper(BoundAuthorMapper.class);
+    BoundAuthorMapper mapper = configuration.getMapper(BoundAuthorMapper.class, new DefaultSqlSession(configuration, null));
+    assertTrue(java.lang.reflect.Proxy.isProxyClass(mapper.getClass()));
+  }
+
+  @Test
+  public void shouldNotGenerateMapperClassForSameMethodInTwoInterfaces() {
+    assertNull(MapperClassGenerator.mapperMethods(BothFinders.class));
+    assertNull(MapperClassGenerator.getConstructor(BothFinders.class));
+  }
+
+  interface FirstFinder {
+    Author find(int id);
+  }
+
+  interface SecondFinder {
+    Author find(int id);
+  }
+
+  interface BothFinders extends FirstFinder, SecondFinder {
+  }
+
 }
@@ -37,14 +37,19 @@ import org.apache.ibatis.domain.blog.mappers.NestedBlogMapper;
 import org.apache.ibatis.domain.jpetstore.Cart;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.executor.pagination.LimitOffsetPaginationDialect;
+import org.apache.ibatis.executor.pagination.MySqlPaginationDialect;
+import org.apache.ibatis.executor.pagination.OffsetFetchPaginationDialect;
 import org.apache.ibatis.io.JBoss6VFS;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.logging.slf4j.Slf4jImpl;
 import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.scripting.defaults.RawLanguageDriver;
 import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.ArrayParameterDialect;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.AutoMappingUnknownColumnBehavior;
+import org.apache.ibatis.session.BulkLoadDialect;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.LocalCacheScope;
@@ -77,6 +82,22 @@ public class XmlConfigBuilderTest {
     assertThat(config.getAutoMappingUnknownColumnBehavior(), is(AutoMappingUnknownColumnBehavior.NONE));
     assertThat(config.isCacheEnabled(), is(true));
     assertThat(config.getProxyFactory(), is(instanceOf(JavassistProxyFactory.class)));
+    assertNull(config.getPaginationDialect());
+    assertThat(config.getDynamicSqlCacheSize(), is(16));
+    assertNull(config.getArrayParameterDialect());
+    assertThat(config.isBatchGroupingEnabled(), is(false));
+    assertThat(config.getBatchMaxStatementRows(), is(0));
+    assertThat(config.getBatchMaxRows(), is(0));
+    assertThat(config.getBatchMaxBytes(), is(0L));
+    assertThat(config.getBatchMaxAsyncFlushes(), is(0));
+    assertThat(config.getBatchAsyncFlushDrivers().isEmpty(), is(true));
+    assertThat(config.isBatchKeyRetrievalEnabled(), is(true));
+    assertThat(config.getBatchInsertRewriteRows(), is(0));
+    assertNull(config.getBulkLoadDialect());
+    assertThat(config.getBulkLoadBatchSize(), is(1000));
+    assertThat(config.isInterceptorChainCompiled(), is(false));
+    assertThat(config.isCompactParamMapEnabled(), is(false));
+    assertNull(config.getBatchFlushListener());
     assertThat(config.isLazyLoadingEnabled(), is(false));
     assertThat(config.isAggressiveLazyLoading(), is(false));
     assertThat(config.isMultipleResultSetsEnabled(), is(true));
@@ -168,6 +189,21 @@ public class XmlConfigBuilderTest {
       assertThat(config.getAutoMappingUnknownColumnBehavior(), is(AutoMappingUnknownColumnBehavior.WARNING));
       assertThat(config.isCacheEnabled(), is(false));
       assertThat(config.getProxyFactory(), is(instanceOf(CglibProxyFactory.class)));
+      assertThat(config.getPaginationDialect(), is(instanceOf(LimitOffsetPaginationDialect.class)));
+      assertThat(config.getDynamicSqlCacheSize(), is(32));
+      assertThat(config.getArrayParameterDialect(), is(ArrayParameterDialect.POSTGRESQL));
+      assertThat(config.isBatchGroupingEnabled(), is(true));
+      assertThat(config.getBatchMaxStatementRows(), is(500));
+      assertThat(config.getBatchMaxRows(), is(2000));
+      assertThat(config.getBatchMaxBytes(), is(8388608L));
+      assertThat(config.getBatchMaxAsyncFlushes(), is(2));
+      assertThat(config.getBatchAsyncFlushDrivers(), is((Set<String>) new HashSet<String>(Arrays.asList("Derby", "PostgreSQL"))));
+      assertThat(config.isBatchKeyRetrievalEnabled(), is(false));
+      assertThat(config.getBatchInsertRewriteRows(), is(100));
+      assertThat(config.getBulkLoadDialect(), is(BulkLoadDialect.POSTGRESQL));
+      assertThat(config.getBulkLoadBatchSize(), is(5000));
+      assertThat(config.isInterceptorChainCompiled(), is(true));
+      assertThat(config.isCompactParamMapEnabled(), is(true));
       assertThat(config.isLazyLoadingEnabled(), is(true));
       assertThat(config.isAggressiveLazyLoading(), is(true));
       assertThat(config.isMultipleResultSetsEnabled(), is(false));
@@ -248,6 +284,40 @@ public class XmlConfigBuilderTest {
     builder.parse();
   }
 
+  @Test
+  public void shouldResolveBuiltInPaginationDialectsWithoutTypeAliases() {
+    final String MAPPER_CONFIG = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+            + "<!DOCTYPE configuration PUBLIC \"-//mybatis.org//DTD Config 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-config.dtd\">\n"
+            + "<configuration>\n"
+            + "  <settings>\n"
+            + "    <setting name=\"paginationDialect\" value=\"mysql\"/>\n"
+            + "  </settings>\n"
+            + "  <typeAliases>\n"
+            + "    <typeAlias alias=\"Mysql\" type=\"org.apache.ibatis.domain.blog.Author\"/>\n"
+            + "  </typeAliases>\n"
+            + "</configuration>\n";
+
+    XMLConfigBuilder builder = new XMLConfigBuilder(new StringReader(MAPPER_CONFIG));
+    Configuration config = builder.parse();
+    assertThat(config.getPaginationDialect(), is(instanceOf(MySqlPaginationDialect.class)));
+    assertEquals(Author.class, config.getTypeAliasRegistry().resolveAlias("Mysql"));
+  }
+
+  @Test
+  public void shouldResolvePaginationDialectFromClassName() {
+    final String MAPPER_CONFIG = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+            + "<!DOCTYPE configuration PUBLIC \"-//mybatis.org//DTD Config 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-config.dtd\">\n"
+            + "<configuration>\n"
+            + "  <settings>\n"
+            + "    <setting name=\"paginationDialect\" value=\"org.apache.ibatis.executor.pagination.OffsetFetchPaginationDialect\"/>\n"
+            + "  </settings>\n"
+            + "</configuration>\n";
+
+    XMLConfigBuilder builder = new XMLConfigBuilder(new StringReader(MAPPER_CONFIG));
+    Configuration config = builder.parse();
+    assertThat(config.getPaginationDialect(), is(instanceOf(OffsetFetchPaginationDialect.class)));
+  }
+
   @Test
   public void unknownSettings() {
     final String MAPPER_CONFIG = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
@@ -16,19 +16,25 @@
 package org.apache.ibatis.builder.xml.dynamic;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.sql.SQLException;
+import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.scripting.xmltags.ChooseSqlNode;
 import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
 import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
@@ -36,11 +42,14 @@ import org.apache.ibatis.scripting.xmltags.IfSqlNode;
 import org.apache.ibatis.scripting.xmltags.MixedSqlNode;
 import org.apache.ibatis.scripting.xmltags.SetSqlNode;
 import org.apache.ibatis.scripting.xmltags.SqlNode;
+import org.apache.ibatis.scripting.xmltags.StaticTextSqlNode;
 import org.apache.ibatis.scripting.xmltags.TextSqlNode;
+import org.apache.ibatis.scripting.xmltags.TrimSqlNode;
 import org.apache.ibatis.scripting.xmltags.WhereSqlNode;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.type.JdbcType;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -364,6 +373,151 @@ public class DynamicSqlSourceTest extends BaseDataTest {
     assertEquals("__frch_u_0", boundSql.getParameterMappings().get(3).getProperty());
   }
 
+  @Test
+  public void shouldReuseParsedSqlForSameShape() throws Exception {
+    Configuration configuration = new Configuration();
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new TextSqlNode("SELECT * FROM BLOG"),
+        new IfSqlNode(mixedContents(new TextSqlNode("WHERE ID = #{id}")), "id != null")));
+    BoundSql first = source.getBoundSql(new Bean("1"));
+    BoundSql second = source.getBoundSql(new Bean("2"));
+    assertEquals("SELECT * FROM BLOG WHERE ID = ?", second.getSql());
+    assertSame(first.getParameterMappings(), second.getParameterMappings());
+    assertEquals("2", ((Bean) second.getParameterObject()).getId());
+
+    BoundSql other = source.getBoundSql(new Bean(null));
+    assertEquals("SELECT * FROM BLOG", other.getSql());
+    assertEquals(0, other.getParameterMappings().size());
+
+    configuration.setDynamicSqlCacheSize(0);
+    assertNotSame(first.getParameterMappings(), source.getBoundSql(new Bean("3")).getParameterMappings());
+  }
+
+  @Test
+  public void shouldNotReuseShapeWhenBoundValueTypesDiffer() throws Exception {
+    DynamicSqlSource source = new DynamicSqlSource(new Configuration(), mixedContents(
+        new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(new Configuration(), mixedContents(new TextSqlNode("#{item}")), "list", "index", "item", "(", ")", ",")));
+    Map<String, Object> parameterObject = new HashMap<String, Object>();
+    parameterObject.put("list", Arrays.asList(1, 2));
+    BoundSql integers = source.getBoundSql(parameterObject);
+    parameterObject.put("list", Arrays.asList("1", "2"));
+    BoundSql strings = source.getBoundSql(parameterObject);
+    assertEquals(integers.getSql(), strings.getSql());
+    assertEquals(Integer.class, integers.getParameterMappings().get(0).getJavaType());
+    assertEquals(String.class, strings.getParameterMappings().get(0).getJavaType());
+    parameterObject.put("list", Arrays.asList(3, 4));
+    assertEquals(Integer.class, source.getBoundSql(parameterObject).getParameterMappings().get(1).getJavaType());
+  }
+
+  @Test
+  public void shouldRewriteItemAndIndexTokensOfNestedForEach() throws Exception {
+    Map<String, Object> parameterObject = new HashMap<String, Object>();
+    Map<String, List<Integer>> groups = new LinkedHashMap<String, List<Integer>>();
+    groups.put("a", Arrays.asList(1, 2));
+    groups.put("b", Arrays.asList(3));
+    parameterObject.put("groups", groups);
+    Configuration configuration = new Configuration();
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new TextSqlNode("SELECT * FROM BLOG WHERE"),
+        new ForEachSqlNode(configuration, mixedContents(
+            new StaticTextSqlNode("(NAME = #{ key } AND ID IN"),
+            new ForEachSqlNode(configuration, mixedContents(new StaticTextSqlNode("#{id,jdbcType=INTEGER} \\#{id} #{key}")),
+                "values", "i", "id", "(", ")", ","),
+            new StaticTextSqlNode(")")), "groups", "key", "values", "", "", "OR")));
+    BoundSql boundSql = source.getBoundSql(parameterObject);
+    // the escaped token is left to the SQL source builder
+    assertEquals("SELECT * FROM BLOG WHERE   (NAME = ? AND ID IN (  ? ? ? , ? ? ? ) ) OR (NAME = ? AND ID IN (  ? ? ? ) )",
+        boundSql.getSql());
+    List<String> properties = new ArrayList<String>();
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      properties.add(parameterMapping.getProperty());
+    }
+    assertEquals(Arrays.asList("__frch_key_0", "__frch_id_1", "id", "__frch_key_0", "__frch_id_2", "id", "__frch_key_0",
+        "__frch_key_3", "__frch_id_4", "id", "__frch_key_3"), properties);
+    assertEquals(2, boundSql.getAdditionalParameter("__frch_id_2"));
+    assertEquals("b", boundSql.getAdditionalParameter("__frch_key_3"));
+  }
+
+  @Test
+  public void shouldOverridePrefixesAndSuffixesIgnoringCase() throws Exception {
+    Configuration configuration = new Configuration();
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new TextSqlNode("UPDATE BLOG"),
+        new TrimSqlNode(configuration, mixedContents(new StaticTextSqlNode("  and\tNAME = 'android',  ")),
+            "SET", "AND |and\t", "WHERE ID = 1", " ,"),
+        new TrimSqlNode(configuration, mixedContents(new StaticTextSqlNode("ANDROID = 1")), "AND", "AND ", null, null)));
+    assertEquals("UPDATE BLOG SET \tNAME = 'android' WHERE ID = 1 AND ANDROID = 1", source.getBoundSql(null).getSql());
+  }
+
+  @Test
+  public void shouldBindLargeInListOnceAndReadItemsByPosition() throws Exception {
+    List<Integer> ids = new ArrayList<Integer>();
+    for (int i = 0; i < 10000; i++) {
+      ids.add(i);
+    }
+    Map<String, Object> parameterObject = new HashMap<String, Object>();
+    parameterObject.put("ids", ids);
+    Configuration configuration = new Configuration();
+    BoundSql boundSql = new DynamicSqlSource(configuration, mixedContents(
+        new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(configuration, mixedContents(new StaticTextSqlNode("#{id, jdbcType=INTEGER}")), "ids", "i", "id", "(", ")", ","),
+        new TextSqlNode("AND #{i} = #{id}"))).getBoundSql(parameterObject);
+    assertEquals(10002, boundSql.getParameterMappings().size());
+    assertEquals("__frch_id_0[9999]", boundSql.getParameterMappings().get(9999).getProperty());
+    assertEquals(JdbcType.INTEGER, boundSql.getParameterMappings().get(9999).getJdbcType());
+    assertEquals(9999, boundSql.getAdditionalParameter("__frch_id_0[9999]"));
+    // the item and the index are left bound to the last element
+    assertEquals(9999, boundSql.getAdditionalParameter("i"));
+    assertEquals(9999, boundSql.getAdditionalParameter("id"));
+    assertSame(ids, boundSql.getAdditionalParameter("__frch_id_0"));
+    assertEquals(5, boundSql.getAdditionalParameters().size());
+  }
+
+  @Test
+  public void shouldGenerateSameSqlWhenReadingItemsByPosition() throws Exception {
+    Map<String, Object> parameterObject = new HashMap<String, Object>();
+    parameterObject.put("ids", Arrays.asList(1, 2, 3));
+    Configuration configuration = new Configuration();
+    DynamicSqlSource byPosition = new DynamicSqlSource(configuration, mixedContents(
+        new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(configuration, mixedContents(new StaticTextSqlNode(" #{id} ")), "ids", null, "id", "(", ")", "OR")));
+    DynamicSqlSource byItem = new DynamicSqlSource(configuration, mixedContents(
+        new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(configuration, mixedContents(new TextSqlNode(" #{id} ")), "ids", null, "id", "(", ")", "OR")));
+    assertEquals(byItem.getBoundSql(parameterObject).getSql(), byPosition.getBoundSql(parameterObject).getSql());
+  }
+
+  @Test
+  public void shouldReadItemsOfArraysAndSetsByPosition() throws Exception {
+    Map<String, Object> parameterObject = new HashMap<String, Object>();
+    parameterObject.put("ids", new int[] { 5, 6 });
+    parameterObject.put("names", new LinkedHashSet<String>(Arrays.asList("a", "b")));
+    Configuration configuration = new Configuration();
+    BoundSql boundSql = new DynamicSqlSource(configuration, mixedContents(
+        new ForEachSqlNode(configuration, mixedContents(new StaticTextSqlNode("#{id}")), "ids", null, "id", "(", ")", ","),
+        new ForEachSqlNode(configuration, mixedContents(new StaticTextSqlNode("#{name}")), "names", null, "name", "(", ")", ","))
+    ).getBoundSql(parameterObject);
+    List<Object> values = new ArrayList<Object>();
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      values.add(boundSql.getAdditionalParameter(parameterMapping.getProperty()));
+    }
+    assertEquals(Arrays.<Object>asList(5, 6, "a", "b"), values);
+  }
+
+  @Test
+  public void shouldBindMapEntriesItemByItem() throws Exception {
+    Map<String, Object> parameterObject = new HashMap<String, Object>();
+    parameterObject.put("entries", Arrays.asList(new SimpleEntry<String, Integer>("a", 1)));
+    Configuration configuration = new Configuration();
+    BoundSql boundSql = new DynamicSqlSource(configuration, mixedContents(
+        new ForEachSqlNode(configuration, mixedContents(new StaticTextSqlNode("#{value}")), "entries", "key", "value", "(", ")", ","))
+    ).getBoundSql(parameterObject);
+    assertEquals("__frch_value_0", boundSql.getParameterMappings().get(0).getProperty());
+    assertEquals(1, boundSql.getAdditionalParameter("__frch_value_0"));
+    assertEquals("a", boundSql.getAdditionalParameter("__frch_key_0"));
+  }
+
   private DynamicSqlSource createDynamicSqlSource(SqlNode... contents) throws IOException, SQLException {
     createBlogDataSource();
     final String resource = "org/apache/ibatis/builder/MapperConfig.xml";
@@ -15,7 +15,22 @@
  */
 package org.apache.ibatis.executor;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
 import org.junit.Test;
 
 public class BatchExecutorTest extends BaseExecutorTest {
@@ -24,6 +39,274 @@ public class BatchExecutorTest extends BaseExecutorTest {
   public void dummy() {
   }
 
+  @Test
+  public void shouldAddInterleavedInsertsToTheirBatches() throws Exception {
+    config.setBatchGroupingEnabled(true);
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement insert99Statement = ExecutorTestHelper.createInsertAuthorWithIDof99MappedStatement(config);
+      Author author1 = new Author(200, "someone", "******", "someone@apache.org", null, Section.NEWS);
+      Author author2 = new Author(201, "someone", "******", "someone@apache.org", null, Section.NEWS);
+      executor.update(insertStatement, author1);
+      executor.update(insert99Statement, null);
+      executor.update(insertStatement, author2);
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals(insertStatement, results.get(0).getMappedStatement());
+      assertEquals(Arrays.<Object>asList(author1, author2), results.get(0).getParameterObjects());
+      assertArrayEquals(new int[] { 1, 1 }, results.get(0).getUpdateCounts());
+      assertEquals(insert99Statement, results.get(1).getMappedStatement());
+      assertArrayEquals(new int[] { 1 }, results.get(1).getUpdateCounts());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  public void shouldNotMoveInsertsBeforeUpdates() throws Exception {
+    config.setBatchGroupingEnabled(true);
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement updateStatement = ExecutorTestHelper.prepareUpdateAuthorMappedStatement(config);
+      Author author = new Author(200, "someone", "******", "someone@apache.org", null, Section.NEWS);
+      executor.update(insertStatement, author);
+      executor.update(updateStatement, new Author(200, "someone else", "******", "someone@apache.org", null, Section.NEWS));
+      executor.update(insertStatement, new Author(201, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(3, results.size());
+      assertEquals(updateStatement, results.get(1).getMappedStatement());
+      assertArrayEquals(new int[] { 1 }, results.get(1).getUpdateCounts());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  public void shouldStartNewBatchForInterleavedInsertsByDefault() throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement insert99Statement = ExecutorTestHelper.createInsertAuthorWithIDof99MappedStatement(config);
+      executor.update(insertStatement, new Author(200, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      executor.update(insert99Statement, null);
+      executor.update(insertStatement, new Author(201, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      assertEquals(3, executor.flushStatements().size());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  public void shouldFlushWhenStatementRowsThresholdIsReached() throws Exception {
+    final List<BatchResult> flushed = new ArrayList<BatchResult>();
+    final List<Boolean> automatic = new ArrayList<Boolean>();
+    config.setBatchMaxStatementRows(2);
+    config.setBatchFlushListener(new BatchFlushListener() {
+      @Override
+      public void onFlush(List<BatchResult> batchResults, boolean auto) {
+        assertEquals(auto ? 2 : 1, batchResults.get(0).getParameterObjects().size());
+        flushed.addAll(batchResults);
+        automatic.add(auto);
+      }
+    });
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      for (int id = 200; id < 203; id++) {
+        executor.update(insertStatement, new Author(id, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      }
+      assertEquals(1, flushed.size());
+      assertArrayEquals(new int[] { 1, 1 }, flushed.get(0).getUpdateCounts());
+      // released once reported
+      assertTrue(flushed.get(0).getParameterObjects().isEmpty());
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(1, results.size());
+      assertEquals(202, ((Author) results.get(0).getParameterObjects().get(0)).getId());
+      assertEquals(Arrays.asList(true, false), automatic);
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  public void shouldReturnAutoFlushedResultsWithoutListener() throws Exception {
+    config.setBatchMaxRows(2);
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement insert99Statement = ExecutorTestHelper.createInsertAuthorWithIDof99MappedStatement(config);
+      executor.update(insertStatement, new Author(200, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      executor.update(insert99Statement, null);
+      executor.update(insertStatement, new Author(201, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(3, results.size());
+      assertEquals(1, results.get(0).getParameterObjects().size());
+      assertArrayEquals(new int[] { 1 }, results.get(1).getUpdateCounts());
+      assertArrayEquals(new int[] { 1 }, results.get(2).getUpdateCounts());
+      assertTrue(executor.flushStatements().isEmpty());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  public void shouldFlushWhenEstimatedBytesThresholdIsReached() throws Exception {
+    config.setBatchMaxBytes(1);
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      executor.update(insertStatement, new Author(200, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      executor.update(insertStatement, new Author(201, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      assertEquals(2, executor.flushStatements().size());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  public void shouldFlushInTheBackground() throws Exception {
+    final List<String> flushThreads = Collections.synchronizedList(new ArrayList<String>());
+    final List<Boolean> automaticFlushes = Collections.synchronizedList(new ArrayList<Boolean>());
+    config.setBatchMaxStatementRows(2);
+    config.setBatchMaxAsyncFlushes(1);
+    config.setBatchAsyncFlushDrivers(Collections.singleton("Derby"));
+    config.setBatchFlushListener(new BatchFlushListener() {
+      @Override
+      public void onFlush(List<BatchResult> batchResults, boolean automatic) {
+        flushThreads.add(Thread.currentThread().getName());
+        automaticFlushes.add(automatic);
+      }
+    });
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      for (int id = 200; id < 205; id++) {
+        executor.update(insertStatement, new Author(id, "someone" + id, "******", "someone@apache.org", null, Section.NEWS));
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(1, results.size());
+      assertEquals(204, ((Author) results.get(0).getParameterObjects().get(0)).getId());
+      // the background flushes are reported on the calling thread
+      String thread = Thread.currentThread().getName();
+      assertEquals(Arrays.asList(thread, thread, thread), flushThreads);
+      assertEquals(Arrays.asList(true, true, false), automaticFlushes);
+      List<Author> authors = executor.query(selectStatement, 202, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals("someone202", authors.get(0).getUsername());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  public void shouldThrowBackgroundFlushFailureAtNextUpdate() throws Exception {
+    config.setBatchMaxStatementRows(1);
+    config.setBatchMaxAsyncFlushes(2);
+    config.setBatchAsyncFlushDrivers(Collections.singleton("Derby"));
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      executor.update(insertStatement, new Author(200, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      // duplicate key
+      executor.update(insertStatement, new Author(101, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      try {
+        executor.update(insertStatement, new Author(201, "someone", "******", "someone@apache.org", null, Section.NEWS));
+        fail("Expected BatchExecutorException");
+      } catch (BatchExecutorException e) {
+        assertEquals(1, e.getSuccessfulBatchResults().size());
+        assertEquals(200, ((Author) e.getSuccessfulBatchResults().get(0).getParameterObjects().get(0)).getId());
+        assertEquals("insertAuthor", e.getFailingStatementId());
+      }
+      assertTrue(executor.flushStatements().isEmpty());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  public void shouldFlushOnTheCallingThreadForOtherDrivers() throws Exception {
+    final List<String> flushThreads = Collections.synchronizedList(new ArrayList<String>());
+    config.setBatchMaxStatementRows(2);
+    config.setBatchMaxAsyncFlushes(1);
+    config.setBatchAsyncFlushDrivers(Collections.singleton("Some Other Driver"));
+    config.setBatchFlushListener(new BatchFlushListener() {
+      @Override
+      public void onFlush(List<BatchResult> batchResults, boolean automatic) {
+        flushThreads.add(Thread.currentThread().getName());
+      }
+    });
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      for (int id = 200; id < 203; id++) {
+        executor.update(insertStatement, new Author(id, "someone" + id, "******", "someone@apache.org", null, Section.NEWS));
+      }
+      executor.flushStatements();
+      String thread = Thread.currentThread().getName();
+      assertEquals(Arrays.asList(thread, thread), flushThreads);
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  public void shouldSendInsertsAsMultiRowInserts() throws Exception {
+    config.setBatchInsertRewriteRows(2);
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      for (int id = 200; id < 205; id++) {
+        executor.update(insertStatement, new Author(id, "someone" + id, "******", "someone@apache.org", null, Section.NEWS));
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(1, results.size());
+      assertEquals(5, results.get(0).getParameterObjects().size());
+      assertArrayEquals(new int[] { 1, 1, 1, 1, 1 }, results.get(0).getUpdateCounts());
+      List<Author> authors = executor.query(selectStatement, 204, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals("someone204", authors.get(0).getUsername());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  public void shouldSendValuesOfReusedParameterObjectAsMultiRowInserts() throws Exception {
+    config.setBatchInsertRewriteRows(2);
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      Author author = new Author(200, "someone", "******", "someone@apache.org", null, Section.NEWS);
+      for (int id = 200; id < 203; id++) {
+        author.setId(id);
+        author.setUsername("someone" + id);
+        executor.update(insertStatement, author);
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertArrayEquals(new int[] { 1, 1, 1 }, results.get(0).getUpdateCounts());
+      for (int id = 200; id < 203; id++) {
+        List<Author> authors = executor.query(selectStatement, id, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        assertEquals("someone" + id, authors.get(0).getUsername());
+      }
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
   @Override
   protected Executor createExecutor(Transaction transaction) {
     return new BatchExecutor(config,transaction);
@@ -0,0 +1,123 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMap;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.BlobTypeHandler;
+import org.apache.ibatis.type.ClobTypeHandler;
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.ObjectTypeHandler;
+import org.apache.ibatis.type.TypeHandler;
+import org.junit.Test;
+
+public class BulkLoaderTest {
+
+  private final Configuration config = new Configuration();
+
+  @Test
+  public void shouldFindTheTableAndColumnsOfPlainInserts() {
+    MappedStatement insert = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+    assertArrayEquals(new String[] { "author", "id, username, password, email, bio, favourite_section" },
+        BulkLoader.parseTarget(insert.getBoundSql(new Author())));
+    MappedStatement insert99 = ExecutorTestHelper.createInsertAuthorWithIDof99MappedStatement(config);
+    assertNull(BulkLoader.parseTarget(insert99.getBoundSql(null)));
+  }
+
+  @Test
+  public void shouldEncodeRowsAsCsv() throws Exception {
+    MappedStatement insert = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+    Iterator<Author> authors = Arrays.asList(
+        new Author(200, "some\"one", "******", "someone@apache.org", null, Section.NEWS),
+        new Author(201, "", "******", "someone@apache.org", "bio", Section.IMAGES)).iterator();
+    Author first = authors.next();
+    Reader rows = new BulkLoader(config, null).newCsvRows(insert, insert.getBoundSql(first).getSql(), first, authors);
+    StringBuilder csv = new StringBuilder();
+    char[] buffer = new char[16];
+    for (int n; (n = rows.read(buffer)) != -1; ) {
+      csv.append(buffer, 0, n);
+    }
+    assertEquals("200,\"some\"\"one\",\"******\",\"someone@apache.org\",,\"NEWS\"\n"
+        + "201,\"\",\"******\",\"someone@apache.org\",\"bio\",\"IMAGES\"\n", csv.toString());
+  }
+
+  @Test
+  public void shouldReadStreamsAndReadersFully() throws Exception {
+    MappedStatement insert = prepareInsertMappedStatement(new BlobTypeHandler(), new ClobTypeHandler());
+    Map<String, Object> row = new HashMap<String, Object>();
+    row.put("id", 1);
+    row.put("first", new byte[] { 0x0a, (byte) 0xff });
+    row.put("second", "some \"text\"");
+    assertEquals("1,\\x0aff,\"some \"\"text\"\"\"\n", encode(insert, row));
+  }
+
+  @Test
+  public void shouldFailOnValuesItCannotEncode() throws Exception {
+    MappedStatement insert = prepareInsertMappedStatement(new ObjectTypeHandler(), new ObjectTypeHandler());
+    Map<String, Object> row = new HashMap<String, Object>();
+    row.put("id", 1);
+    row.put("first", new Object());
+    try {
+      encode(insert, row);
+      fail("Expected ExecutorException");
+    } catch (ExecutorException e) {
+      assertTrue(e.getMessage().contains("java.lang.Object"));
+    }
+  }
+
+  private String encode(MappedStatement insert, Object first) throws Exception {
+    Iterator<Object> rows = new ArrayList<Object>().iterator();
+    Reader reader = new BulkLoader(config, null).newCsvRows(insert, insert.getBoundSql(first).getSql(), first, rows);
+    StringBuilder csv = new StringBuilder();
+    char[] buffer = new char[16];
+    for (int n; (n = reader.read(buffer)) != -1; ) {
+      csv.append(buffer, 0, n);
+    }
+    return csv.toString();
+  }
+
+  private MappedStatement prepareInsertMappedStatement(TypeHandler<?> first, TypeHandler<?> second) {
+    List<ParameterMapping> parameterMappings = new ArrayList<ParameterMapping>();
+    parameterMappings.add(new ParameterMapping.Builder(config, "id", new IntegerTypeHandler()).build());
+    parameterMappings.add(new ParameterMapping.Builder(config, "first", first).build());
+    parameterMappings.add(new ParameterMapping.Builder(config, "second", second).build());
+    return new MappedStatement.Builder(config, "insertValues",
+        new StaticSqlSource(config, "INSERT INTO bulk_values (id, first, second) VALUES (?, ?, ?)"), SqlCommandType.INSERT)
+        .parameterMap(new ParameterMap.Builder(config, "defaultParameterMap", Map.class, parameterMappings).build())
+        .build();
+  }
+
+}
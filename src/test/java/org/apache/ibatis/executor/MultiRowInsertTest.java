@@ -0,0 +1,54 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class MultiRowInsertTest {
+
+  @Test
+  public void shouldRepeatTheValuesOfSimpleInserts() {
+    MultiRowInsert insert = MultiRowInsert.parse("insert into author (id, username) values (?, ?)", 2);
+    assertNotNull(insert);
+    assertEquals("insert into author (id, username) VALUES (?, ?)", insert.getSql(1));
+    assertEquals("insert into author (id, username) VALUES (?, ?), (?, ?), (?, ?)", insert.getSql(3));
+  }
+
+  @Test
+  public void shouldKeepFunctionsAndLiteralsOfTheValues() {
+    MultiRowInsert insert = MultiRowInsert.parse("INSERT INTO post(id, created_on, body) VALUES(?, current_timestamp, 'it''s (?)')\n", 1);
+    assertNotNull(insert);
+    assertEquals("INSERT INTO post(id, created_on, body) VALUES (?, current_timestamp, 'it''s (?)'), (?, current_timestamp, 'it''s (?)')",
+        insert.getSql(2));
+  }
+
+  @Test
+  public void shouldNotRewriteOtherInserts() {
+    assertNull(MultiRowInsert.parse("insert into author (id) select id from author where id = ?", 1));
+    assertNull(MultiRowInsert.parse("insert into author (id) values (?), (?)", 2));
+    assertNull(MultiRowInsert.parse("insert into author (id) values (?) on duplicate key update id = ?", 2));
+    assertNull(MultiRowInsert.parse("insert into author (id) values (?) returning id", 1));
+    assertNull(MultiRowInsert.parse("insert into author (id) values (?) -- comment", 1));
+    assertNull(MultiRowInsert.parse("update author set id = ? where id in (values (1))", 1));
+    // parameters bound outside of the values
+    assertNull(MultiRowInsert.parse("insert into author (id, bio) values (?, ?)", 1));
+  }
+
+}
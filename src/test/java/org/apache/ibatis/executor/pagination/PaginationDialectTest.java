@@ -0,0 +1,98 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+import org.junit.Test;
+
+public class PaginationDialectTest {
+
+  private static final String SQL = "select * from users order by id";
+
+  @Test
+  public void shouldAppendOffsetFetch() {
+    PaginationDialect dialect = new OffsetFetchPaginationDialect();
+    assertPagination(dialect, 10, 5, SQL + " OFFSET ? ROWS FETCH FIRST ? ROWS ONLY", 10, 5);
+    assertPagination(dialect, 10, RowBounds.NO_ROW_LIMIT, SQL + " OFFSET ? ROWS", 10);
+    assertPagination(dialect, 0, 5, SQL + " FETCH FIRST ? ROWS ONLY", 5);
+  }
+
+  @Test
+  public void shouldAppendLimitOffset() {
+    PaginationDialect dialect = new LimitOffsetPaginationDialect();
+    assertPagination(dialect, 10, 5, SQL + " LIMIT ? OFFSET ?", 5, 10);
+    assertPagination(dialect, 10, RowBounds.NO_ROW_LIMIT, SQL + " OFFSET ?", 10);
+    assertPagination(dialect, 0, 5, SQL + " LIMIT ?", 5);
+  }
+
+  @Test
+  public void shouldAppendMySqlLimit() {
+    PaginationDialect dialect = new MySqlPaginationDialect();
+    assertPagination(dialect, 10, 5, SQL + " LIMIT ?, ?", 10, 5);
+    assertPagination(dialect, 10, RowBounds.NO_ROW_LIMIT, SQL + " LIMIT ?, 18446744073709551615", 10);
+    assertPagination(dialect, 0, 5, SQL + " LIMIT ?", 5);
+  }
+
+  @Test
+  public void shouldRemoveTrailingSemicolonAndBlanks() {
+    List<Integer> parameters = new ArrayList<Integer>();
+    assertEquals(SQL + " LIMIT ?", new LimitOffsetPaginationDialect().getPaginationSql(SQL + " ;\n ", 0, 5, parameters));
+    assertEquals(Arrays.asList(5), parameters);
+  }
+
+  @Test
+  public void shouldNotLimitLockingStatements() {
+    List<Integer> parameters = new ArrayList<Integer>();
+    assertNull(new LimitOffsetPaginationDialect().getPaginationSql(SQL + " for update", 0, 5, parameters));
+    assertNull(new OffsetFetchPaginationDialect().getPaginationSql(SQL + " FOR UPDATE NOWAIT", 0, 5, parameters));
+    assertNull(new LimitOffsetPaginationDialect().getPaginationSql(SQL + "\nFOR\tUPDATE", 0, 5, parameters));
+    assertNull(new MySqlPaginationDialect().getPaginationSql(SQL + "\n\tfor  update skip locked", 0, 5, parameters));
+    assertTrue(parameters.isEmpty());
+  }
+
+  @Test
+  public void shouldNotLimitStatementsAlreadyLimited() {
+    List<Integer> parameters = new ArrayList<Integer>();
+    assertNull(new LimitOffsetPaginationDialect().getPaginationSql(SQL + "\nlimit 10", 0, 5, parameters));
+    assertNull(new MySqlPaginationDialect().getPaginationSql(SQL + " LIMIT 5, 10", 0, 5, parameters));
+    assertNull(new OffsetFetchPaginationDialect().getPaginationSql(SQL + " OFFSET 2 ROWS", 0, 5, parameters));
+    assertNull(new OffsetFetchPaginationDialect().getPaginationSql(SQL + "\tFETCH FIRST 3 ROWS ONLY", 0, 5, parameters));
+    assertTrue(parameters.isEmpty());
+  }
+
+  @Test
+  public void shouldNotLimitStatementsEndingWithLineComment() {
+    List<Integer> parameters = new ArrayList<Integer>();
+    assertNull(new LimitOffsetPaginationDialect().getPaginationSql(SQL + " -- newest first\n", 0, 5, parameters));
+    assertTrue(parameters.isEmpty());
+    assertEquals("select * -- all columns\nfrom users LIMIT ?",
+        new LimitOffsetPaginationDialect().getPaginationSql("select * -- all columns\nfrom users", 0, 5, parameters));
+  }
+
+  private static void assertPagination(PaginationDialect dialect, int offset, int limit, String expected,
+      Integer... values) {
+    List<Integer> parameters = new ArrayList<Integer>();
+    assertEquals(expected, dialect.getPaginationSql(SQL, offset, limit, parameters));
+    assertEquals(Arrays.asList(values), parameters);
+  }
+
+}
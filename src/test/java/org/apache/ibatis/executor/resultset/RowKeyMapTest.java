@@ -0,0 +1,122 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class RowKeyMapTest {
+
+  @Test
+  public void shouldFindStoredKeyWithReusedProbe() {
+    RowKeyMap map = new RowKeyMap();
+    RowKey probe = new RowKey();
+    probe.reset("blog", null, null);
+    probe.update(1, true);
+    RowKey stored = map.put(probe);
+    stored.setValue("blog1");
+    assertNotSame(probe, stored);
+
+    probe.reset("blog", null, null);
+    probe.update(1, true);
+    assertSame(stored, map.get(probe));
+
+    probe.reset("blog", null, null);
+    probe.update(2, true);
+    assertNull(map.get(probe));
+  }
+
+  @Test
+  public void shouldIdentifyNestedRowsTogetherWithParent() {
+    RowKeyMap map = new RowKeyMap();
+    RowKey probe = new RowKey();
+    probe.reset("blog", null, null);
+    probe.update(1, true);
+    RowKey blog1 = map.put(probe);
+    probe.reset("blog", null, null);
+    probe.update(2, true);
+    RowKey blog2 = map.put(probe);
+
+    probe.reset("post", "P_", blog1);
+    probe.update(10, true);
+    map.put(probe).setValue("post10");
+
+    probe.reset("post", "P_", blog2);
+    probe.update(10, true);
+    assertNull(map.get(probe));
+    probe.reset("post", null, blog1);
+    probe.update(10, true);
+    assertNull(map.get(probe));
+    probe.reset("post", "P_", blog1);
+    probe.update(10, true);
+    assertEquals("post10", map.get(probe).getValue());
+  }
+
+  @Test
+  public void shouldNotStoreKeysWithoutCountedValues() {
+    RowKey probe = new RowKey();
+    probe.reset("blog", null, null);
+    probe.update(null, false);
+    assertTrue(probe.isNull());
+    probe.reset("blog", null, null);
+    probe.update(null, true);
+    assertFalse(probe.isNull());
+    probe.reset("post", null, RowKey.NULL_ROW_KEY);
+    probe.update(1, true);
+    assertTrue(probe.isNull());
+    assertNull(new RowKeyMap().get(probe));
+  }
+
+  @Test
+  public void shouldKeepNullPositions() {
+    RowKeyMap map = new RowKeyMap();
+    RowKey probe = new RowKey();
+    probe.reset("blog", null, null);
+    probe.update(1, true);
+    probe.update(null, false);
+    map.put(probe).setValue("first");
+    probe.reset("blog", null, null);
+    probe.update(null, false);
+    probe.update(1, true);
+    assertNull(map.get(probe));
+  }
+
+  @Test
+  public void shouldGrowAndClear() {
+    RowKeyMap map = new RowKeyMap();
+    RowKey probe = new RowKey();
+    for (int i = 0; i < 1000; i++) {
+      probe.reset("blog", null, null);
+      for (int j = 0; j < 10; j++) {
+        probe.update(i * 10 + j, true);
+      }
+      map.put(probe).setValue(i);
+    }
+    assertEquals(1000, map.size());
+    for (int i = 0; i < 1000; i++) {
+      probe.reset("blog", null, null);
+      for (int j = 0; j < 10; j++) {
+        probe.update(i * 10 + j, true);
+      }
+      assertEquals(i, map.get(probe).getValue());
+    }
+    map.clear();
+    assertEquals(0, map.size());
+    assertNull(map.get(probe));
+  }
+
+}
@@ -0,0 +1,162 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class InterceptorChainTest {
+
+  @Test
+  public void compiledChainShouldRunInterceptorsInPluginOrder() {
+    Map<String, String> map = new HashMap<String, String>();
+    map.put("key", "value");
+
+    InterceptorChain chain = new InterceptorChain();
+    chain.addInterceptor(new TaggingMapPlugin("A"));
+    chain.addInterceptor(new TaggingMapPlugin("B"));
+    Map<?, ?> nested = (Map<?, ?>) chain.pluginAll(map);
+    chain.setCompiled(true);
+    Map<?, ?> compiled = (Map<?, ?>) chain.pluginAll(map);
+
+    assertEquals("B(A(value))", nested.get("key"));
+    assertEquals("B(A(value))", compiled.get("key"));
+  }
+
+  @Test
+  public void compiledChainShouldUseSingleProxy() {
+    Map<String, String> map = new HashMap<String, String>();
+    map.put("key", "value");
+
+    InterceptorChain chain = new InterceptorChain();
+    chain.setCompiled(true);
+    chain.addInterceptor(new TaggingMapPlugin("A"));
+    chain.addInterceptor(new TaggingMapPlugin("B"));
+    chain.addInterceptor(new AlwaysListPlugin());
+    Map<?, ?> compiled = (Map<?, ?>) chain.pluginAll(map);
+
+    assertTrue(Proxy.isProxyClass(compiled.getClass()));
+    assertTrue(Proxy.getInvocationHandler(compiled) instanceof ChainedPlugin);
+    assertFalse(compiled instanceof List);
+    assertEquals(1, compiled.size());
+    assertEquals(map.toString(), compiled.toString());
+  }
+
+  @Test
+  public void compiledChainShouldReturnTargetWhenNothingIsIntercepted() {
+    Map<String, String> map = new HashMap<String, String>();
+    InterceptorChain chain = new InterceptorChain();
+    chain.setCompiled(true);
+    chain.addInterceptor(new AlwaysListPlugin());
+    assertSame(map, chain.pluginAll(map));
+  }
+
+  @Test
+  public void compiledChainShouldNotSeeInterceptorsAddedLater() {
+    Map<String, String> map = new HashMap<String, String>();
+    map.put("key", "value");
+    InterceptorChain chain = new InterceptorChain();
+    chain.setCompiled(true);
+    chain.addInterceptor(new TaggingMapPlugin("A"));
+    assertEquals("A(value)", ((Map<?, ?>) chain.pluginAll(map)).get("key"));
+    chain.addInterceptor(new TaggingMapPlugin("B"));
+    assertEquals("B(A(value))", ((Map<?, ?>) chain.pluginAll(map)).get("key"));
+  }
+
+  @Test
+  public void compiledChainShouldThrowInterceptorException() {
+    Map<String, String> map = new HashMap<String, String>();
+    InterceptorChain chain = new InterceptorChain();
+    chain.setCompiled(true);
+    chain.addInterceptor(new FailingMapPlugin());
+    chain.addInterceptor(new TaggingMapPlugin("A"));
+    Map<?, ?> compiled = (Map<?, ?>) chain.pluginAll(map);
+    try {
+      compiled.get("key");
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals("failed", e.getMessage());
+    }
+  }
+
+  @Intercepts({
+      @Signature(type = Map.class, method = "get", args = {Object.class})})
+  public static class TaggingMapPlugin implements Interceptor {
+    private final String tag;
+
+    public TaggingMapPlugin(String tag) {
+      this.tag = tag;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      return tag + "(" + invocation.proceed() + ")";
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+  }
+
+  @Intercepts({
+      @Signature(type = Map.class, method = "get", args = {Object.class})})
+  public static class FailingMapPlugin implements Interceptor {
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      throw new IllegalStateException("failed");
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+  }
+
+  @Intercepts({
+      @Signature(type = List.class, method = "size", args = {})})
+  public static class AlwaysListPlugin implements Interceptor {
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      return 0;
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+  }
+
+}
@@ -0,0 +1,155 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import static org.junit.Assert.*;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Blog;
+import org.apache.ibatis.domain.blog.Post;
+import org.apache.ibatis.domain.misc.RichType;
+import org.junit.Test;
+
+public class BoundedReflectorFactoryTest {
+
+  @Test
+  public void shouldCacheReflectorsAndCountHits() {
+    BoundedReflectorFactory factory = new BoundedReflectorFactory();
+    Reflector reflector = factory.findForClass(Author.class);
+    assertSame(reflector, factory.findForClass(Author.class));
+    assertSame(reflector, factory.findForClass(Author.class));
+    factory.findForClass(Blog.class);
+    assertEquals(2, factory.getMissCount());
+    assertEquals(2, factory.getHitCount());
+    assertEquals(2, factory.getSize());
+    assertEquals(0, factory.getEvictionCount());
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedReflectors() {
+    BoundedReflectorFactory factory = new BoundedReflectorFactory(2);
+    Reflector author = factory.findForClass(Author.class);
+    factory.findForClass(Blog.class);
+    factory.findForClass(Author.class);
+    factory.findForClass(Post.class);
+    assertEquals(2, factory.getSize());
+    assertEquals(1, factory.getEvictionCount());
+    assertSame(author, factory.findForClass(Author.class));
+    assertEquals(3, factory.getMissCount());
+    factory.findForClass(Blog.class);
+    assertEquals(4, factory.getMissCount());
+  }
+
+  @Test
+  public void shouldShrinkWhenMaxSizeIsLowered() {
+    BoundedReflectorFactory factory = new BoundedReflectorFactory();
+    factory.findForClass(Author.class);
+    factory.findForClass(Blog.class);
+    factory.findForClass(Post.class);
+    factory.setMaxSize(1);
+    assertEquals(1, factory.getSize());
+    assertEquals(2, factory.getEvictionCount());
+    factory.clear();
+    assertEquals(0, factory.getSize());
+  }
+
+  @Test
+  public void shouldNotCacheWhenDisabled() {
+    BoundedReflectorFactory factory = new BoundedReflectorFactory();
+    factory.setClassCacheEnabled(false);
+    assertNotSame(factory.findForClass(Author.class), factory.findForClass(Author.class));
+    assertEquals(0, factory.getSize());
+  }
+
+  @Test
+  public void shouldNotKeepClassLoadersReachable() throws Exception {
+    BoundedReflectorFactory factory = new BoundedReflectorFactory();
+    WeakReference<ClassLoader> loaderRef = loadInNewClassLoader(factory, RichType.class.getName());
+    assertEquals(1, factory.getSize());
+    List<byte[]> garbage = new ArrayList<byte[]>();
+    for (int i = 0; i < 50 && loaderRef.get() != null; i++) {
+      System.gc();
+      garbage.add(new byte[1024 * 1024]);
+      Thread.sleep(10);
+    }
+    assertNull(loaderRef.get());
+    assertEquals(0, factory.getSize());
+  }
+
+  @Test
+  public void shouldCacheJdkClassesWithoutAttachingReflectors() {
+    BoundedReflectorFactory factory = new BoundedReflectorFactory();
+    Reflector reflector = factory.findForClass(StringBuilder.class);
+    assertSame(reflector, factory.findForClass(StringBuilder.class));
+    assertEquals(1, factory.getMissCount());
+    assertEquals(1, factory.getSize());
+    factory.clear();
+    assertEquals(0, factory.getSize());
+    assertNotSame(reflector, factory.findForClass(StringBuilder.class));
+  }
+
+  @Test
+  public void shouldCacheClassesOfUnrelatedClassLoaders() throws Exception {
+    BoundedReflectorFactory factory = new BoundedReflectorFactory(1);
+    URLClassLoader loader = new URLClassLoader(new URL[] { classesLocation() }, null);
+    try {
+      Class<?> type = loader.loadClass(RichType.class.getName());
+      Reflector reflector = factory.findForClass(type);
+      assertSame(reflector, factory.findForClass(type));
+      assertEquals(1, factory.getSize());
+      assertEquals(1, factory.getMissCount());
+      factory.findForClass(Author.class);
+      assertEquals(1, factory.getSize());
+      assertEquals(1, factory.getEvictionCount());
+      assertSame(reflector, factory.findForClass(type));
+      factory.clear();
+      assertEquals(0, factory.getSize());
+      assertNotSame(reflector, factory.findForClass(type));
+      assertEquals(3, factory.getMissCount());
+    } finally {
+      loader.close();
+    }
+  }
+
+  private WeakReference<ClassLoader> loadInNewClassLoader(BoundedReflectorFactory factory, final String className) throws Exception {
+    // a child of the MyBatis class loader, loading the class itself
+    ClassLoader loader = new URLClassLoader(new URL[] { classesLocation() }, BoundedReflectorFactory.class.getClassLoader()) {
+      @Override
+      protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (name.equals(className)) {
+          Class<?> type = findLoadedClass(name);
+          return type != null ? type : findClass(name);
+        }
+        return super.loadClass(name, resolve);
+      }
+    };
+    Class<?> type = loader.loadClass(className);
+    assertNotSame(RichType.class, type);
+    assertTrue(factory.findForClass(type).hasGetter("richField"));
+    return new WeakReference<ClassLoader>(loader);
+  }
+
+  private static URL classesLocation() {
+    return RichType.class.getProtectionDomain().getCodeSource().getLocation();
+  }
+
+}
@@ -0,0 +1,57 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import static org.junit.Assert.*;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.apache.ibatis.domain.misc.RichType;
+import org.junit.Test;
+
+public class ClassLoaderScopeTest {
+
+  @Test
+  public void shouldClassifyClassLoaders() throws Exception {
+    assertEquals(ClassLoaderScope.LOCAL, ClassLoaderScope.of(RichType.class));
+    assertEquals(ClassLoaderScope.PARENT, ClassLoaderScope.of(String.class));
+
+    URL classes = RichType.class.getProtectionDomain().getCodeSource().getLocation();
+    URLClassLoader child = new URLClassLoader(new URL[] {classes}, ClassLoaderScope.class.getClassLoader()) {
+      @Override
+      protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        // child first for the test classes
+        if (name.equals(RichType.class.getName())) {
+          Class<?> type = findLoadedClass(name);
+          return type != null ? type : findClass(name);
+        }
+        return super.loadClass(name, resolve);
+      }
+    };
+    URLClassLoader unrelated = new URLClassLoader(new URL[] {classes}, null);
+    try {
+      Class<?> childType = child.loadClass(RichType.class.getName());
+      assertSame(child, childType.getClassLoader());
+      assertEquals(ClassLoaderScope.LOCAL, ClassLoaderScope.of(childType));
+      assertEquals(ClassLoaderScope.FOREIGN, ClassLoaderScope.of(unrelated.loadClass(RichType.class.getName())));
+    } finally {
+      child.close();
+      unrelated.close();
+    }
+  }
+
+}
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -302,4 +303,15 @@ public class MetaObjectTest {
     assertTrue(meta.hasGetter("filterParams[2]"));
   }
 
+  @Test
+  public void shouldGetElementTypeOfIndexedMapEntry() {
+    Map<String, Object> map = new HashMap<String, Object>();
+    map.put("ids", new int[] { 1, 2 });
+    map.put("names", new ArrayList<Object>(Arrays.asList("a", null)));
+    MetaObject meta = SystemMetaObject.forObject(map);
+    assertEquals(Integer.class, meta.getGetterType("ids[1]"));
+    assertEquals(String.class, meta.getGetterType("names[0]"));
+    assertEquals(Object.class, meta.getGetterType("names[1]"));
+  }
+
 }
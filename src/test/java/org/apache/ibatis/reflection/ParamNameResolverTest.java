@@ -0,0 +1,104 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.binding.ArrayParamMap;
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.Test;
+
+public class ParamNameResolverTest {
+
+  interface Mapper {
+    void single(Integer id);
+
+    void named(@Param("id") Integer id, @Param("name") String name);
+
+    void clashing(@Param("param2") Integer id, @Param("name") String name);
+
+    void withRowBounds(@Param("id") Integer id, RowBounds rowBounds, @Param("name") String name);
+  }
+
+  @Test
+  public void shouldReturnSingleUnnamedArgument() throws Exception {
+    ParamNameResolver resolver = resolver("single", Integer.class);
+    assertEquals(1, resolver.getNamedParams(new Object[] { 1 }));
+    assertNull(resolver.getNamedParams(null));
+  }
+
+  @Test
+  public void shouldPackNamedAndGenericNames() throws Exception {
+    Map<?, ?> params = (Map<?, ?>) resolver("named", Integer.class, String.class).getNamedParams(new Object[] { 1, "a" });
+    assertEquals(4, params.size());
+    assertEquals(1, params.get("id"));
+    assertEquals("a", params.get("name"));
+    assertEquals(1, params.get("param1"));
+    assertEquals("a", params.get("param2"));
+  }
+
+  @Test
+  public void shouldNotOverwriteParamNamedLikeGenericName() throws Exception {
+    Map<?, ?> params = (Map<?, ?>) resolver("clashing", Integer.class, String.class).getNamedParams(new Object[] { 1, "a" });
+    assertEquals(3, params.size());
+    assertEquals(1, params.get("param2"));
+    assertEquals(1, params.get("param1"));
+    assertEquals("a", params.get("name"));
+  }
+
+  @Test
+  public void shouldSkipSpecialParameters() throws Exception {
+    ParamNameResolver resolver = resolver("withRowBounds", Integer.class, RowBounds.class, String.class);
+    assertArrayEquals(new String[] { "id", "name" }, resolver.getNames());
+    Map<?, ?> params = (Map<?, ?>) resolver.getNamedParams(new Object[] { 1, RowBounds.DEFAULT, "a" });
+    assertEquals("a", params.get("name"));
+    assertEquals("a", params.get("param2"));
+    try {
+      params.get("param3");
+      fail();
+    } catch (BindingException e) {
+      assertTrue(e.getMessage().contains("param3"));
+    }
+  }
+
+  @Test
+  public void shouldPackCompactParamMap() throws Exception {
+    Configuration configuration = new Configuration();
+    configuration.setCompactParamMapEnabled(true);
+    Method method = Mapper.class.getMethod("withRowBounds", Integer.class, RowBounds.class, String.class);
+    Object params = new ParamNameResolver(configuration, method).getNamedParams(new Object[] { 1, RowBounds.DEFAULT, "a" });
+    assertTrue(params instanceof ArrayParamMap);
+    Map<String, Object> expected = new HashMap<String, Object>();
+    expected.put("id", 1);
+    expected.put("param1", 1);
+    expected.put("name", "a");
+    expected.put("param2", "a");
+    assertEquals(expected, params);
+  }
+
+  private ParamNameResolver resolver(String name, Class<?>... parameterTypes) throws Exception {
+    Method method = Mapper.class.getMethod(name, parameterTypes);
+    return new ParamNameResolver(new Configuration(), method);
+  }
+
+}
@@ -0,0 +1,121 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.misc.CustomBeanWrapperFactory;
+import org.apache.ibatis.domain.misc.RichType;
+import org.junit.Test;
+
+public class PropertyPathTest {
+
+  @Test
+  public void shouldGetAndSetNestedProperties() {
+    RichType rich = new RichType();
+    rich.setRichType(new RichType());
+    MetaObject meta = SystemMetaObject.forObject(rich);
+    PropertyPath property = PropertyPath.compile("richType.richProperty");
+    PropertyPath field = PropertyPath.compile("richType.richField");
+    meta.setValue(property, "foo");
+    meta.setValue(field, "bar");
+    assertEquals("foo", rich.getRichType().getRichProperty());
+    assertEquals("foo", meta.getValue(property));
+    assertEquals("bar", meta.getValue("richType.richField"));
+    assertEquals("bar", meta.getValue(field));
+  }
+
+  @Test
+  public void shouldGetAndSetMapAndIndexedSegments() {
+    RichType rich = new RichType();
+    rich.setRichType(new RichType());
+    MetaObject meta = SystemMetaObject.forObject(rich);
+    meta.setValue(PropertyPath.compile("richType.richMap.key"), "foo");
+    meta.setValue(PropertyPath.compile("richType.richMap[other]"), "bar");
+    meta.setValue(PropertyPath.compile("richType.richList[0]"), "baz");
+    assertEquals("foo", rich.getRichType().getRichMap().get("key"));
+    assertEquals("bar", meta.getValue(PropertyPath.compile("richType.richMap.other")));
+    assertEquals("baz", meta.getValue(PropertyPath.compile("richType.richList[0]")));
+  }
+
+  @Test
+  public void shouldReturnNullForNullIntermediateProperty() {
+    MetaObject meta = SystemMetaObject.forObject(new RichType());
+    assertNull(meta.getValue(PropertyPath.compile("richType.richType.richProperty")));
+  }
+
+  @Test
+  public void shouldInstantiateNullIntermediatePropertiesOnlyForNonNullValues() {
+    RichType rich = new RichType();
+    MetaObject meta = SystemMetaObject.forObject(rich);
+    meta.setValue(PropertyPath.compile("richType.richType.richProperty"), null);
+    assertNull(rich.getRichType());
+    meta.setValue(PropertyPath.compile("richType.richType.richProperty"), "foo");
+    assertEquals("foo", rich.getRichType().getRichType().getRichProperty());
+  }
+
+  @Test
+  public void shouldInstantiateNestedMaps() {
+    Map<String, Object> map = new HashMap<String, Object>();
+    MetaObject meta = SystemMetaObject.forObject(map);
+    meta.setValue(PropertyPath.compile("name.first"), "Clinton");
+    meta.setValue(PropertyPath.compile("name.last"), "Begin");
+    assertEquals("Clinton", ((Map<?, ?>) map.get("name")).get("first"));
+    assertEquals("Begin", meta.getValue(PropertyPath.compile("name.last")));
+  }
+
+  @Test
+  public void shouldReportMissingPropertiesLikeMetaObject() {
+    RichType rich = new RichType();
+    rich.setRichType(new RichType());
+    MetaObject meta = SystemMetaObject.forObject(rich);
+    try {
+      meta.getValue(PropertyPath.compile("richType.missing"));
+      fail();
+    } catch (ReflectionException e) {
+      assertTrue(e.getMessage().contains("There is no getter for property named 'missing'"));
+    }
+    try {
+      meta.setValue(PropertyPath.compile("richType.missing"), "foo");
+      fail();
+    } catch (ReflectionException e) {
+      assertTrue(e.getMessage().contains("Could not set property 'missing'"));
+    }
+  }
+
+  @Test
+  public void shouldUseObjectWrapperFactory() {
+    Map<String, Object> map = new HashMap<String, Object>();
+    map.put("author", new Author(1, "jim", "secret", "jim@ibatis.apache.org", "bio", null));
+    MetaObject meta = MetaObject.forObject(map, SystemMetaObject.DEFAULT_OBJECT_FACTORY,
+        new CustomBeanWrapperFactory(), new DefaultReflectorFactory());
+    assertEquals("jim", meta.getValue(PropertyPath.compile("author.username")));
+  }
+
+  @Test
+  public void shouldExposePath() {
+    PropertyPath path = PropertyPath.compile("orders[0].customer.name");
+    assertEquals("orders[0].customer.name", path.getPath());
+    assertEquals("orders", path.getRootName());
+    assertTrue(path.isNested());
+    assertFalse(PropertyPath.compile("name").isNested());
+  }
+
+}
@@ -0,0 +1,174 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.misc.RichType;
+import org.apache.ibatis.domain.misc.generics.GenericConcrete;
+import org.apache.ibatis.reflection.factory.TestClass;
+import org.apache.ibatis.reflection.invoker.DefaultInvokerFactory;
+import org.junit.Test;
+
+public class ReflectorMetadataIndexTest {
+
+  private static final Class<?>[] TYPES = {RichType.class, Author.class, GenericConcrete.class};
+
+  @Test
+  public void shouldCreateSameReflectorsFromStoredIndex() throws Exception {
+    ReflectorMetadataIndex index = new ReflectorMetadataIndex();
+    for (Class<?> type : TYPES) {
+      index.add(type);
+    }
+    assertEquals(TYPES.length, index.size());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    index.store(out);
+    assertFalse(index.isModified());
+
+    ReflectorMetadataIndex loaded = ReflectorMetadataIndex.load(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(TYPES.length, loaded.size());
+    for (Class<?> type : TYPES) {
+      ReflectorMetadata metadata = loaded.get(type);
+      assertNotNull(metadata);
+      assertSameProperties(new Reflector(type), new Reflector(type, new DefaultInvokerFactory(), metadata));
+    }
+  }
+
+  @Test
+  public void shouldFillIndexOnFirstRun() throws Exception {
+    DefaultReflectorFactory reflectorFactory = new DefaultReflectorFactory();
+    ReflectorMetadataIndex index = new ReflectorMetadataIndex();
+    reflectorFactory.setMetadataIndex(index);
+    reflectorFactory.findForClass(RichType.class);
+    assertTrue(index.isModified());
+    assertEquals(1, index.size());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    index.store(out);
+    DefaultReflectorFactory nextRun = new DefaultReflectorFactory();
+    nextRun.setMetadataIndex(ReflectorMetadataIndex.load(new ByteArrayInputStream(out.toByteArray())));
+    RichType rich = new RichType();
+    MetaObject meta = MetaObject.forObject(rich, SystemMetaObject.DEFAULT_OBJECT_FACTORY,
+        SystemMetaObject.DEFAULT_OBJECT_WRAPPER_FACTORY, nextRun);
+    meta.setValue("richType.richField", "foo");
+    assertEquals("foo", meta.getValue("richType.richField"));
+    assertFalse(nextRun.getMetadataIndex().isModified());
+  }
+
+  @Test
+  public void shouldNotIndexClassesWithoutClassFile() {
+    Object proxy = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Runnable.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            return null;
+          }
+        });
+    ReflectorMetadataIndex index = new ReflectorMetadataIndex();
+    index.add(proxy.getClass());
+    assertEquals(0, index.size());
+    assertNull(index.get(proxy.getClass()));
+  }
+
+  @Test
+  public void shouldValidateClassesOfJarsOncePerJar() throws Exception {
+    File jar = File.createTempFile("reflector-index", ".jar");
+    try {
+      writeJar(jar, TestClass.class);
+      URLClassLoader loader = new URLClassLoader(new URL[] {jar.toURI().toURL()}, null);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try {
+        Class<?> type = loader.loadClass(TestClass.class.getName());
+        ReflectorMetadataIndex index = new ReflectorMetadataIndex();
+        index.add(type);
+        assertEquals(1, index.size());
+        assertNotNull(index.get(type));
+        index.store(out);
+
+        // the jar is rebuilt before the next start
+        assertTrue(jar.setLastModified(jar.lastModified() - 60000));
+        assertNull(ReflectorMetadataIndex.load(new ByteArrayInputStream(out.toByteArray())).get(type));
+      } finally {
+        loader.close();
+      }
+    } finally {
+      jar.delete();
+    }
+  }
+
+  @Test
+  public void shouldIndexReflectorsOfMethodHandleInvokers() {
+    DefaultReflectorFactory reflectorFactory = new MethodHandleReflectorFactory();
+    ReflectorMetadataIndex index = new ReflectorMetadataIndex();
+    reflectorFactory.setMetadataIndex(index);
+    reflectorFactory.findForClass(RichType.class);
+    assertEquals(1, index.size());
+    assertSameProperties(new Reflector(RichType.class),
+        new Reflector(RichType.class, new DefaultInvokerFactory(), index.get(RichType.class)));
+  }
+
+  private static void writeJar(File jar, Class<?> type) throws Exception {
+    String entry = type.getName().replace('.', '/') + ".class";
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+    InputStream in = type.getClassLoader().getResourceAsStream(entry);
+    try {
+      out.putNextEntry(new JarEntry(entry));
+      byte[] buffer = new byte[4096];
+      int n;
+      while ((n = in.read(buffer)) != -1) {
+        out.write(buffer, 0, n);
+      }
+      out.closeEntry();
+    } finally {
+      in.close();
+      out.close();
+    }
+  }
+
+  private static void assertSameProperties(Reflector expected, Reflector actual) {
+    assertEquals(set(expected.getGetablePropertyNames()), set(actual.getGetablePropertyNames()));
+    assertEquals(set(expected.getSetablePropertyNames()), set(actual.getSetablePropertyNames()));
+    for (String name : expected.getGetablePropertyNames()) {
+      assertEquals(expected.getGetterType(name), actual.getGetterType(name));
+    }
+    for (String name : expected.getSetablePropertyNames()) {
+      assertEquals(expected.getSetterType(name), actual.getSetterType(name));
+    }
+    assertEquals(expected.hasDefaultConstructor(), actual.hasDefaultConstructor());
+  }
+
+  private static Set<String> set(String[] names) {
+    return new HashSet<String>(Arrays.asList(names));
+  }
+
+}
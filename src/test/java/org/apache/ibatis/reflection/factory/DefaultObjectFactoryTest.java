@@ -15,8 +15,16 @@
  */
 package org.apache.ibatis.reflection.factory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import org.apache.ibatis.reflection.ReflectionException;
 import org.junit.Assert;
@@ -52,4 +60,56 @@ public class DefaultObjectFactoryTest {
     }
   }
 
+  @Test
+  public void instantiateClassWithCachedConstructors() throws Exception {
+    DefaultObjectFactory defaultObjectFactory = new DefaultObjectFactory();
+    List<Class<?>> argTypes = new ArrayList<Class<?>>(Arrays.<Class<?>>asList(String.class, Integer.class));
+    TestClass first = defaultObjectFactory.instantiateClass(TestClass.class, argTypes, Arrays.<Object>asList("foo", 0));
+    argTypes.clear();
+    argTypes.add(String.class);
+    try {
+      defaultObjectFactory.instantiateClass(TestClass.class, argTypes, Collections.<Object>singletonList("foo"));
+      Assert.fail("Should have thrown ReflectionException");
+    } catch (ReflectionException e) {
+      // the cached constructor must not be used for other argument types
+    }
+    TestClass second = defaultObjectFactory.instantiateClass(TestClass.class,
+        Arrays.<Class<?>>asList(String.class, Integer.class), Arrays.<Object>asList("bar", 1));
+    Assert.assertNotSame(first, second);
+    Assert.assertEquals("bar", second.myString);
+    Assert.assertEquals((Integer) 1, second.myInteger);
+    Assert.assertTrue(defaultObjectFactory.create(List.class) instanceof ArrayList);
+    Assert.assertNotSame(defaultObjectFactory.create(List.class), defaultObjectFactory.create(List.class));
+  }
+
+  @Test
+  public void instantiateClassOfUnrelatedClassLoader() throws Exception {
+    URL classes = TestClass.class.getProtectionDomain().getCodeSource().getLocation();
+    URLClassLoader unrelated = new URLClassLoader(new URL[] {classes}, null);
+    try {
+      Class<?> type = unrelated.loadClass(TestClass.class.getName());
+      DefaultObjectFactory defaultObjectFactory = new DefaultObjectFactory();
+      Object instance = defaultObjectFactory.instantiateClass(type,
+          Arrays.<Class<?>>asList(String.class, Integer.class), Arrays.<Object>asList("foo", 0));
+      Assert.assertSame(type, instance.getClass());
+      Assert.assertSame(defaultObjectFactory.getConstructors(type), defaultObjectFactory.getConstructors(type));
+    } finally {
+      unrelated.close();
+    }
+  }
+
+  @Test
+  public void createAfterDeserialization() throws Exception {
+    DefaultObjectFactory defaultObjectFactory = new DefaultObjectFactory();
+    defaultObjectFactory.create(ArrayList.class);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(defaultObjectFactory);
+    out.close();
+    ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    DefaultObjectFactory deserialized = (DefaultObjectFactory) in.readObject();
+    in.close();
+    Assert.assertTrue(deserialized.create(List.class) instanceof ArrayList);
+  }
+
 }
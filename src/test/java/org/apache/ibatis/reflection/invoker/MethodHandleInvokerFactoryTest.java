@@ -0,0 +1,178 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.domain.misc.RichType;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.MethodHandleReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.junit.Test;
+
+public class MethodHandleInvokerFactoryTest {
+
+  private final Reflector reflector = new Reflector(Bean.class, new MethodHandleInvokerFactory());
+
+  @Test
+  public void shouldInvokeGettersAndSetters() throws Exception {
+    Bean bean = new Bean();
+    reflector.getSetInvoker("name").invoke(bean, new Object[] {"mybatis"});
+    reflector.getSetInvoker("count").invoke(bean, new Object[] {3});
+    assertEquals("mybatis", reflector.getGetInvoker("name").invoke(bean, new Object[0]));
+    assertEquals(3, reflector.getGetInvoker("count").invoke(bean, new Object[0]));
+    assertEquals(String.class, reflector.getGetInvoker("name").getType());
+    assertEquals(int.class, reflector.getSetInvoker("count").getType());
+  }
+
+  @Test
+  public void shouldAccessPrivateAndStaticFields() throws Exception {
+    Bean bean = new Bean();
+    reflector.getSetInvoker("field").invoke(bean, new Object[] {"value"});
+    assertEquals("value", reflector.getGetInvoker("field").invoke(bean, null));
+    reflector.getSetInvoker("staticField").invoke(bean, new Object[] {7L});
+    assertEquals(7L, reflector.getGetInvoker("staticField").invoke(null, null));
+    assertEquals(Long.class, reflector.getGetInvoker("staticField").getType());
+  }
+
+  @Test
+  public void shouldPassArraysToVarargsSetters() throws Exception {
+    Bean bean = new Bean();
+    String[] tags = {"a", "b"};
+    reflector.getSetInvoker("tags").invoke(bean, new Object[] {tags});
+    assertSame(tags, reflector.getGetInvoker("tags").invoke(bean, null));
+  }
+
+  @Test
+  public void shouldWrapExceptions() throws Exception {
+    try {
+      reflector.getGetInvoker("failing").invoke(new Bean(), null);
+      fail();
+    } catch (InvocationTargetException e) {
+      assertEquals("failing", e.getTargetException().getMessage());
+    }
+    try {
+      reflector.getGetInvoker("failingCast").invoke(new Bean(), null);
+      fail();
+    } catch (InvocationTargetException e) {
+      assertTrue(e.getTargetException() instanceof ClassCastException);
+    }
+  }
+
+  @Test
+  public void shouldReportInvocationErrorsLikeCoreReflection() throws Exception {
+    try {
+      reflector.getSetInvoker("count").invoke(new Bean(), new Object[] {null});
+      fail();
+    } catch (IllegalArgumentException e) {
+      // null for a primitive parameter
+    }
+    try {
+      reflector.getSetInvoker("name").invoke(new Bean(), new Object[] {1});
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getCause() instanceof ClassCastException);
+    }
+    try {
+      reflector.getGetInvoker("name").invoke("not a bean", null);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getCause() instanceof ClassCastException);
+    }
+    try {
+      reflector.getSetInvoker("name").invoke(new Bean(), new Object[0]);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // wrong number of arguments
+    }
+    try {
+      reflector.getGetInvoker("name").invoke(null, null);
+      fail();
+    } catch (NullPointerException e) {
+      // instance member on a null target
+    }
+  }
+
+  @Test
+  public void shouldWorkWithMetaObjects() {
+    ReflectorFactory reflectorFactory = new MethodHandleReflectorFactory();
+    RichType rich = new RichType();
+    MetaObject meta = MetaObject.forObject(rich, SystemMetaObject.DEFAULT_OBJECT_FACTORY,
+        SystemMetaObject.DEFAULT_OBJECT_WRAPPER_FACTORY, reflectorFactory);
+    meta.setValue("richType.richProperty", "nested");
+    meta.setValue("richField", "field");
+    assertEquals("nested", rich.getRichType().getRichProperty());
+    assertEquals("field", meta.getValue("richField"));
+
+    MetaClass metaClass = MetaClass.forClass(Bean.class, reflectorFactory);
+    assertEquals(String.class, metaClass.getGetterType("names[0]"));
+  }
+
+  @SuppressWarnings("unused")
+  private static class Bean {
+    private static Long staticField;
+    private String field;
+    private String name;
+    private int count;
+    private String[] tags;
+    private List<String> names = Arrays.asList("a");
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public void setCount(int count) {
+      this.count = count;
+    }
+
+    public String[] getTags() {
+      return tags;
+    }
+
+    public void setTags(String... tags) {
+      this.tags = tags;
+    }
+
+    public List<String> getNames() {
+      return names;
+    }
+
+    public String getFailing() {
+      throw new IllegalStateException("failing");
+    }
+
+    public Integer getFailingCast() {
+      Object value = "not a number";
+      return (Integer) value;
+    }
+  }
+
+}
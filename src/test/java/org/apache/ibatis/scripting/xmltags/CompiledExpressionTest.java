@@ -0,0 +1,169 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import ognl.Ognl;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+public class CompiledExpressionTest {
+
+  private static final String[] SUPPORTED = {
+      "username", "id", "password", "password == null", "null != password", "username != null and username != ''",
+      "username == 'cbegin'", "username eq \"cbegin\"", "username neq 'norm'", "id > 0", "id gt 0", "id < -1",
+      "id lte 1", "id >= 1", "id == 1", "id != 2", "not (id == 1)", "!bio", "favouriteSection == favouriteSection",
+      "tags.size() > 0", "tags.isEmpty()", "emptyTags.size() == 0", "username.length() >= 6", "map.key == 'value'",
+      "map.missing == null", "author.username == 'cbegin' && author.id == 1", "id == 1 or nothing.size() > 0",
+      "password or username", "id and username", "nothing and username", "flag == true", "flag", "!flag",
+      "rate > 1", "rate == 2", "_parameter != null", "_databaseId == null", "id == 1 || id == 2 && id == 3",
+      "(id == 1 || id == 2) && id == 3", "username != 'cbegin' and id<=1", "size > 0"
+  };
+
+  private static final String[] NOT_SUPPORTED = {
+      "username == 'c'", "id + 1 > 2", "tags[0] == 'a'", "username.substring(1) == 'begin'", "id in {1, 2}",
+      "@java.lang.Math@max(id, 2)", "id > 1L", "id > 1.5", "id > 010", "id ? 1 : 2", "#this.id", "username = 'x'",
+      "username == 'it\\'s'", "id instanceof java.lang.Integer", "(id).toString()", "id >", ""
+  };
+
+  @Test
+  public void shouldEvaluateLikeOgnl() throws Exception {
+    Object[] roots = { author(), context(author()), context(map()), map() };
+    for (String expression : SUPPORTED) {
+      CompiledExpression compiled = CompiledExpression.compile(expression);
+      assertNotNull(expression, compiled);
+      for (Object root : roots) {
+        Object expected;
+        try {
+          expected = Ognl.getValue(Ognl.parseExpression(expression), Ognl.createDefaultContext(root), root);
+        } catch (Exception e) {
+          expected = e;
+        }
+        Object actual;
+        try {
+          actual = compiled.getValue(root);
+        } catch (CompiledExpression.UnsupportedValueException e) {
+          // OGNL decides, an error is expected most of the time
+          continue;
+        } catch (RuntimeException e) {
+          assertTrue(expression + " on " + root, expected instanceof Exception);
+          continue;
+        }
+        assertEquals(expression + " on " + root, expected, actual);
+      }
+    }
+  }
+
+  @Test
+  public void shouldNotCompileOtherExpressions() {
+    for (String expression : NOT_SUPPORTED) {
+      assertNull(expression, CompiledExpression.compile(expression));
+    }
+  }
+
+  @Test
+  public void shouldFallBackToOgnlForUnsupportedValues() {
+    Author author = author();
+    ExpressionEvaluator evaluator = new ExpressionEvaluator();
+    // numeric conversion of a string
+    assertTrue(evaluator.evaluateBoolean("bio == 1", new Author(1, "cbegin", "******", "cbegin@apache.org", "1", Section.NEWS)));
+    // null target
+    try {
+      evaluator.evaluateBoolean("nothing.size() > 0", author);
+      fail();
+    } catch (BuilderException e) {
+      assertTrue(e.getMessage().contains("nothing.size() > 0"));
+    }
+  }
+
+  @Test
+  public void shouldNotFallBackToOgnlWhenGetterFails() {
+    FailingBean bean = new FailingBean();
+    try {
+      new ExpressionEvaluator().evaluateBoolean("name != null", bean);
+      fail();
+    } catch (BuilderException e) {
+      assertTrue(e.getMessage().contains("name != null"));
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+    assertEquals(1, bean.calls);
+  }
+
+  @Test
+  public void shouldReadBindingsLikeContextAccessor() {
+    Map<String, Object> parameter = new HashMap<String, Object>();
+    parameter.put("name", "value");
+    DynamicContext context = new DynamicContext(new Configuration(), parameter);
+    context.bind("bound", 1);
+    CompiledExpression compiled = CompiledExpression.compile("name == 'value' and bound == 1 and _parameter.name != null");
+    assertEquals(Boolean.TRUE, compiled.getValue(context.getBindings()));
+  }
+
+  private static Object context(Object parameter) {
+    DynamicContext context = new DynamicContext(new Configuration(), parameter);
+    return context.getBindings();
+  }
+
+  private static Map<String, Object> map() {
+    Map<String, Object> map = new HashMap<String, Object>();
+    map.put("username", "cbegin");
+    map.put("id", 1);
+    map.put("password", null);
+    map.put("bio", "");
+    map.put("favouriteSection", Section.NEWS);
+    map.put("tags", new ArrayList<String>(Arrays.asList("a", "b")));
+    map.put("emptyTags", new ArrayList<String>());
+    map.put("map", map("key", "value"));
+    map.put("author", author());
+    map.put("nothing", null);
+    map.put("flag", Boolean.TRUE);
+    map.put("rate", 2.0d);
+    map.put("size", 3);
+    return map;
+  }
+
+  private static Map<String, Object> map(String key, Object value) {
+    Map<String, Object> map = new HashMap<String, Object>();
+    map.put(key, value);
+    return map;
+  }
+
+  private static Author author() {
+    return new Author(1, "cbegin", null, "cbegin@apache.org", "", Section.NEWS);
+  }
+
+  public static class FailingBean {
+
+    private int calls;
+
+    public String getName() {
+      calls++;
+      throw new IllegalStateException("getter failed");
+    }
+
+  }
+
+}
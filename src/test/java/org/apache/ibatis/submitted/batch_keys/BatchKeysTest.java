@@ -15,7 +15,9 @@
  */
 package org.apache.ibatis.submitted.batch_keys;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.io.PrintWriter;
 import java.io.Reader;
@@ -25,10 +27,12 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.Assert;
 
+import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.jdbc.ScriptRunner;
 import org.apache.ibatis.session.ExecutorType;
@@ -139,6 +143,84 @@ public class BatchKeysTest {
     }
   }
 
+  @Test
+  public void testInsertJdbc3IsNotRewrittenWhenKeysAreRead() throws Exception {
+    sqlSessionFactory.getConfiguration().setBatchInsertRewriteRows(2);
+    SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+    try {
+      List<User> users = new ArrayList<User>();
+      for (String name : new String[] { "Pocoyo", "Valentina", "Pato", "Elly", "Loula" }) {
+        User user = new User(null, name);
+        sqlSession.insert("insertIdentity", user);
+        users.add(user);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(1, results.size());
+      assertArrayEquals(new int[] { 1, 1, 1, 1, 1 }, results.get(0).getUpdateCounts());
+      for (int i = 0; i < users.size(); i++) {
+        assertEquals(Integer.valueOf(i), users.get(i).getId());
+      }
+      sqlSession.commit();
+    } finally {
+      sqlSession.close();
+    }
+
+    try {
+      sqlSession = sqlSessionFactory.openSession();
+      List<User> users = sqlSession.selectList("selectIdentity");
+      assertEquals(5, users.size());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void testInsertJdbc3LargeBatch() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+    try {
+      List<User> users = new ArrayList<User>();
+      for (int i = 0; i < 1000; i++) {
+        User user = new User(null, "User" + i);
+        sqlSession.insert("insertIdentity", user);
+        users.add(user);
+      }
+      sqlSession.flushStatements();
+      for (int i = 0; i < users.size(); i++) {
+        assertEquals(Integer.valueOf(i), users.get(i).getId());
+      }
+      sqlSession.commit();
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void testInsertJdbc3WithoutKeyRetrieval() throws Exception {
+    sqlSessionFactory.getConfiguration().setBatchKeyRetrievalEnabled(false);
+    SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+    try {
+      User user1 = new User(null, "Pocoyo");
+      sqlSession.insert("insertIdentity", user1);
+      User user2 = new User(null, "Valentina");
+      sqlSession.insert("insertIdentity", user2);
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertArrayEquals(new int[] { 1, 1 }, results.get(0).getUpdateCounts());
+      assertNull(user1.getId());
+      assertNull(user2.getId());
+      sqlSession.commit();
+    } finally {
+      sqlSession.close();
+    }
+
+    try {
+      sqlSession = sqlSessionFactory.openSession();
+      List<User> users = sqlSession.selectList("selectIdentity");
+      assertEquals(2, users.size());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
   @Test
   public void testInsertWithMapper() throws Exception {
     SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
@@ -0,0 +1,142 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.bulk_insert;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Iterator;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.BulkLoadDialect;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BulkInsertTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Before
+  public void setUp() throws Exception {
+    // create a SqlSessionFactory
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/bulk_insert/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    // populate in-memory database
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/bulk_insert/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+  }
+
+  @Test
+  public void shouldInsertRowsAsBatches() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      assertEquals(250L, sqlSession.bulkInsert("insertUser", users(250)));
+      sqlSession.commit();
+      assertEquals(Integer.valueOf(250), sqlSession.<Integer>selectOne("countUsers"));
+      assertEquals("User249", sqlSession.<String>selectOne("getName", 249));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldInsertOtherStatementsAsBatchesWithDialect() {
+    sqlSessionFactory.getConfiguration().setBulkLoadDialect(BulkLoadDialect.POSTGRESQL);
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      assertEquals(120L, sqlSession.bulkInsert("insertUpperName", users(120)));
+      assertEquals("USER7", sqlSession.<String>selectOne("getName", 7));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldRollbackInsertedRows() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      sqlSession.insert("insertUser", new User(1000, "User1000"));
+      assertEquals(10L, sqlSession.bulkInsert("insertUser", users(10)));
+      assertEquals(Integer.valueOf(11), sqlSession.<Integer>selectOne("countUsers"));
+      sqlSession.rollback();
+      assertEquals(Integer.valueOf(0), sqlSession.<Integer>selectOne("countUsers"));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldClearCacheWhenSessionCommits() {
+    Cache cache = sqlSessionFactory.getConfiguration().getCache("org.apache.ibatis.submitted.bulk_insert.Mapper");
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      assertEquals(Integer.valueOf(0), sqlSession.<Integer>selectOne("countUsers"));
+      sqlSession.commit();
+      assertEquals(1, cache.getSize());
+      assertEquals(5L, sqlSession.bulkInsert("insertUser", users(5)));
+      // the other sessions keep reading the committed rows until the commit
+      assertEquals(1, cache.getSize());
+      sqlSession.commit();
+      assertEquals(0, cache.getSize());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  // the rows are created while they are inserted
+  private static Iterable<User> users(final int count) {
+    return new Iterable<User>() {
+      @Override
+      public Iterator<User> iterator() {
+        return new Iterator<User>() {
+          private int id;
+
+          @Override
+          public boolean hasNext() {
+            return id < count;
+          }
+
+          @Override
+          public User next() {
+            User user = new User(id, "User" + id);
+            id++;
+            return user;
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+  }
+
+}
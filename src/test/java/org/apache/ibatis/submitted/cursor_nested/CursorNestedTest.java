@@ -15,6 +15,7 @@
  */
 package org.apache.ibatis.submitted.cursor_nested;
 
+import org.apache.ibatis.cursor.BatchCursor;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.jdbc.ScriptRunner;
@@ -28,7 +29,9 @@ import org.junit.Test;
 
 import java.io.Reader;
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 public class CursorNestedTest {
 
@@ -94,6 +97,31 @@ public class CursorNestedTest {
         Assert.assertFalse(usersCursor.isOpen());
     }
 
+    @Test
+    public void shouldGetAllUserInBatches() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        Mapper mapper = sqlSession.getMapper(Mapper.class);
+        Cursor<User> usersCursor = mapper.getAllUsers();
+
+        try {
+            List<User> batch = new ArrayList<User>();
+            Assert.assertEquals(3, ((BatchCursor<User>) usersCursor).fetchBatch(batch, 3));
+            Assert.assertEquals(2, batch.get(0).getGroups().size());
+            Assert.assertEquals(3, batch.get(0).getRoles().size());
+            Assert.assertEquals(1, batch.get(1).getGroups().size());
+            Assert.assertEquals(3, batch.get(2).getGroups().size());
+            Assert.assertEquals(1, batch.get(2).getRoles().size());
+
+            batch.clear();
+            Assert.assertEquals(1, ((BatchCursor<User>) usersCursor).fetchBatch(batch, 3));
+            Assert.assertEquals(2, batch.get(0).getGroups().size());
+            Assert.assertEquals(2, batch.get(0).getRoles().size());
+            Assert.assertTrue(usersCursor.isConsumed());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
     @Test
     public void testCursorWithRowBound() {
         SqlSession sqlSession = sqlSessionFactory.openSession();
@@ -0,0 +1,248 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cursor_simple;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
+import org.apache.ibatis.cursor.CursorSubscriber;
+import org.apache.ibatis.cursor.CursorSubscription;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CursorPublisherTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_simple/mybatis-config.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_simple/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        reader.close();
+        session.close();
+    }
+
+    @Test
+    public void shouldDeliverOnlyRequestedUsers() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            sqlSession.<User>selectPublisher("org.apache.ibatis.submitted.cursor_simple.Mapper.getAllUsers")
+                    .subscribe(subscriber);
+            Assert.assertTrue(subscriber.users.isEmpty());
+
+            subscriber.subscription.request(2);
+            Assert.assertEquals(2, subscriber.users.size());
+            Assert.assertEquals("User2", subscriber.users.get(1).getName());
+            Assert.assertFalse(subscriber.completed);
+
+            subscriber.subscription.request(10);
+            Assert.assertEquals(5, subscriber.users.size());
+            Assert.assertTrue(subscriber.completed);
+            Assert.assertNull(subscriber.error);
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldCompleteWhenRowBoundsLimitIsReached() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            sqlSession.<User>selectPublisher("org.apache.ibatis.submitted.cursor_simple.Mapper.getAllUsers", null,
+                    new RowBounds(1, 2)).subscribe(subscriber);
+            subscriber.subscription.request(Long.MAX_VALUE);
+            Assert.assertEquals(2, subscriber.users.size());
+            Assert.assertEquals("User2", subscriber.users.get(0).getName());
+            Assert.assertTrue(subscriber.completed);
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldCloseCursorAndResourcesOnCancel() {
+        final SqlSession sqlSession = sqlSessionFactory.openSession();
+        Cursor<User> cursor = sqlSession.getMapper(Mapper.class).getAllUsers();
+        RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(User user) {
+                super.onNext(user);
+                if (users.size() == 3) {
+                    subscription.cancel();
+                }
+            }
+        };
+        new CursorPublisher<User>(cursor, sqlSession).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(3, subscriber.users.size());
+        Assert.assertFalse(cursor.isOpen());
+        Assert.assertFalse(cursor.isConsumed());
+        Assert.assertFalse(subscriber.completed);
+        Assert.assertNull(subscriber.error);
+        try {
+            sqlSession.getConnection();
+            Assert.fail("The session should have been closed");
+        } catch (Exception expected) {
+            // the session has released its connection
+        }
+    }
+
+    @Test
+    public void shouldKeepSessionOpenWhenSubscriberCancels() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            sqlSession.<User>selectPublisher("org.apache.ibatis.submitted.cursor_simple.Mapper.getAllUsers")
+                    .subscribe(subscriber);
+            subscriber.subscription.request(1);
+            subscriber.subscription.cancel();
+
+            Assert.assertEquals(1, subscriber.users.size());
+            Assert.assertNotNull(sqlSession.getConnection());
+            List<User> users = sqlSession.selectList("org.apache.ibatis.submitted.cursor_simple.Mapper.getAllUsers");
+            Assert.assertFalse(users.isEmpty());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldCloseDedicatedSessionWhenSubscriberCompletes() {
+        final List<SqlSession> sessions = new ArrayList<SqlSession>();
+        SqlSessionFactory factory = new DefaultSqlSessionFactory(sqlSessionFactory.getConfiguration()) {
+            @Override
+            public SqlSession openSession() {
+                SqlSession sqlSession = super.openSession();
+                sessions.add(sqlSession);
+                return sqlSession;
+            }
+        };
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        CursorPublisher.<User>openDedicated(factory, "org.apache.ibatis.submitted.cursor_simple.Mapper.getAllUsers",
+                null, RowBounds.DEFAULT).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertTrue(subscriber.completed);
+        Assert.assertEquals(1, sessions.size());
+        try {
+            sessions.get(0).getConnection();
+            Assert.fail("The session should have been closed");
+        } catch (Exception expected) {
+            // the session has released its connection
+        }
+    }
+
+    @Test
+    public void shouldSignalErrorAndCloseCursorWhenOnNextThrows() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Cursor<User> cursor = sqlSession.getMapper(Mapper.class).getAllUsers();
+            final IllegalStateException failure = new IllegalStateException("consumer failed");
+            RecordingSubscriber subscriber = new RecordingSubscriber() {
+                @Override
+                public void onNext(User user) {
+                    super.onNext(user);
+                    if (users.size() == 2) {
+                        throw failure;
+                    }
+                }
+            };
+            new CursorPublisher<User>(cursor).subscribe(subscriber);
+            subscriber.subscription.request(Long.MAX_VALUE);
+
+            Assert.assertEquals(2, subscriber.users.size());
+            Assert.assertSame(failure, subscriber.error);
+            Assert.assertFalse(subscriber.completed);
+            Assert.assertFalse(cursor.isOpen());
+
+            subscriber.subscription.request(1);
+            Assert.assertEquals(2, subscriber.users.size());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldRejectSecondSubscriberAndInvalidRequests() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            CursorPublisher<User> publisher =
+                    sqlSession.selectPublisher("org.apache.ibatis.submitted.cursor_simple.Mapper.getAllUsers");
+            RecordingSubscriber first = new RecordingSubscriber();
+            publisher.subscribe(first);
+            RecordingSubscriber second = new RecordingSubscriber();
+            publisher.subscribe(second);
+            Assert.assertTrue(second.error instanceof IllegalStateException);
+
+            first.subscription.request(0);
+            Assert.assertTrue(first.error instanceof IllegalArgumentException);
+            first.subscription.request(1);
+            Assert.assertTrue(first.users.isEmpty());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    private static class RecordingSubscriber implements CursorSubscriber<User> {
+        CursorSubscription subscription;
+        final List<User> users = new ArrayList<User>();
+        boolean completed;
+        Throwable error;
+
+        @Override
+        public void onSubscribe(CursorSubscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(User user) {
+            users.add(user);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
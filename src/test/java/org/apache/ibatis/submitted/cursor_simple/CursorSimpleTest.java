@@ -15,6 +15,7 @@
  */
 package org.apache.ibatis.submitted.cursor_simple;
 
+import org.apache.ibatis.cursor.BatchCursor;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.jdbc.ScriptRunner;
@@ -393,4 +394,55 @@ public class CursorSimpleTest {
         }
     }
 
+    @Test
+    public void shouldFetchUsersInBatches() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        Mapper mapper = sqlSession.getMapper(Mapper.class);
+        Cursor<User> usersCursor = mapper.getAllUsers();
+        try {
+            List<User> batch = new ArrayList<User>();
+            Assert.assertEquals(2, ((BatchCursor<User>) usersCursor).fetchBatch(batch, 2));
+            Assert.assertEquals("User1", batch.get(0).getName());
+            Assert.assertEquals("User2", batch.get(1).getName());
+            Assert.assertEquals(1, usersCursor.getCurrentIndex());
+            Assert.assertTrue(usersCursor.isOpen());
+
+            // mixed with the iterator, the item fetched by hasNext() comes first
+            Iterator<User> iterator = usersCursor.iterator();
+            Assert.assertTrue(iterator.hasNext());
+
+            batch.clear();
+            Assert.assertEquals(3, ((BatchCursor<User>) usersCursor).fetchBatch(batch, 10));
+            Assert.assertEquals("User3", batch.get(0).getName());
+            Assert.assertEquals("User5", batch.get(2).getName());
+            Assert.assertEquals(4, usersCursor.getCurrentIndex());
+            Assert.assertTrue(usersCursor.isConsumed());
+
+            batch.clear();
+            Assert.assertEquals(0, ((BatchCursor<User>) usersCursor).fetchBatch(batch, 10));
+            Assert.assertFalse(iterator.hasNext());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldFetchBatchesWithinRowBounds() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        Cursor<User> usersCursor = sqlSession.selectCursor("getAllUsers", null, new RowBounds(1, 3));
+        try {
+            List<User> batch = new ArrayList<User>();
+            Assert.assertEquals(2, ((BatchCursor<User>) usersCursor).fetchBatch(batch, 2));
+            Assert.assertEquals("User2", batch.get(0).getName());
+            Assert.assertEquals("User3", batch.get(1).getName());
+            Assert.assertEquals(2, usersCursor.getCurrentIndex());
+
+            Assert.assertEquals(1, ((BatchCursor<User>) usersCursor).fetchBatch(batch, 2));
+            Assert.assertEquals("User4", batch.get(2).getName());
+            Assert.assertTrue(usersCursor.isConsumed());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
 }
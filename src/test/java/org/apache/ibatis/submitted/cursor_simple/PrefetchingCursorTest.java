@@ -0,0 +1,433 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cursor_simple;
+
+import org.apache.ibatis.cursor.BatchCursor;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.defaults.PrefetchingCursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PrefetchingCursorTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_simple/mybatis-config.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_simple/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        reader.close();
+        session.close();
+    }
+
+    @Test
+    public void shouldGetAllUsers() throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Cursor<User> delegate = sqlSession.getMapper(Mapper.class).getAllUsers();
+            Cursor<User> usersCursor = new PrefetchingCursor<User>(delegate, 2);
+            Assert.assertFalse(usersCursor.isOpen());
+            Assert.assertEquals(-1, usersCursor.getCurrentIndex());
+
+            List<String> names = new ArrayList<String>();
+            for (User user : usersCursor) {
+                names.add(user.getName());
+                Assert.assertEquals(names.size() - 1, usersCursor.getCurrentIndex());
+            }
+            Assert.assertEquals(5, names.size());
+            Assert.assertEquals("User1", names.get(0));
+            Assert.assertEquals("User5", names.get(4));
+            Assert.assertTrue(usersCursor.isConsumed());
+            Assert.assertFalse(usersCursor.isOpen());
+            Assert.assertFalse(delegate.isOpen());
+            usersCursor.close();
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldFetchBatchesWithinRowBounds() throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Cursor<User> delegate = sqlSession.selectCursor("getAllUsers", null, new RowBounds(1, 3));
+            BatchCursor<User> usersCursor = new PrefetchingCursor<User>(delegate, 1);
+            List<User> batch = new ArrayList<User>();
+            Assert.assertEquals(2, usersCursor.fetchBatch(batch, 2));
+            Assert.assertEquals("User2", batch.get(0).getName());
+            Assert.assertEquals(2, usersCursor.getCurrentIndex());
+            batch.clear();
+            Assert.assertEquals(1, usersCursor.fetchBatch(batch, 2));
+            Assert.assertEquals("User4", batch.get(0).getName());
+            Assert.assertTrue(usersCursor.isConsumed());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldStopProducerOnClose() throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Cursor<User> delegate = sqlSession.getMapper(Mapper.class).getAllUsers();
+            Cursor<User> usersCursor = new PrefetchingCursor<User>(delegate, 1);
+            Iterator<User> iterator = usersCursor.iterator();
+            Assert.assertEquals("User1", iterator.next().getName());
+
+            usersCursor.close();
+            Assert.assertFalse(delegate.isOpen());
+            Assert.assertFalse(delegate.isConsumed());
+            Assert.assertFalse(usersCursor.isOpen());
+            Assert.assertFalse(iterator.hasNext());
+
+            // the session can be used again
+            Assert.assertEquals(5, sqlSession.selectList("getAllUsers").size());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldCloseUnstartedCursor() throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Cursor<User> delegate = sqlSession.getMapper(Mapper.class).getAllUsers();
+            Cursor<User> usersCursor = new PrefetchingCursor<User>(delegate, 10);
+            usersCursor.close();
+            Assert.assertFalse(usersCursor.iterator().hasNext());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldRethrowProducerFailureAfterFetchedItems() throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            final Cursor<User> users = sqlSession.getMapper(Mapper.class).getAllUsers();
+            Cursor<User> failing = new FailingCursor(users);
+            Cursor<User> usersCursor = new PrefetchingCursor<User>(failing, 10);
+            Iterator<User> iterator = usersCursor.iterator();
+            Assert.assertEquals("User1", iterator.next().getName());
+            try {
+                iterator.hasNext();
+                Assert.fail("Expected the producer failure");
+            } catch (PersistenceException e) {
+                Assert.assertEquals("boom", e.getCause().getMessage());
+            }
+            Assert.assertFalse(users.isOpen());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldPrefetchFromCursorWithoutBatchSupport() throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Cursor<User> delegate = new PlainCursor(sqlSession.getMapper(Mapper.class).getAllUsers());
+            Cursor<User> usersCursor = new PrefetchingCursor<User>(delegate, 2);
+            List<String> names = new ArrayList<String>();
+            for (User user : usersCursor) {
+                names.add(user.getName());
+            }
+            Assert.assertEquals(5, names.size());
+            Assert.assertEquals("User5", names.get(4));
+            Assert.assertTrue(usersCursor.isConsumed());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldCloseWhenExecutorRejectsProducer() throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Cursor<User> delegate = sqlSession.getMapper(Mapper.class).getAllUsers();
+            Cursor<User> usersCursor = new PrefetchingCursor<User>(delegate, 2, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    throw new RejectedExecutionException("full");
+                }
+            });
+            Iterator<User> iterator = usersCursor.iterator();
+            try {
+                iterator.hasNext();
+                Assert.fail("Expected the rejection to be reported");
+            } catch (PersistenceException e) {
+                Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+            Assert.assertFalse(iterator.hasNext());
+            usersCursor.close();
+            Assert.assertFalse(delegate.isOpen());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldNotWaitForProducerThatNeverRan() throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            final List<Runnable> queued = new CopyOnWriteArrayList<Runnable>();
+            Cursor<User> delegate = sqlSession.getMapper(Mapper.class).getAllUsers();
+            final Cursor<User> usersCursor = new PrefetchingCursor<User>(delegate, 2, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    queued.add(command);
+                }
+            });
+            Thread consumer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    usersCursor.iterator().hasNext();
+                }
+            });
+            consumer.setDaemon(true);
+            consumer.start();
+            while (queued.isEmpty()) {
+                Thread.sleep(10);
+            }
+
+            usersCursor.close();
+            Assert.assertFalse(delegate.isOpen());
+            // the waiting consumer is released
+            consumer.join();
+            // a producer run after close does nothing
+            queued.get(0).run();
+            Assert.assertFalse(delegate.isOpen());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldReleaseWaitingConsumerWhenClosedFromAnotherThread() throws Exception {
+        final CountDownLatch fetching = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Cursor<User> usersCursor = new PrefetchingCursor<User>(new ListCursor(new ArrayList<User>()) {
+            @Override
+            public Iterator<User> iterator() {
+                return new Iterator<User>() {
+                    @Override
+                    public boolean hasNext() {
+                        fetching.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public User next() {
+                        throw new NoSuchElementException();
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        }, 2);
+        final AtomicBoolean hasNext = new AtomicBoolean(true);
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                hasNext.set(usersCursor.iterator().hasNext());
+            }
+        });
+        consumer.setDaemon(true);
+        consumer.start();
+        // the producer is running and the consumer waits for its first item
+        fetching.await();
+        Thread closer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    usersCursor.close();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        closer.setDaemon(true);
+        closer.start();
+        while (usersCursor.isOpen()) {
+            Thread.sleep(10);
+        }
+        // the producer ends after close, without signalling the end itself
+        release.countDown();
+        closer.join();
+        consumer.join();
+        Assert.assertFalse(hasNext.get());
+    }
+
+    @Test
+    public void shouldPrefetchNullItems() throws Exception {
+        Cursor<User> usersCursor = new PrefetchingCursor<User>(
+                new ListCursor(Arrays.asList(new User(), null, new User())), 1);
+        Iterator<User> iterator = usersCursor.iterator();
+        Assert.assertNotNull(iterator.next());
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertNull(iterator.next());
+        List<User> batch = new ArrayList<User>();
+        Assert.assertEquals(1, ((BatchCursor<User>) usersCursor).fetchBatch(batch, 5));
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertTrue(usersCursor.isConsumed());
+    }
+
+    private static class FailingCursor implements BatchCursor<User> {
+        private final Cursor<User> delegate;
+        private int calls;
+
+        FailingCursor(Cursor<User> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int fetchBatch(List<? super User> items, int maxItems) {
+            if (calls++ > 0) {
+                throw new IllegalStateException("boom");
+            }
+            return ((BatchCursor<User>) delegate).fetchBatch(items, 1);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public boolean isConsumed() {
+            return delegate.isConsumed();
+        }
+
+        @Override
+        public int getCurrentIndex() {
+            return delegate.getCurrentIndex();
+        }
+
+        @Override
+        public Iterator<User> iterator() {
+            return delegate.iterator();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static class PlainCursor implements Cursor<User> {
+        private final Cursor<User> delegate;
+
+        PlainCursor(Cursor<User> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public boolean isConsumed() {
+            return delegate.isConsumed();
+        }
+
+        @Override
+        public int getCurrentIndex() {
+            return delegate.getCurrentIndex();
+        }
+
+        @Override
+        public Iterator<User> iterator() {
+            return delegate.iterator();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static class ListCursor implements Cursor<User> {
+        private final List<User> users;
+        private boolean closed;
+
+        ListCursor(List<User> users) {
+            this.users = users;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !closed;
+        }
+
+        @Override
+        public boolean isConsumed() {
+            return false;
+        }
+
+        @Override
+        public int getCurrentIndex() {
+            return -1;
+        }
+
+        @Override
+        public Iterator<User> iterator() {
+            return users.iterator();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.foreach_array;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ArrayParameterDialect;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ForEachArrayTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/foreach_array/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    // populate in-memory database
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/foreach_array/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+  }
+
+  @Test
+  public void shouldBindListAsArray() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList("User1", "User3"), mapper.getNames(Arrays.asList(3, 1)));
+      assertEquals(Arrays.asList("User2", "User3", "User4"), mapper.getNames(Arrays.asList(2, 3, 4, 5)));
+      assertEquals(mapper.getNamesExpanded(Arrays.asList(2, 4)), mapper.getNames(Arrays.asList(2, 4)));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldBindPrimitiveArrayAndSetAsArray() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList("User1", "User4"), mapper.getNamesFromArray(new int[] { 4, 1 }));
+      assertEquals(Arrays.asList(2, 3), mapper.getIds(new LinkedHashSet<String>(Arrays.asList("User3", "User2"))));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldGenerateSameSqlWhateverTheSize() {
+    MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement(
+        "org.apache.ibatis.submitted.foreach_array.Mapper.getNames");
+    Map<String, Object> parameter = new HashMap<String, Object>();
+    parameter.put("ids", Arrays.asList(1));
+    String sql = ms.getBoundSql(parameter).getSql();
+    assertEquals("select name from users where id in ( UNNEST(?) ) order by id", sql.replaceAll("\\s+", " ").trim());
+    parameter.put("ids", Arrays.asList(1, 2, 3));
+    assertEquals(sql, ms.getBoundSql(parameter).getSql());
+    assertEquals(1, ms.getBoundSql(parameter).getParameterMappings().size());
+  }
+
+  @Test
+  public void shouldBindElementsOneByOneWithoutDialect() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    MappedStatement ms = configuration.getMappedStatement("org.apache.ibatis.submitted.foreach_array.Mapper.getNames");
+    Map<String, Object> parameter = new HashMap<String, Object>();
+    parameter.put("ids", Arrays.asList(1, 2));
+    configuration.setArrayParameterDialect(null);
+    try {
+      assertEquals(2, ms.getBoundSql(parameter).getParameterMappings().size());
+    } finally {
+      configuration.setArrayParameterDialect(ArrayParameterDialect.HSQLDB);
+    }
+  }
+
+}
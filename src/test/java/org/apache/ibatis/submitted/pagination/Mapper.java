@@ -0,0 +1,40 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.pagination;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.RowBounds;
+
+public interface Mapper {
+
+  @Select("select id from users order by id")
+  List<Integer> getUserIds(RowBounds rowBounds);
+
+  @Select({"<script>",
+      "select id from users where id in",
+      "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+      "order by id",
+      "</script>"})
+  List<Integer> getUserIdsIn(@Param("ids") List<Integer> ids, RowBounds rowBounds);
+
+  @Select("select id from users order by id")
+  Cursor<Integer> getUserIdCursor(RowBounds rowBounds);
+
+}
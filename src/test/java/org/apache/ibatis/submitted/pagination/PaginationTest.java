@@ -0,0 +1,190 @@
+/**
+ *    Copyright 2009-2017 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.pagination;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.pagination.OffsetFetchPaginationDialect;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PaginationTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static SqlCollector sqlCollector = new SqlCollector();
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/pagination/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+    sqlSessionFactory.getConfiguration().addInterceptor(sqlCollector);
+
+    // populate in-memory database
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/pagination/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+  }
+
+  @Before
+  public void clearSql() {
+    sqlCollector.sqls.clear();
+  }
+
+  @Test
+  public void shouldLimitRowsInDatabase() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(2, 3), mapper.getUserIds(new RowBounds(1, 2)));
+      assertEquals(Arrays.asList(4, 5), mapper.getUserIds(new RowBounds(3, RowBounds.NO_ROW_LIMIT)));
+      assertEquals(Arrays.asList(1, 2, 3), mapper.getUserIds(new RowBounds(0, 3)));
+      assertEquals(Arrays.asList(
+          "select id from users order by id OFFSET ? ROWS FETCH FIRST ? ROWS ONLY",
+          "select id from users order by id OFFSET ? ROWS",
+          "select id from users order by id FETCH FIRST ? ROWS ONLY"), sqlCollector.sqls);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldNotChangeQueriesWithoutRowBounds() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(1, 2, 3, 4, 5), mapper.getUserIds(RowBounds.DEFAULT));
+      assertEquals(Arrays.asList("select id from users order by id"), sqlCollector.sqls);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldKeepDynamicParameters() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(3, 5), mapper.getUserIdsIn(Arrays.asList(1, 3, 5), new RowBounds(1, 5)));
+      assertTrue(sqlCollector.sqls.get(0).endsWith("OFFSET ? ROWS FETCH FIRST ? ROWS ONLY"));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldCacheLimitedResultsByRowBounds() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(2, 3), mapper.getUserIds(new RowBounds(1, 2)));
+      assertEquals(Arrays.asList(4, 5), mapper.getUserIds(new RowBounds(3, 2)));
+      assertEquals(Arrays.asList(2, 3), mapper.getUserIds(new RowBounds(1, 2)));
+      assertEquals(2, sqlCollector.sqls.size());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldSkipRowsOfCursorsOnClient() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Cursor<Integer> cursor = mapper.getUserIdCursor(new RowBounds(1, 2));
+      List<Integer> ids = new ArrayList<Integer>();
+      for (Integer id : cursor) {
+        ids.add(id);
+      }
+      assertEquals(Arrays.asList(2, 3), ids);
+      assertEquals(2, cursor.getCurrentIndex());
+      assertEquals(Arrays.asList("select id from users order by id"), sqlCollector.sqls);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldLimitRowsInDerby() throws Exception {
+    Environment environment = new Environment("derby", new JdbcTransactionFactory(), BaseDataTest.createBlogDataSource());
+    Configuration configuration = new Configuration(environment);
+    configuration.setPaginationDialect(new OffsetFetchPaginationDialect());
+    configuration.addMapper(PostMapper.class);
+    SqlSession sqlSession = new SqlSessionFactoryBuilder().build(configuration).openSession();
+    try {
+      PostMapper mapper = sqlSession.getMapper(PostMapper.class);
+      assertEquals(Arrays.asList(2, 3), mapper.getPostIds(new RowBounds(1, 2)));
+      assertEquals(Arrays.asList(4, 5), mapper.getPostIds(new RowBounds(3, RowBounds.NO_ROW_LIMIT)));
+      assertEquals(Arrays.asList(1), mapper.getPostIds(new RowBounds(0, 1)));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+  public static class SqlCollector implements Interceptor {
+
+    private final List<String> sqls = new ArrayList<String>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      sqls.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+      return invocation.proceed();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+  }
+
+}
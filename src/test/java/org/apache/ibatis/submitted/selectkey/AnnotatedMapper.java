@@ -22,6 +22,7 @@ import org.apache.ibatis.annotations.InsertProvider;
 import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.SelectKey;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.executor.keygen.PooledSelectKeyGenerator;
 
 public interface AnnotatedMapper {
 
@@ -55,6 +56,13 @@ public interface AnnotatedMapper {
     @SelectKey(statement="call next value for TestSequence", keyProperty="nameId", before=true, resultType=int.class)
     int insertTable3_2(Name name);
 
+    int insertTable3PooledXml(Name name);
+
+    @Insert("insert into table3 (id, name) values(#{nameId}, #{name})")
+    @SelectKey(statement="call next value for HiLoSequence", keyProperty="nameId", before=true, resultType=int.class,
+        allocationSize=5, allocation=PooledSelectKeyGenerator.Allocation.HILO)
+    int insertTable3HiLo(Name name);
+
     @Update("update table2 set name = #{name} where id = #{nameId}")
     @Options(useGeneratedKeys=true, keyProperty="generatedName")
     int updateTable2WithGeneratedKey(Name name);
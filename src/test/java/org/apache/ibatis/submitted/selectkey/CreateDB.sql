@@ -15,6 +15,8 @@
 --
 
 drop sequence if exists TestSequence;
+drop sequence if exists PooledSequence;
+drop sequence if exists HiLoSequence;
 drop table if exists table1;
 drop table if exists table2;
 drop table if exists table3;
@@ -31,6 +33,8 @@ name_fred varchar(25) generated always as (name || '_fred')
 );
 
 create sequence TestSequence as integer start with 33;
+create sequence PooledSequence as integer start with 100 increment by 10;
+create sequence HiLoSequence as integer start with 1;
 
 create table table3 (
 id int not null,
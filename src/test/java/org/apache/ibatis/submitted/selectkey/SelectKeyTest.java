@@ -15,6 +15,9 @@
  */
 package org.apache.ibatis.submitted.selectkey;
 
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.SelectKey;
+import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.exceptions.PersistenceException;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.jdbc.ScriptRunner;
@@ -31,8 +34,18 @@ import org.junit.Test;
 import java.io.Reader;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class SelectKeyTest {
 
@@ -438,4 +451,91 @@ public class SelectKeyTest {
       sqlSession.close();
     }
   }
+
+  @Test
+  public void testInsertTable3WithPooledKeys() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      AnnotatedMapper mapper = sqlSession.getMapper(AnnotatedMapper.class);
+      for (int i = 0; i < 25; i++) {
+        Name name = new Name();
+        name.setName("barney" + i);
+        assertEquals(1, mapper.insertTable3PooledXml(name));
+        assertEquals(100 + i, name.getNameId());
+      }
+      // three blocks of ten keys were fetched: 100, 110 and 120
+      ResultSet rs = sqlSession.getConnection().createStatement().executeQuery("call next value for PooledSequence");
+      assertTrue(rs.next());
+      assertEquals(130, rs.getInt(1));
+      rs.close();
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void testAnnotatedInsertTable3WithHiLoKeys() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      AnnotatedMapper mapper = sqlSession.getMapper(AnnotatedMapper.class);
+      for (int i = 0; i < 7; i++) {
+        Name name = new Name();
+        name.setName("barney" + i);
+        assertEquals(1, mapper.insertTable3HiLo(name));
+        // hi values 1 and 2 of the sequence reserve the keys 5 to 9 and 10 to 14
+        assertEquals(5 + i, name.getNameId());
+      }
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void testPooledKeysAreUniqueAcrossThreads() throws Exception {
+    final Set<Integer> ids = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+    ExecutorService threads = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(threads.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            SqlSession sqlSession = sqlSessionFactory.openSession(true);
+            try {
+              AnnotatedMapper mapper = sqlSession.getMapper(AnnotatedMapper.class);
+              for (int i = 0; i < 50; i++) {
+                Name name = new Name();
+                name.setName("fred");
+                mapper.insertTable3PooledXml(name);
+                assertTrue(ids.add(name.getNameId()));
+              }
+            } finally {
+              sqlSession.close();
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      threads.shutdown();
+    }
+    assertEquals(200, ids.size());
+    for (int id : ids) {
+      assertTrue(id >= 100 && id < 300);
+    }
+  }
+
+  @Test(expected = BuilderException.class)
+  public void testPooledKeysRequireSelectKeyBefore() {
+    sqlSessionFactory.getConfiguration().addMapper(InvalidPooledMapper.class);
+  }
+
+  public interface InvalidPooledMapper {
+    @Insert("insert into table3 (id, name) values(#{nameId}, #{name})")
+    @SelectKey(statement="call next value for PooledSequence", keyProperty="nameId", before=false, resultType=int.class, allocationSize=10)
+    int insertTable3(Name name);
+  }
 }
@@ -19,9 +19,15 @@ import org.junit.Test;
 import org.mockito.Mock;
 
 import java.sql.Array;
+import java.sql.Connection;
+import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,6 +45,28 @@ public class ArrayTypeHandlerTest extends BaseTypeHandlerTest {
     verify(ps).setArray(1, mockArray);
   }
 
+  @Test
+  public void shouldSetPrimitiveArrayParameter() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(ps.getConnection()).thenReturn(connection);
+    when(connection.createArrayOf(anyString(), any(Object[].class))).thenReturn(mockArray);
+    TYPE_HANDLER.setParameter(ps, 1, new int[] { 1, 2 }, null);
+    verify(connection).createArrayOf("INTEGER", new Object[] { 1, 2 });
+    verify(ps).setArray(1, mockArray);
+    // the driver may still read the array when the statement is executed
+    verify(mockArray, never()).free();
+  }
+
+  @Test
+  public void shouldSetCollectionParameterWithElementJdbcType() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(ps.getConnection()).thenReturn(connection);
+    when(connection.createArrayOf(anyString(), any(Object[].class))).thenReturn(mockArray);
+    TYPE_HANDLER.setParameter(ps, 1, Arrays.asList(1L, 2L), JdbcType.NUMERIC);
+    verify(connection).createArrayOf("NUMERIC", new Object[] { 1L, 2L });
+    verify(ps).setArray(1, mockArray);
+  }
+
   @Override
   @Test
   public void shouldGetResultFromResultSetByName() throws Exception {